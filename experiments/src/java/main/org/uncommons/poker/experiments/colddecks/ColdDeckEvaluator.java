@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.uncommons.poker.game.cards.CardUtils;
 import org.uncommons.poker.game.cards.HandEvaluator;
+import org.uncommons.poker.game.cards.OrderIndependentEvaluator;
 import org.uncommons.poker.game.cards.PlayingCard;
 import org.uncommons.poker.game.cards.RankedHand;
 import org.uncommons.watchmaker.framework.FitnessEvaluator;
@@ -15,11 +16,13 @@ public class ColdDeckEvaluator implements FitnessEvaluator<List<PlayingCard>>
 {
     private final HandEvaluator handEvaluator;
     private final int playerCount;
+    private final boolean sortHands;
 
     public ColdDeckEvaluator(HandEvaluator handEvaluator, int playerCount)
     {
         this.handEvaluator = handEvaluator;
         this.playerCount = playerCount;
+        this.sortHands = !(handEvaluator instanceof OrderIndependentEvaluator);
     }
 
 
@@ -79,7 +82,10 @@ public class ColdDeckEvaluator implements FitnessEvaluator<List<PlayingCard>>
             hand.add(flop3);
             hand.add(turn);
             hand.add(river);
-            CardUtils.sevenCardSort(hand);
+            if (sortHands)
+            {
+                CardUtils.sevenCardSort(hand);
+            }
         }
 
         RankedHand dealerHand = handEvaluator.evaluate(players.get(playerCount - 1));
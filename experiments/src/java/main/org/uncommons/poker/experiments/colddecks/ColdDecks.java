@@ -1,5 +1,7 @@
 package org.uncommons.poker.experiments.colddecks;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -8,8 +10,9 @@ import java.util.Random;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.random.AESCounterRNG;
 import org.uncommons.maths.random.DiscreteUniformGenerator;
+import org.uncommons.poker.game.cards.HandEvaluator;
 import org.uncommons.poker.game.cards.PlayingCard;
-import org.uncommons.poker.game.cards.SevenCardHandEvaluator;
+import org.uncommons.poker.game.cards.StateMachineHandEvaluator;
 import org.uncommons.watchmaker.framework.CachingFitnessEvaluator;
 import org.uncommons.watchmaker.framework.CandidateFactory;
 import org.uncommons.watchmaker.framework.EvolutionEngine;
@@ -33,7 +36,14 @@ import org.uncommons.watchmaker.swing.evolutionmonitor.EvolutionMonitor;
  */
 public class ColdDecks
 {
-    public static void main(String[] args) throws GeneralSecurityException
+    /**
+     * The system property that sets where the state machine's table is stored.  The table
+     * is generated the first time and read from the file on later runs.
+     */
+    public static final String TABLE_FILE_PROPERTY = "poker.stateMachineTable";
+    private static final String DEFAULT_TABLE_FILE = "state-machine.tbl";
+
+    public static void main(String[] args) throws GeneralSecurityException, IOException
     {
         int playerCount = Integer.parseInt(args[0]);
         int populationSize = Integer.parseInt(args[1]);
@@ -43,8 +53,13 @@ public class ColdDecks
         int migrantCount = Integer.parseInt(args[5]);
         
         Random rng = new AESCounterRNG();
+        File tableFile = new File(System.getProperty(TABLE_FILE_PROPERTY, DEFAULT_TABLE_FILE));
+        HandEvaluator handEvaluator = new StateMachineHandEvaluator(tableFile);
 
-        List<EvolutionEngine<List<PlayingCard>>> islands = createIslands(playerCount, islandCount, rng);
+        List<EvolutionEngine<List<PlayingCard>>> islands = createIslands(playerCount,
+                                                                         islandCount,
+                                                                         handEvaluator,
+                                                                         rng);
         Migration migration = new RandomMigration();
         IslandEvolution<List<PlayingCard>> engine = new IslandEvolution<List<PlayingCard>>(islands,
                                                                                            migration,
@@ -84,6 +99,7 @@ public class ColdDecks
 
     private static List<EvolutionEngine<List<PlayingCard>>> createIslands(int playerCount,
                                                                           int islandCount,
+                                                                          HandEvaluator handEvaluator,
                                                                           Random rng)
     {
         CandidateFactory<List<PlayingCard>> factory = new ListPermutationFactory<PlayingCard>(Arrays.asList(PlayingCard.values()));
@@ -96,7 +112,7 @@ public class ColdDecks
                                                          new DiscreteUniformGenerator(1, 51, rng)));
         EvolutionaryOperator<List<PlayingCard>> pipeline = new EvolutionPipeline<List<PlayingCard>>(operators);
 
-        FitnessEvaluator<List<PlayingCard>> fitnessEvaluator = new ColdDeckEvaluator(new SevenCardHandEvaluator(), playerCount);
+        FitnessEvaluator<List<PlayingCard>> fitnessEvaluator = new ColdDeckEvaluator(handEvaluator, playerCount);
         fitnessEvaluator = new CachingFitnessEvaluator<List<PlayingCard>>(fitnessEvaluator);
 
         List<EvolutionEngine<List<PlayingCard>>> islands = new ArrayList<EvolutionEngine<List<PlayingCard>>>(islandCount);
@@ -14,10 +14,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.uncommons.maths.random.XORShiftRNG;
+import org.uncommons.poker.game.cards.BoardContext;
 import org.uncommons.poker.game.cards.Deck;
-import org.uncommons.poker.game.cards.LookupHandEvaluator;
+import org.uncommons.poker.game.cards.HandStrength;
 import org.uncommons.poker.game.cards.PlayingCard;
-import org.uncommons.poker.game.cards.RankedHand;
 import org.uncommons.poker.game.rules.PokerRules;
 import org.uncommons.poker.game.rules.TexasHoldem;
 
@@ -32,7 +32,9 @@ public class StartingHands
         int seats = Integer.parseInt(args[0]);
         int iterations = Integer.parseInt(args[1]);
         
-        TexasHoldem rules = new TexasHoldem(new LookupHandEvaluator());
+        // Hold'em hands are ranked by a BoardContext, so the rules don't need a table-based
+        // evaluator.
+        TexasHoldem rules = new TexasHoldem();
         
         long start = System.currentTimeMillis();
         StartingHands startingHands = new StartingHands();
@@ -46,6 +48,17 @@ public class StartingHands
     }
 
 
+    /**
+     * Deals random hands and records how often each starting hand wins.
+     * @param seats The number of players at the table.
+     * @param iterations The number of hands to deal.
+     * @param rules How to rank each player's hand.  For {@link TexasHoldem}, hands are ranked
+     * against a {@link BoardContext} instead, so the evaluator that the rules were created
+     * with is not used.  This gives the same results, because every evaluator agrees on
+     * the strength of a hand.
+     * @param rng The source of randomness for shuffling.
+     * @return Statistics for each starting hand, keyed by its classification (e.g. "AKs").
+     */
     public Map<String, StartingHandInfo> simulate(final int seats,
                                                   final int iterations,
                                                   final PokerRules rules,
@@ -119,10 +132,14 @@ public class StartingHands
         {
             communityCards.add(deck.dealCard());
         }
+        // In Hold'em every player shares the same community cards, so they only need to
+        // be analysed once.
+        BoardContext board = rules instanceof TexasHoldem ? new BoardContext(communityCards) : null;
 
-
-        RankedHand bestHand = null;
-        // Maybe more than one winning hand (split pots).
+        int bestHand = 0;
+        // Maybe more than one winning hand (split pots).  Hands are compared by strength
+        // because RankedHand.compareTo also compares suits, so it only finds a tie when
+        // both players use exactly the same five cards (e.g. they both play the board).
         List<StartingHandInfo> winningStartingHands = new ArrayList<StartingHandInfo>(seats);
 
         // Deal hole cards and determine the winning hand(s).
@@ -135,14 +152,16 @@ public class StartingHands
             StartingHandInfo info = getStartingHandInfo(startingHand, startingHands);
             info.incrementDealt();
 
-            RankedHand hand = rules.rankHand(Arrays.asList(holeCard1, holeCard2), communityCards);
-            if (bestHand == null || hand.compareTo(bestHand) > 0)
+            int hand = board != null
+                       ? board.rank(holeCard1, holeCard2)
+                       : HandStrength.rank(rules.rankHand(Arrays.asList(holeCard1, holeCard2), communityCards));
+            if (hand > bestHand)
             {
                 bestHand = hand;
                 winningStartingHands.clear();
                 winningStartingHands.add(info);
             }
-            else if (hand.compareTo(bestHand) == 0)
+            else if (hand == bestHand)
             {
                 // Potential split pot.
                 winningStartingHands.add(info);
@@ -0,0 +1,150 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates ace-to-five lowball hands, as used in Razz.  The lowest hand wins, aces are
+ * always low, and straights and flushes are ignored, so the best possible hand is 5-4-3-2-A.
+ * Unlike an {@link EightOrBetterLowEvaluator eight-or-better} low, every hand has a value:
+ * a hand that cannot avoid pairing is ranked below all unpaired hands, and so on up to four
+ * of a kind, which is the worst low.
+ *
+ * Because suits do not matter, the value of a hand depends only on how many cards it has
+ * of each rank.  There is a table for each hand size from 5 to 7 cards, indexed by the
+ * {@link RankMultisetHash} of the cards (the 7-card table has 49,205 entries), so a
+ * hand is ranked with a single look-up however many cards it has.
+ *
+ * {@link #rank(List)} returns strengths in the range 1 (four kings and a queen) to
+ * {@link #CLASS_COUNT} (5-4-3-2-A), so, as for high hands, higher values are better.  The
+ * hands returned by {@link #evaluate(List)} are ranked HIGH_CARD, PAIR and so on, but
+ * {@link RankedHand#compareTo(RankedHand)} orders them as high hands, so low hands should
+ * be compared by their strengths instead.
+ * @author Daniel Dyer
+ */
+public class AceToFiveLowEvaluator implements HandEvaluator, OrderIndependentEvaluator
+{
+    /** The number of distinct ace-to-five low hands. */
+    public static final int CLASS_COUNT = 6175;
+
+    // STRENGTHS[n] is the table for n-card hands.
+    private static final short[][] STRENGTHS = new short[RankMultisetHash.MAX_CARDS + 1][];
+
+    private static final HandRanking[] RANKINGS = HandRanking.values();
+
+    // For each strength, the ranking and face values of the hand, packed as for
+    // HandStrength.toRankedHand(int, long).
+    private static final int[] DESCRIPTORS = new int[CLASS_COUNT + 1];
+
+    static
+    {
+        long[] allRankCounts = RankMultisetHash.allRankCounts(RankedHand.HAND_SIZE);
+        // Sort the hands from best to worst, keeping track of the index of each.
+        long[] keys = new long[allRankCounts.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = ((long) sortKey(RankMultisetHash.describeGroups(allRankCounts[i], true)) << 16) | i;
+        }
+        Arrays.sort(keys);
+        STRENGTHS[RankedHand.HAND_SIZE] = new short[keys.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            int index = (int) keys[i] & 0xFFFF;
+            int strength = CLASS_COUNT - i;
+            STRENGTHS[RankedHand.HAND_SIZE][index] = (short) strength;
+            DESCRIPTORS[strength] = RankMultisetHash.describeGroups(allRankCounts[index], true);
+        }
+
+        // The best low from a bigger hand is the best low left after discarding one card.
+        for (int cards = RankedHand.HAND_SIZE + 1; cards <= RankMultisetHash.MAX_CARDS; cards++)
+        {
+            long[] hands = RankMultisetHash.allRankCounts(cards);
+            STRENGTHS[cards] = new short[hands.length];
+            for (int i = 0; i < hands.length; i++)
+            {
+                short best = 0;
+                for (int rank = 0; rank < FaceValue.values().length; rank++)
+                {
+                    if (RankMultisetHash.count(hands[i], rank) > 0)
+                    {
+                        long remaining = hands[i] - (1L << (rank * RankMultisetHash.BITS_PER_RANK));
+                        best = (short) Math.max(best, STRENGTHS[cards - 1][RankMultisetHash.index(remaining, cards - 1)]);
+                    }
+                }
+                STRENGTHS[cards][i] = best;
+            }
+        }
+    }
+
+
+    /**
+     * Low hands are compared as if they were high hands (ignoring straights and flushes)
+     * with aces counting as the lowest rank, and the lowest one wins.
+     * @param descriptor The hand, as described by {@link RankMultisetHash#describeGroups(long, boolean)}.
+     * @return A number that is lower for better low hands.
+     */
+    private static int sortKey(int descriptor)
+    {
+        int key = descriptor >>> 20;
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            int face = (descriptor >>> (16 - 4 * i)) & 0xF;
+            // Shift every face value up by one so that the ace becomes zero.
+            key = (key << 4) | ((face + 1) % FaceValue.values().length);
+        }
+        return key;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     * @return The best ace-to-five low hand.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(DESCRIPTORS[rank(cards)], BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        int rank = rank(cards);
+        result.set(DESCRIPTORS[rank], rank, BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     * @return The ranking of the best ace-to-five low hand.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return RANKINGS[DESCRIPTORS[rank(cards)] >>> 20];
+    }
+
+
+    /**
+     * @param cards Five, six or seven cards in any order.
+     * @return The strength of the best ace-to-five low that can be made from the cards, in
+     * the range 1 - {@link #CLASS_COUNT}.  Higher values are better (i.e. lower) hands.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() < RankedHand.HAND_SIZE || cards.size() > RankMultisetHash.MAX_CARDS)
+        {
+            throw new IllegalArgumentException("Hand must contain 5, 6 or 7 cards.");
+        }
+        long rankCounts = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            rankCounts = RankMultisetHash.add(rankCounts, cards.get(i).getValue().ordinal());
+        }
+        return STRENGTHS[cards.size()][RankMultisetHash.index(rankCounts, cards.size())];
+    }
+}
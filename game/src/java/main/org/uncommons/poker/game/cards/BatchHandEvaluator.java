@@ -0,0 +1,25 @@
+package org.uncommons.poker.game.cards;
+
+/**
+ * A {@link HandStrengthEvaluator} that can also rank many hands in a single call.  The
+ * hands are passed as card ordinals (see {@link PlayingCard#ordinal()}) packed into one
+ * array, and the strengths are written into another.  This avoids creating a list for
+ * each hand and making a separate (virtual) call per hand, and it lets implementations
+ * interleave the work for several hands.
+ * @author Daniel Dyer
+ */
+public interface BatchHandEvaluator extends HandStrengthEvaluator
+{
+    /**
+     * Ranks a batch of hands.  The cards within each hand may be in any order.
+     * @param cards The ordinals of the cards of all of the hands.  Hand {@code i} is
+     * made up of the {@code handSize} elements starting at index {@code i * handSize}.
+     * @param handSize The number of cards in each hand.
+     * @param handCount The number of hands to rank.
+     * @param ranks The array that the strength of each hand, as defined by
+     * {@link HandStrength}, is written to.  Must have at least {@code handCount} elements.
+     * @throws IllegalArgumentException If this evaluator does not support hands of the
+     * specified size.
+     */
+    void rankAll(int[] cards, int handSize, int handCount, int[] ranks);
+}
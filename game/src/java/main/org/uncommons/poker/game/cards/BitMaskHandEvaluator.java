@@ -0,0 +1,548 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+
+/**
+ * A {@link HandEvaluator} that ranks hands of 5, 6 or 7 cards using bitwise operations on
+ * 13-bit rank masks (one per suit) packed into a single 64-bit value.  Flushes, straights
+ * and groups of same-rank cards are all found with a handful of logical operations rather
+ * than by filtering and re-ordering lists, so the only object allocated per evaluation is
+ * the returned {@link RankedHand}.
+ *
+ * Unlike {@link SevenCardHandEvaluator}, this evaluator does not depend on the order of the
+ * cards and never modifies the list that it is given.  Where there is a choice between cards
+ * of the same rank, it picks the same cards as {@link SevenCardHandEvaluator} (the highest
+ * suits first).  Callers that only need to compare hands should use {@link #rank(List)},
+ * which avoids even the allocation of the {@link RankedHand}.
+ *
+ * @author Daniel Dyer
+ */
+public class BitMaskHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
+{
+    /** Number of bits reserved for each suit's rank mask in a packed suit-masks value. */
+    static final int LANE_WIDTH = 16;
+    static final int RANK_MASK = 0x1FFF;
+    // A, 5, 4, 3, 2 - the only straight that can't be found by shifting.
+    private static final int WHEEL = 0x100F;
+
+    private static final PlayingCard[] CARDS = PlayingCard.values();
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return evaluate(checkedSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        long suitMasks = checkedSuitMasks(cards);
+        result.setHighHand(rank(suitMasks), suitMasks);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        return rank(checkedSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return getRanking(checkedSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param handSize Five, six or seven.
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        if (handSize < RankedHand.HAND_SIZE || handSize > 7)
+        {
+            throw new IllegalArgumentException("Hand size must be 5, 6 or 7.");
+        }
+        int index = 0;
+        for (int i = 0; i < handCount; i++)
+        {
+            long suitMasks = 0;
+            for (int j = 0; j < handSize; j++)
+            {
+                suitMasks |= bit(cards[index++]);
+            }
+            ranks[i] = rank(suitMasks);
+        }
+    }
+
+
+    /**
+     * Converts a hand into suit masks, after checking that it has 5, 6 or 7 cards.  With
+     * fewer cards, there would not be enough to make a hand, and with more, there could be
+     * more than one flush suit.
+     */
+    private static long checkedSuitMasks(List<PlayingCard> cards)
+    {
+        if (cards.size() < RankedHand.HAND_SIZE || cards.size() > 7)
+        {
+            throw new IllegalArgumentException("Hand must contain 5, 6 or 7 cards.");
+        }
+        return toSuitMasks(cards);
+    }
+
+
+    /**
+     * Converts a list of cards into four 13-bit rank masks, one per suit.  The mask
+     * for each suit occupies its own 16-bit lane of the result, so the ranks held
+     * in a given suit are {@code (int) (suitMasks >>> (suit * 16)) & 0x1FFF}.
+     */
+    static long toSuitMasks(List<PlayingCard> cards)
+    {
+        long suitMasks = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            suitMasks |= bit(cards.get(i).ordinal());
+        }
+        return suitMasks;
+    }
+
+
+    /**
+     * @return The bit that represents the card with the specified ordinal in a packed
+     * suit-masks value.
+     */
+    static long bit(int card)
+    {
+        return 1L << ((card & 3) * LANE_WIDTH + (card >> 2));
+    }
+
+
+    static RankedHand evaluate(long suitMasks)
+    {
+        // With no more than 7 cards, a flush rules out four-of-a-kind and full houses, so
+        // if there is a flush then it (or a straight flush) is the best hand available.
+        int flushSuit = flushSuit(suitMasks);
+        if (flushSuit >= 0)
+        {
+            int flushRanks = lane(suitMasks, flushSuit);
+            int straightHigh = straightHigh(flushRanks);
+            if (straightHigh >= 0)
+            {
+                return createHand(straightCards(straightHigh, flushSuit),
+                                  straightHigh == FaceValue.ACE.ordinal() ? HandRanking.ROYAL_FLUSH
+                                                                          : HandRanking.STRAIGHT_FLUSH);
+            }
+            int packed = 0;
+            int ranks = keepHighest(flushRanks, RankedHand.HAND_SIZE);
+            while (ranks != 0)
+            {
+                int rank = highestRank(ranks);
+                packed = (packed << 6) | (rank * 4 + flushSuit);
+                ranks ^= 1 << rank;
+            }
+            return createHand(packed, HandRanking.FLUSH);
+        }
+
+        int clubs = lane(suitMasks, Suit.CLUBS.ordinal());
+        int diamonds = lane(suitMasks, Suit.DIAMONDS.ordinal());
+        int hearts = lane(suitMasks, Suit.HEARTS.ordinal());
+        int spades = lane(suitMasks, Suit.SPADES.ordinal());
+        // Ranks that occur at least once, twice, three times and four times respectively.
+        int ones = clubs | diamonds | hearts | spades;
+        int twos = twoOrMore(clubs, diamonds, hearts, spades);
+        int threes = threeOrMore(clubs, diamonds, hearts, spades);
+        int fours = clubs & diamonds & hearts & spades;
+
+        if (fours != 0)
+        {
+            int quads = highestRank(fours);
+            int kicker = keepHighest(ones & ~(1 << quads), 1);
+            return createHand(kickers(suitMasks, kicker, take(suitMasks, quads, 4, 0)), HandRanking.FOUR_OF_A_KIND);
+        }
+        if (threes != 0)
+        {
+            int trips = highestRank(threes);
+            int pairs = twos & ~(1 << trips);
+            if (pairs != 0)
+            {
+                int pair = highestRank(pairs);
+                return createHand(take(suitMasks, pair, 2, take(suitMasks, trips, 3, 0)), HandRanking.FULL_HOUSE);
+            }
+        }
+        int straightHigh = straightHigh(ones);
+        if (straightHigh >= 0)
+        {
+            return createHand(straightCards(suitMasks, straightHigh), HandRanking.STRAIGHT);
+        }
+        if (threes != 0)
+        {
+            int trips = highestRank(threes);
+            int kickers = keepHighest(ones & ~(1 << trips), 2);
+            return createHand(kickers(suitMasks, kickers, take(suitMasks, trips, 3, 0)), HandRanking.THREE_OF_A_KIND);
+        }
+        if (twos != 0)
+        {
+            int highPair = highestRank(twos);
+            int lowPairs = twos & ~(1 << highPair);
+            if (lowPairs != 0)
+            {
+                int lowPair = highestRank(lowPairs);
+                int kicker = keepHighest(ones & ~((1 << highPair) | (1 << lowPair)), 1);
+                int packed = take(suitMasks, lowPair, 2, take(suitMasks, highPair, 2, 0));
+                return createHand(kickers(suitMasks, kicker, packed), HandRanking.TWO_PAIR);
+            }
+            int kickers = keepHighest(ones & ~(1 << highPair), 3);
+            return createHand(kickers(suitMasks, kickers, take(suitMasks, highPair, 2, 0)), HandRanking.PAIR);
+        }
+        return createHand(kickers(suitMasks, keepHighest(ones, RankedHand.HAND_SIZE), 0), HandRanking.HIGH_CARD);
+    }
+
+
+    /**
+     * Equivalent to {@link #evaluate(long)} but returns the strength of the hand
+     * rather than the cards that it is made from.
+     */
+    static int rank(long suitMasks)
+    {
+        int flushSuit = flushSuit(suitMasks);
+        if (flushSuit >= 0)
+        {
+            return rankFlush(lane(suitMasks, flushSuit));
+        }
+        int clubs = lane(suitMasks, Suit.CLUBS.ordinal());
+        int diamonds = lane(suitMasks, Suit.DIAMONDS.ordinal());
+        int hearts = lane(suitMasks, Suit.HEARTS.ordinal());
+        int spades = lane(suitMasks, Suit.SPADES.ordinal());
+        // Ranks that occur at least once, twice, three times and four times respectively.
+        int ones = clubs | diamonds | hearts | spades;
+        int twos = twoOrMore(clubs, diamonds, hearts, spades);
+        int threes = threeOrMore(clubs, diamonds, hearts, spades);
+        int fours = clubs & diamonds & hearts & spades;
+        return rankWithoutFlush(ones, twos, threes, fours);
+    }
+
+
+    /**
+     * Equivalent to {@link #evaluate(long)} but returns only the category of the hand.
+     * None of the work of picking kickers is done, so this costs little more than the
+     * handful of logical operations needed to find flushes, straights and groups.
+     */
+    static HandRanking getRanking(long suitMasks)
+    {
+        int flushSuit = flushSuit(suitMasks);
+        if (flushSuit >= 0)
+        {
+            int straightHigh = straightHigh(lane(suitMasks, flushSuit));
+            if (straightHigh < 0)
+            {
+                return HandRanking.FLUSH;
+            }
+            return straightHigh == FaceValue.ACE.ordinal() ? HandRanking.ROYAL_FLUSH : HandRanking.STRAIGHT_FLUSH;
+        }
+
+        int clubs = lane(suitMasks, Suit.CLUBS.ordinal());
+        int diamonds = lane(suitMasks, Suit.DIAMONDS.ordinal());
+        int hearts = lane(suitMasks, Suit.HEARTS.ordinal());
+        int spades = lane(suitMasks, Suit.SPADES.ordinal());
+        int ones = clubs | diamonds | hearts | spades;
+        int twos = twoOrMore(clubs, diamonds, hearts, spades);
+        int threes = threeOrMore(clubs, diamonds, hearts, spades);
+        if ((clubs & diamonds & hearts & spades) != 0)
+        {
+            return HandRanking.FOUR_OF_A_KIND;
+        }
+        // Every rank in threes is also in twos, so a second rank in twos completes a full house.
+        if (threes != 0 && Integer.bitCount(twos) > 1)
+        {
+            return HandRanking.FULL_HOUSE;
+        }
+        if (straightHigh(ones) >= 0)
+        {
+            return HandRanking.STRAIGHT;
+        }
+        if (threes != 0)
+        {
+            return HandRanking.THREE_OF_A_KIND;
+        }
+        switch (Integer.bitCount(twos))
+        {
+            case 0 : return HandRanking.HIGH_CARD;
+            case 1 : return HandRanking.PAIR;
+            default : return HandRanking.TWO_PAIR;
+        }
+    }
+
+
+    /**
+     * Ranks a flush (or straight flush).  A hand of up to seven cards that contains a flush
+     * cannot contain anything better than a flush except a straight flush, so only the
+     * cards of the flush suit need to be considered.
+     * @param flushRanks The ranks of the (at least five) cards of the flush suit.
+     * @return The strength of the hand.
+     */
+    static int rankFlush(int flushRanks)
+    {
+        int straightHigh = straightHigh(flushRanks);
+        return straightHigh >= 0 ? HandStrength.straightFlush(straightHigh)
+                                 : HandStrength.flush(keepHighest(flushRanks, RankedHand.HAND_SIZE));
+    }
+
+
+    /**
+     * Ranks a hand that is known not to contain a flush, using only how many cards of each
+     * rank it has.
+     * @param ones Ranks of which there is at least one card.
+     * @param twos Ranks of which there are at least two cards.
+     * @param threes Ranks of which there are at least three cards.
+     * @param fours Ranks of which there are four cards.
+     * @return The strength of the hand.
+     */
+    static int rankWithoutFlush(int ones, int twos, int threes, int fours)
+    {
+        if (fours != 0)
+        {
+            int quads = highestRank(fours);
+            return HandStrength.fourOfAKind(quads, highestRank(ones & ~(1 << quads)));
+        }
+        if (threes != 0)
+        {
+            int trips = highestRank(threes);
+            int pairs = twos & ~(1 << trips);
+            if (pairs != 0)
+            {
+                return HandStrength.fullHouse(trips, highestRank(pairs));
+            }
+        }
+        int straightHigh = straightHigh(ones);
+        if (straightHigh >= 0)
+        {
+            return HandStrength.straight(straightHigh);
+        }
+        if (threes != 0)
+        {
+            int trips = highestRank(threes);
+            return HandStrength.threeOfAKind(trips, keepHighest(ones & ~(1 << trips), 2));
+        }
+        if (twos != 0)
+        {
+            int highPair = highestRank(twos);
+            int lowPairs = twos & ~(1 << highPair);
+            if (lowPairs != 0)
+            {
+                int lowPair = highestRank(lowPairs);
+                return HandStrength.twoPair(highPair,
+                                            lowPair,
+                                            highestRank(ones & ~((1 << highPair) | (1 << lowPair))));
+            }
+            return HandStrength.pair(highPair, keepHighest(ones & ~(1 << highPair), 3));
+        }
+        return HandStrength.highCard(keepHighest(ones, RankedHand.HAND_SIZE));
+    }
+
+
+    /**
+     * @param packed Four 13-bit rank masks, each in its own 16-bit lane, such as a suit-masks
+     * value.
+     * @param index Which of the masks to extract, from 0 to 3.
+     * @return The rank mask.
+     */
+    static int lane(long packed, int index)
+    {
+        return (int) (packed >>> (index * LANE_WIDTH)) & RANK_MASK;
+    }
+
+
+    /**
+     * Finds the ranks of which there are at least two cards, whatever their suits.  This
+     * is separate from {@link #threeOrMore(int, int, int, int)}, rather than one method
+     * returning every group, because packing several masks into one result measurably
+     * slows down {@link #rank(long)}.
+     * @return A 13-bit rank mask.
+     */
+    static int twoOrMore(int clubs, int diamonds, int hearts, int spades)
+    {
+        return (clubs & diamonds) | (hearts & spades) | ((clubs | diamonds) & (hearts | spades));
+    }
+
+
+    /**
+     * Finds the ranks of which there are at least three cards, whatever their suits.
+     * @return A 13-bit rank mask.
+     */
+    static int threeOrMore(int clubs, int diamonds, int hearts, int spades)
+    {
+        return (clubs & diamonds & (hearts | spades)) | (hearts & spades & (clubs | diamonds));
+    }
+
+
+    /**
+     * @param suitMasks The cards, packed as by {@link #toSuitMasks(List)}.
+     * @return The suit that has at least 5 cards, or -1 if there is no flush.  With no
+     * more than 7 cards, there can only be one such suit.
+     */
+    static int flushSuit(long suitMasks)
+    {
+        if (Integer.bitCount(lane(suitMasks, Suit.SPADES.ordinal())) >= RankedHand.HAND_SIZE)
+        {
+            return Suit.SPADES.ordinal();
+        }
+        else if (Integer.bitCount(lane(suitMasks, Suit.HEARTS.ordinal())) >= RankedHand.HAND_SIZE)
+        {
+            return Suit.HEARTS.ordinal();
+        }
+        else if (Integer.bitCount(lane(suitMasks, Suit.DIAMONDS.ordinal())) >= RankedHand.HAND_SIZE)
+        {
+            return Suit.DIAMONDS.ordinal();
+        }
+        else if (Integer.bitCount(lane(suitMasks, Suit.CLUBS.ordinal())) >= RankedHand.HAND_SIZE)
+        {
+            return Suit.CLUBS.ordinal();
+        }
+        return -1;
+    }
+
+
+    /**
+     * @param ranks A 13-bit rank mask.
+     * @return The rank of the highest card in the best straight that can be made from
+     * the specified ranks, or -1 if there is no straight.
+     */
+    static int straightHigh(int ranks)
+    {
+        // A bit survives only if it and the four ranks above it are all present.
+        int runs = ranks & (ranks >>> 1) & (ranks >>> 2) & (ranks >>> 3) & (ranks >>> 4);
+        if (runs != 0)
+        {
+            return highestRank(runs) + 4;
+        }
+        return (ranks & WHEEL) == WHEEL ? FaceValue.FIVE.ordinal() : -1;
+    }
+
+
+    /**
+     * Picks the cards of a straight in a single suit.
+     */
+    private static int straightCards(int highRank, int suit)
+    {
+        int packed = 0;
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            // The ace is the lowest card of a 5-high straight.
+            int rank = (highRank - i + 13) % 13;
+            packed = (packed << 6) | (rank * 4 + suit);
+        }
+        return packed;
+    }
+
+
+    /**
+     * Picks the cards of a straight from any suits.
+     */
+    private static int straightCards(long suitMasks, int highRank)
+    {
+        int packed = 0;
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            int rank = (highRank - i + 13) % 13;
+            packed = (packed << 6) | highestCard(suitMasks, rank);
+        }
+        return packed;
+    }
+
+
+    /**
+     * Appends the highest-suited cards of a single rank to a packed sequence of cards.
+     * @param suitMasks The cards available.
+     * @param rank The rank of the cards to take.
+     * @param count How many cards of that rank to take.
+     * @param packed The cards selected so far, packed 6 bits per card with the most
+     * significant card in the highest bits.
+     * @return The extended sequence.
+     */
+    private static int take(long suitMasks, int rank, int count, int packed)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            int card = highestCard(suitMasks, rank);
+            packed = (packed << 6) | card;
+            suitMasks &= ~bit(card);
+        }
+        return packed;
+    }
+
+
+    /**
+     * Appends one card for each of the specified ranks, highest rank first.
+     */
+    private static int kickers(long suitMasks, int ranks, int packed)
+    {
+        while (ranks != 0)
+        {
+            int rank = highestRank(ranks);
+            packed = (packed << 6) | highestCard(suitMasks, rank);
+            ranks ^= 1 << rank;
+        }
+        return packed;
+    }
+
+
+    /**
+     * @return The ordinal of the highest-suited card of the specified rank.
+     */
+    private static int highestCard(long suitMasks, int rank)
+    {
+        for (int suit = 3; suit > 0; suit--)
+        {
+            if ((suitMasks & (1L << (suit * LANE_WIDTH + rank))) != 0)
+            {
+                return rank * 4 + suit;
+            }
+        }
+        return rank * 4;
+    }
+
+
+    static int highestRank(int ranks)
+    {
+        return 31 - Integer.numberOfLeadingZeros(ranks);
+    }
+
+
+    /**
+     * Clears the lowest set bits of a mask until no more than {@code count} remain.
+     */
+    static int keepHighest(int ranks, int count)
+    {
+        while (Integer.bitCount(ranks) > count)
+        {
+            ranks &= ranks - 1;
+        }
+        return ranks;
+    }
+
+
+    private static RankedHand createHand(int packed, HandRanking ranking)
+    {
+        return new RankedHand(CARDS[(packed >>> 24) & 0x3F],
+                              CARDS[(packed >>> 18) & 0x3F],
+                              CARDS[(packed >>> 12) & 0x3F],
+                              CARDS[(packed >>> 6) & 0x3F],
+                              CARDS[packed & 0x3F],
+                              ranking);
+    }
+}
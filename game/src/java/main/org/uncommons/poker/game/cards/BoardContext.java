@@ -0,0 +1,131 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of analysing a set of community cards once so that many different pairs of
+ * hole cards can be ranked against them cheaply (as in Texas Hold'em, where every player
+ * shares the same board).  The board's rank counts are stored as bit masks (ranks with at
+ * least one, two, three and four cards) and the one suit, if any, that could still make
+ * a flush is noted.  Ranking a player's hand then only requires adding the two hole cards
+ * to these masks.
+ *
+ * Instances are immutable and so can be shared between threads.
+ * @author Daniel Dyer
+ */
+public final class BoardContext
+{
+    private static final int HOLE_CARDS = 2;
+
+    private final List<PlayingCard> boardCards;
+    private final int ones;
+    private final int twos;
+    private final int threes;
+    private final int fours;
+    // The only suit that can make a flush with the addition of two hole cards, or -1.
+    private final int flushSuit;
+    private final int flushRanks;
+
+    /**
+     * @param boardCards Between three and five community cards, in any order.
+     */
+    public BoardContext(List<PlayingCard> boardCards)
+    {
+        if (boardCards.size() < RankedHand.HAND_SIZE - HOLE_CARDS || boardCards.size() > RankedHand.HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Board must contain between 3 and 5 cards.");
+        }
+        this.boardCards = new ArrayList<PlayingCard>(boardCards);
+        int ones = 0;
+        int twos = 0;
+        int threes = 0;
+        int fours = 0;
+        long suitMasks = 0;
+        for (PlayingCard card : boardCards)
+        {
+            int bit = 1 << card.getValue().ordinal();
+            fours |= threes & bit;
+            threes |= twos & bit;
+            twos |= ones & bit;
+            ones |= bit;
+            suitMasks |= BitMaskHandEvaluator.bit(card.ordinal());
+        }
+        this.ones = ones;
+        this.twos = twos;
+        this.threes = threes;
+        this.fours = fours;
+
+        // With no more than five board cards, at most one suit can have the three or more
+        // cards needed for a flush.
+        int suit = Suit.values().length - 1;
+        int ranks = 0;
+        while (suit >= 0)
+        {
+            ranks = BitMaskHandEvaluator.lane(suitMasks, suit);
+            if (Integer.bitCount(ranks) + HOLE_CARDS >= RankedHand.HAND_SIZE)
+            {
+                break;
+            }
+            --suit;
+        }
+        this.flushSuit = suit;
+        this.flushRanks = suit >= 0 ? ranks : 0;
+    }
+
+
+    /**
+     * Ranks the best 5-card hand that can be made from the board and two hole cards.
+     * The hole cards must not also be on the board.
+     * @return The strength of the hand, as defined by {@link HandStrength}.
+     */
+    public int rank(PlayingCard holeCard1, PlayingCard holeCard2)
+    {
+        int bit1 = 1 << holeCard1.getValue().ordinal();
+        int bit2 = 1 << holeCard2.getValue().ordinal();
+        if (flushSuit >= 0)
+        {
+            int suited = flushRanks;
+            if (holeCard1.getSuit().ordinal() == flushSuit)
+            {
+                suited |= bit1;
+            }
+            if (holeCard2.getSuit().ordinal() == flushSuit)
+            {
+                suited |= bit2;
+            }
+            if (Integer.bitCount(suited) >= RankedHand.HAND_SIZE)
+            {
+                return BitMaskHandEvaluator.rankFlush(suited);
+            }
+        }
+        int ones = this.ones;
+        int twos = this.twos;
+        int threes = this.threes;
+        int fours = this.fours;
+        fours |= threes & bit1;
+        threes |= twos & bit1;
+        twos |= ones & bit1;
+        ones |= bit1;
+        fours |= threes & bit2;
+        threes |= twos & bit2;
+        twos |= ones & bit2;
+        ones |= bit2;
+        return BitMaskHandEvaluator.rankWithoutFlush(ones, twos, threes, fours);
+    }
+
+
+    /**
+     * Finds the best 5-card hand that can be made from the board and two hole cards.
+     * Callers that only need to compare hands should use {@link #rank(PlayingCard, PlayingCard)}.
+     * @return The best hand.
+     */
+    public RankedHand evaluate(PlayingCard holeCard1, PlayingCard holeCard2)
+    {
+        List<PlayingCard> cards = new ArrayList<PlayingCard>(boardCards.size() + HOLE_CARDS);
+        cards.addAll(boardCards);
+        cards.add(holeCard1);
+        cards.add(holeCard2);
+        return HandStrength.toRankedHand(rank(holeCard1, holeCard2), cards);
+    }
+}
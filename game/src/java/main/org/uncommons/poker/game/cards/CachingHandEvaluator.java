@@ -0,0 +1,186 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A decorator that remembers the strengths of recently evaluated 7-card hands, so that
+ * hands that are evaluated repeatedly (such as those made from a shared board, or from
+ * nearly identical decks) only need to be ranked once by a slower evaluator.  This is a
+ * middle ground between an on-the-fly evaluator, such as {@link BitMaskHandEvaluator},
+ * and the full table of {@link LookupHandEvaluator}, for when the latter is too big.
+ *
+ * The cache is direct-mapped: each hand can only be stored in one slot, selected by the
+ * low bits of its {@link CardUtils#combinationHash(long) hash value}, and a new hand simply
+ * replaces whatever was in its slot.  Each slot is a single int holding the rest of the
+ * hash value (to identify the hand) and its strength, so a cache of 2^18 slots (the
+ * default) takes 1Mb, small enough to stay in the processor's cache.
+ *
+ * The cache may be shared by several threads.  Because each slot is updated with a single
+ * write, a slot is never seen in an inconsistent state; at worst, two threads that miss on
+ * the same hand both rank it.  Hits and misses are only counted if asked for, because
+ * updating shared counters on every hand would make every thread contend for them.  The
+ * counts are plain fields, so with several threads they are only approximate.
+ * @author Daniel Dyer
+ */
+public class CachingHandEvaluator implements HandStrengthEvaluator, OrderIndependentEvaluator
+{
+    public static final int DEFAULT_CACHE_SIZE = 1 << 18;
+
+    // Hash values have at most 27 bits and strengths have 13.
+    private static final int HASH_BITS = 27;
+    private static final int STRENGTH_BITS = 13;
+    private static final int STRENGTH_MASK = (1 << STRENGTH_BITS) - 1;
+    // Slots must be indexed by enough of each hash value for the rest to fit alongside the strength.
+    private static final int MIN_CACHE_SIZE = 1 << (HASH_BITS + STRENGTH_BITS - 32);
+
+    private final HandStrengthEvaluator delegate;
+    private final int[] slots;
+    private final int indexBits;
+    private final boolean countAccesses;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates an evaluator with a cache of the default size, that does not count hits and
+     * misses.
+     * @param delegate The evaluator that is used to rank hands that are not in the cache.
+     */
+    public CachingHandEvaluator(HandStrengthEvaluator delegate)
+    {
+        this(delegate, DEFAULT_CACHE_SIZE);
+    }
+
+
+    /**
+     * Creates an evaluator that does not count hits and misses.
+     * @param delegate The evaluator that is used to rank hands that are not in the cache.
+     * If it is not an {@link OrderIndependentEvaluator}, it will be given a sorted copy
+     * of the cards.
+     * @param cacheSize The number of hands that can be cached.  Must be a power of two,
+     * and at least 256.
+     */
+    public CachingHandEvaluator(HandStrengthEvaluator delegate, int cacheSize)
+    {
+        this(delegate, cacheSize, false);
+    }
+
+
+    /**
+     * @param delegate The evaluator that is used to rank hands that are not in the cache.
+     * If it is not an {@link OrderIndependentEvaluator}, it will be given a sorted copy
+     * of the cards.
+     * @param cacheSize The number of hands that can be cached.  Must be a power of two,
+     * and at least 256.
+     * @param countAccesses Whether to count hits and misses, for {@link #getHitCount()}
+     * and {@link #getMissCount()}.
+     */
+    public CachingHandEvaluator(HandStrengthEvaluator delegate, int cacheSize, boolean countAccesses)
+    {
+        if (cacheSize < MIN_CACHE_SIZE || Integer.bitCount(cacheSize) != 1)
+        {
+            throw new IllegalArgumentException("Cache size must be a power of two, at least " + MIN_CACHE_SIZE);
+        }
+        this.delegate = delegate;
+        this.slots = new int[cacheSize];
+        this.indexBits = Integer.numberOfTrailingZeros(cacheSize);
+        this.countAccesses = countAccesses;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(rank(cards), cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * Nothing is allocated when the hand is found in the cache.  On a miss, a delegate that
+     * is not an {@link OrderIndependentEvaluator} is given a sorted copy of the cards.
+     * @param cards Seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        result.setHighHand(rank(cards), BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() != 7)
+        {
+            throw new IllegalArgumentException("Hand must contain 7 cards.");
+        }
+        int hash = CardUtils.combinationHash(CardUtils.toCardMask(cards));
+        int index = hash & (slots.length - 1);
+        int tag = (hash >>> indexBits) << STRENGTH_BITS;
+        int slot = slots[index];
+        // An empty slot has a strength of zero, so never matches.
+        if ((slot & ~STRENGTH_MASK) == tag && (slot & STRENGTH_MASK) != 0)
+        {
+            if (countAccesses)
+            {
+                ++hits;
+            }
+            return slot & STRENGTH_MASK;
+        }
+        if (countAccesses)
+        {
+            ++misses;
+        }
+        int strength = rankWithDelegate(cards);
+        slots[index] = tag | strength;
+        return strength;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return HandStrength.getRanking(rank(cards));
+    }
+
+
+    private int rankWithDelegate(List<PlayingCard> cards)
+    {
+        List<PlayingCard> delegateCards = cards;
+        if (!(delegate instanceof OrderIndependentEvaluator))
+        {
+            delegateCards = new ArrayList<PlayingCard>(cards);
+            CardUtils.sevenCardSort(delegateCards);
+        }
+        return delegate.rank(delegateCards);
+    }
+
+
+    /**
+     * @return The number of hands that have been found in the cache, or zero if hits and
+     * misses are not being counted.
+     */
+    public long getHitCount()
+    {
+        return hits;
+    }
+
+
+    /**
+     * @return The number of hands that have had to be ranked by the delegate evaluator, or
+     * zero if hits and misses are not being counted.
+     */
+    public long getMissCount()
+    {
+        return misses;
+    }
+}
@@ -46,6 +46,15 @@ public final class CardUtils
     }
 
 
+    /**
+     * @return The number of combinations of size k that can be chosen from a set of size n.
+     */
+    static int choose(int n, int k)
+    {
+        return CHOICES[n][k];
+    }
+
+
     /**
      * Custom sort routine for 5-card lists.  This is a 5 element sorting
      * network (http://en.wikipedia.org/wiki/Sorting_network).  It is more
@@ -171,6 +180,45 @@ public final class CardUtils
     }
 
 
+    /**
+     * Minimal perfect hash for an unordered combination of cards: the position of the
+     * combination among all combinations of the same size, in co-lexicographical order.
+     * For 7 cards, this gives the same value as {@link #sevenCardHash(List)}, but does not
+     * require the cards to be sorted, and the hashes are in the range 0 to 133,784,559.
+     * For 6 cards, they are in the range 0 to 20,358,519.  The position that each card
+     * would have in a sorted hand is simply the number of cards in the hand that are lower
+     * than it, so visiting the cards from lowest to highest gives each card's position from
+     * a running count.
+     * @param cardMask A mask with the bits of the cards set (see {@link #toCardMask(List)}).
+     * @return Minimal perfect hash value.
+     */
+    public static int combinationHash(long cardMask)
+    {
+        int hash = 0;
+        int position = 1;
+        for (long remaining = cardMask; remaining != 0; remaining &= remaining - 1)
+        {
+            hash += CHOICES[Long.numberOfTrailingZeros(remaining)][position++];
+        }
+        return hash;
+    }
+
+
+    /**
+     * @param cards Any number of cards, in any order.
+     * @return A 52-bit mask in which bit n is set if the card with ordinal n is present.
+     */
+    public static long toCardMask(List<PlayingCard> cards)
+    {
+        long cardMask = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            cardMask |= 1L << cards.get(i).ordinal();
+        }
+        return cardMask;
+    }
+
+
     /**
      * Minimal perfect hash for an ordered combination of 5 cards.
      * @param hand 5 cards, descending order of rank, no duplicates.
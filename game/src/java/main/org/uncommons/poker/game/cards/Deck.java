@@ -1,12 +1,25 @@
 package org.uncommons.poker.game.cards;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /**
+ * A shuffled deck of playing cards.  A deck may also contain jokers (see
+ * {@link #createDeckWithJokers(Random, int)}), which are dealt as null because they are not
+ * {@link PlayingCard}s.
  * @author Daniel Dyer
  */
 public class Deck
 {
+    /** The 36 cards of a short (6-plus) deck, from which the twos to fives are removed. */
+    private static final PlayingCard[] SHORT_DECK = new PlayingCard[36];
+    static
+    {
+        // Cards are ordered by face value, so the short deck is just the last 36 of them.
+        System.arraycopy(PlayingCard.values(), 16, SHORT_DECK, 0, SHORT_DECK.length);
+    }
+
     private final PlayingCard[] deck;
     private int index = 0;
 
@@ -41,6 +54,26 @@ public class Deck
     }
 
 
+    /**
+     * Deals several cards at once.
+     * @param count The number of cards to deal.
+     * @return A new, modifiable list of the cards, in the order that they were dealt.
+     */
+    public List<PlayingCard> dealCards(int count)
+    {
+        if (count > getRemainingCardCount())
+        {
+            throw new IllegalStateException("Deck exhausted.");
+        }
+        List<PlayingCard> cards = new ArrayList<PlayingCard>(count);
+        for (int i = 0; i < count; i++)
+        {
+            cards.add(dealCard());
+        }
+        return cards;
+    }
+
+
     public int getRemainingCardCount()
     {
         return deck.length - index;
@@ -56,4 +89,37 @@ public class Deck
     {
         return new Deck(PlayingCard.values(), rng);
     }
+
+
+    /**
+     * Creates a shuffled 52-card deck plus a number of jokers, for games in which jokers are
+     * wild (see {@link WildCardHandEvaluator}).
+     * @param rng The RNG to use for shuffling.
+     * @param jokers The number of jokers to add.
+     * @return A shuffled deck from which each joker is dealt as null.
+     */
+    public static Deck createDeckWithJokers(Random rng, int jokers)
+    {
+        if (jokers < 0)
+        {
+            throw new IllegalArgumentException("Number of jokers must not be negative.");
+        }
+        PlayingCard[] cards = new PlayingCard[PlayingCard.values().length + jokers];
+        // The remaining elements are left as null for the jokers.
+        System.arraycopy(PlayingCard.values(), 0, cards, 0, PlayingCard.values().length);
+        return new Deck(cards, rng);
+    }
+
+
+    /**
+     * Creates a shuffled 36-card deck for short-deck (6-plus) poker, in which the twos,
+     * threes, fours and fives are removed.
+     * @param rng The RNG to use for shuffling.
+     * @return A shuffled deck.
+     * @see ShortDeckHandEvaluator
+     */
+    public static Deck createShortDeck(Random rng)
+    {
+        return new Deck(SHORT_DECK, rng);
+    }
 }
@@ -0,0 +1,355 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates deuce-to-seven lowball hands, as used in Triple Draw and Kansas City lowball.
+ * Hands are ranked exactly as high hands are, except that aces are always high (so
+ * A-5-4-3-2 is not a straight), and the lowest hand wins.  Straights and flushes count
+ * against a hand, so the best possible hand is 7-5-4-3-2 of mixed suits.
+ *
+ * Like {@link PerfectHashHandEvaluator}, 5-card hands are looked up in one of two tables:
+ * one indexed by the 13-bit rank mask of a flush, the other by the {@link RankMultisetHash}
+ * of the face values of any other hand.  Hands of 6 or 7 cards are looked up in a table
+ * (indexed by the same hash) of the best low that can be made from their face values.  Only
+ * when a hand has five or more cards of the same suit, so that this low might be a flush,
+ * are its 5-card combinations ranked individually.
+ *
+ * {@link #rank(List)} returns strengths in the range 1 (a royal flush) to
+ * {@link #CLASS_COUNT} (7-5-4-3-2), so, as for high hands, higher values are better.
+ * The hands returned by {@link #evaluate(List)} have their usual rankings, which
+ * {@link RankedHand#compareTo(RankedHand)} orders as high hands, so low hands should be
+ * compared by their strengths instead.
+ * @author Daniel Dyer
+ */
+public class DeuceToSevenLowEvaluator implements HandEvaluator, OrderIndependentEvaluator
+{
+    /**
+     * The number of distinct deuce-to-seven low hands.  This is the same as the number of
+     * high hands because, without the wheel, there is one more ace-high hand (and one more
+     * ace-high flush) for each straight (and straight flush) that is lost.
+     */
+    public static final int CLASS_COUNT = 7462;
+
+    private static final short[] FLUSHES = new short[1 << FaceValue.values().length];
+    // NON_FLUSHES[n] is the table for n-card hands.
+    private static final short[][] NON_FLUSHES = new short[RankMultisetHash.MAX_CARDS + 1][];
+
+    private static final HandRanking[] RANKINGS = HandRanking.values();
+    private static final int SUIT_COUNT = Suit.values().length;
+
+    // For each strength, the ranking and face values of the hand, packed as for
+    // HandStrength.toRankedHand(int, long).
+    private static final int[] DESCRIPTORS = new int[CLASS_COUNT + 1];
+
+    static
+    {
+        long[] allRankCounts = RankMultisetHash.allRankCounts(RankedHand.HAND_SIZE);
+        List<Integer> flushes = new ArrayList<Integer>();
+        for (int ranks = 0; ranks < FLUSHES.length; ranks++)
+        {
+            if (Integer.bitCount(ranks) == RankedHand.HAND_SIZE)
+            {
+                flushes.add(ranks);
+            }
+        }
+        if (allRankCounts.length + flushes.size() != CLASS_COUNT)
+        {
+            throw new IllegalStateException("Expected " + CLASS_COUNT + " hand values, found "
+                                            + (allRankCounts.length + flushes.size()));
+        }
+
+        // Descriptors compare in the same order as the hands that they describe, so sort
+        // them (keeping track of which hand each belongs to) to put the hands in order from
+        // the best high hand (the worst low) to the worst high hand (the best low).
+        long[] keys = new long[CLASS_COUNT];
+        for (int i = 0; i < allRankCounts.length; i++)
+        {
+            keys[i] = ((long) describe(allRankCounts[i]) << 16) | i;
+        }
+        for (int i = 0; i < flushes.size(); i++)
+        {
+            keys[allRankCounts.length + i] = ((long) describeFlush(flushes.get(i)) << 16) | (allRankCounts.length + i);
+        }
+        Arrays.sort(keys);
+        NON_FLUSHES[RankedHand.HAND_SIZE] = new short[allRankCounts.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            int index = (int) keys[i] & 0xFFFF;
+            short strength = (short) (CLASS_COUNT - i);
+            if (index < allRankCounts.length)
+            {
+                NON_FLUSHES[RankedHand.HAND_SIZE][index] = strength;
+            }
+            else
+            {
+                FLUSHES[flushes.get(index - allRankCounts.length)] = strength;
+            }
+            DESCRIPTORS[strength] = (int) (keys[i] >>> 16);
+        }
+
+        // Ignoring flushes, the best low from a bigger hand is the best low left after
+        // discarding one card.
+        for (int cards = RankedHand.HAND_SIZE + 1; cards <= RankMultisetHash.MAX_CARDS; cards++)
+        {
+            long[] hands = RankMultisetHash.allRankCounts(cards);
+            NON_FLUSHES[cards] = new short[hands.length];
+            for (int i = 0; i < hands.length; i++)
+            {
+                short best = 0;
+                for (int rank = 0; rank < FaceValue.values().length; rank++)
+                {
+                    if (RankMultisetHash.count(hands[i], rank) > 0)
+                    {
+                        long remaining = hands[i] - (1L << (rank * RankMultisetHash.BITS_PER_RANK));
+                        best = (short) Math.max(best, NON_FLUSHES[cards - 1][RankMultisetHash.index(remaining, cards - 1)]);
+                    }
+                }
+                NON_FLUSHES[cards][i] = best;
+            }
+        }
+    }
+
+
+    /**
+     * Describes a 5-card hand that is not a flush, in the format used by
+     * {@link HandStrength#toRankedHand(int, long)}.
+     */
+    private static int describe(long rankCounts)
+    {
+        int ranks = 0;
+        for (int rank = 0; rank < FaceValue.values().length; rank++)
+        {
+            if (RankMultisetHash.count(rankCounts, rank) > 0)
+            {
+                ranks |= 1 << rank;
+            }
+        }
+        int straightHigh = straightHigh(ranks);
+        if (straightHigh >= 0)
+        {
+            return straight(HandRanking.STRAIGHT, straightHigh);
+        }
+        return RankMultisetHash.describeGroups(rankCounts, false);
+    }
+
+
+    /**
+     * Describes a 5-card flush (or straight flush), in the format used by
+     * {@link HandStrength#toRankedHand(int, long)}.
+     */
+    private static int describeFlush(int ranks)
+    {
+        int straightHigh = straightHigh(ranks);
+        if (straightHigh >= 0)
+        {
+            return straight(straightHigh == FaceValue.ACE.ordinal() ? HandRanking.ROYAL_FLUSH : HandRanking.STRAIGHT_FLUSH,
+                            straightHigh);
+        }
+        int descriptor = HandRanking.FLUSH.ordinal();
+        for (int rank = FaceValue.values().length - 1; rank >= 0; rank--)
+        {
+            if ((ranks & (1 << rank)) != 0)
+            {
+                descriptor = (descriptor << 4) | rank;
+            }
+        }
+        return descriptor;
+    }
+
+
+    /**
+     * @param ranks The ranks of five different cards.
+     * @return The rank of the highest card of the straight, or -1 if the cards are not
+     * a straight.
+     */
+    private static int straightHigh(int ranks)
+    {
+        int straightHigh = BitMaskHandEvaluator.straightHigh(ranks);
+        // In deuce-to-seven, aces are always high, so there is no 5-high straight.
+        return straightHigh > FaceValue.FIVE.ordinal() ? straightHigh : -1;
+    }
+
+
+    private static int straight(HandRanking ranking, int highRank)
+    {
+        int descriptor = ranking.ordinal();
+        for (int rank = highRank; rank > highRank - RankedHand.HAND_SIZE; rank--)
+        {
+            descriptor = (descriptor << 4) | rank;
+        }
+        return descriptor;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     * @return The best deuce-to-seven low hand.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        int rank = rank(cards);
+        long suitMasks = BitMaskHandEvaluator.toSuitMasks(cards);
+        if (cards.size() > RankedHand.HAND_SIZE && hasFiveOfOneSuit(suitMasks))
+        {
+            // Make sure that the cards chosen for the hand do not accidentally make a flush.
+            suitMasks = findFiveCards(suitMasks, rankCounts(cards), suitMasks, cards.size() - RankedHand.HAND_SIZE, rank);
+        }
+        return HandStrength.toRankedHand(DESCRIPTORS[rank], suitMasks);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        int rank = rank(cards);
+        long suitMasks = BitMaskHandEvaluator.toSuitMasks(cards);
+        if (cards.size() > RankedHand.HAND_SIZE && hasFiveOfOneSuit(suitMasks))
+        {
+            suitMasks = findFiveCards(suitMasks, rankCounts(cards), suitMasks, cards.size() - RankedHand.HAND_SIZE, rank);
+        }
+        result.set(DESCRIPTORS[rank], rank, suitMasks);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     * @return The ranking of the best deuce-to-seven low hand.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return RANKINGS[DESCRIPTORS[rank(cards)] >>> 20];
+    }
+
+
+    /**
+     * @param cards Five, six or seven cards in any order.
+     * @return The strength of the best deuce-to-seven low that can be made from the cards,
+     * in the range 1 - {@link #CLASS_COUNT}.  Higher values are better (i.e. lower) hands.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() < RankedHand.HAND_SIZE || cards.size() > RankMultisetHash.MAX_CARDS)
+        {
+            throw new IllegalArgumentException("Hand must contain 5, 6 or 7 cards.");
+        }
+        long suitMasks = BitMaskHandEvaluator.toSuitMasks(cards);
+        long rankCounts = rankCounts(cards);
+        if (hasFiveOfOneSuit(suitMasks))
+        {
+            return rankDiscarding(suitMasks, rankCounts, suitMasks, cards.size() - RankedHand.HAND_SIZE);
+        }
+        return NON_FLUSHES[cards.size()][RankMultisetHash.index(rankCounts, cards.size())];
+    }
+
+
+    private static long rankCounts(List<PlayingCard> cards)
+    {
+        long rankCounts = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            rankCounts = RankMultisetHash.add(rankCounts, cards.get(i).getValue().ordinal());
+        }
+        return rankCounts;
+    }
+
+
+    private static boolean hasFiveOfOneSuit(long suitMasks)
+    {
+        for (int suit = 0; suit < SUIT_COUNT; suit++)
+        {
+            long lane = suitMasks & ((long) BitMaskHandEvaluator.RANK_MASK << (suit * BitMaskHandEvaluator.LANE_WIDTH));
+            if (Long.bitCount(lane) >= RankedHand.HAND_SIZE)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Ranks every 5-card combination that can be made by discarding cards, and returns the
+     * best of them.
+     * @param candidates The cards that may be discarded.  Each card that is discarded
+     * removes itself and all lower cards from the candidates, so that each combination
+     * is only ranked once.
+     * @param discards The number of cards to discard.
+     */
+    private static int rankDiscarding(long suitMasks, long rankCounts, long candidates, int discards)
+    {
+        if (discards == 0)
+        {
+            return rankFive(suitMasks, rankCounts);
+        }
+        int best = 0;
+        for (long remaining = candidates; remaining != 0; remaining &= remaining - 1)
+        {
+            long card = remaining & -remaining;
+            best = Math.max(best, rankDiscarding(suitMasks & ~card,
+                                                 rankCounts - rankCount(card),
+                                                 remaining & ~card,
+                                                 discards - 1));
+        }
+        return best;
+    }
+
+
+    /**
+     * Finds the 5 cards, left after discarding, that make a hand of the specified strength.
+     * @return The suit masks of the 5 cards, or zero if there are no such cards.
+     */
+    private static long findFiveCards(long suitMasks, long rankCounts, long candidates, int discards, int rank)
+    {
+        if (discards == 0)
+        {
+            return rankFive(suitMasks, rankCounts) == rank ? suitMasks : 0;
+        }
+        for (long remaining = candidates; remaining != 0; remaining &= remaining - 1)
+        {
+            long card = remaining & -remaining;
+            long cards = findFiveCards(suitMasks & ~card,
+                                       rankCounts - rankCount(card),
+                                       remaining & ~card,
+                                       discards - 1,
+                                       rank);
+            if (cards != 0)
+            {
+                return cards;
+            }
+        }
+        return 0;
+    }
+
+
+    private static int rankFive(long suitMasks, long rankCounts)
+    {
+        for (int suit = 0; suit < SUIT_COUNT; suit++)
+        {
+            int ranks = BitMaskHandEvaluator.lane(suitMasks, suit);
+            if (Integer.bitCount(ranks) == RankedHand.HAND_SIZE)
+            {
+                return FLUSHES[ranks];
+            }
+        }
+        return NON_FLUSHES[RankedHand.HAND_SIZE][RankMultisetHash.index(rankCounts, RankedHand.HAND_SIZE)];
+    }
+
+
+    /**
+     * @param card A single bit of a packed suit-masks value.
+     * @return The rank counts of that card alone.
+     */
+    private static long rankCount(long card)
+    {
+        int rank = Long.numberOfTrailingZeros(card) % BitMaskHandEvaluator.LANE_WIDTH;
+        return 1L << (rank * RankMultisetHash.BITS_PER_RANK);
+    }
+}
@@ -0,0 +1,158 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+
+/**
+ * Evaluates the low half of hands in high/low split games (such as Omaha Hi/Lo and 7-Card
+ * Stud Hi/Lo), using ace-to-five rankings with an eight-or-better qualifier.  A qualifying
+ * low is five cards of different ranks, all eight or lower, with aces counting low.
+ * Straights and flushes do not count against a low hand, so suits are irrelevant.
+ *
+ * Low hands are compared by their highest card, then their second-highest card, and so
+ * on, so the best possible low is 5-4-3-2-A.  There are only 56 distinct qualifying lows
+ * and the best one that can be made from any set of cards depends only on which of the
+ * eight low ranks are present, so the evaluator is a single 256-entry table indexed by
+ * those ranks.
+ *
+ * Low hands returned by this evaluator have the ranking
+ * {@link HandRanking#LOW_EIGHT_OR_BETTER}.  {@link RankedHand#compareTo(RankedHand)} does
+ * not know how to order low hands, so they should be compared by their strengths instead
+ * (see {@link #rank(List)}).
+ * @author Daniel Dyer
+ */
+public class EightOrBetterLowEvaluator
+{
+    /** The number of distinct qualifying low hands. */
+    public static final int CLASS_COUNT = 56;
+
+    private static final int LOW_RANKS = 8;
+    private static final PlayingCard[] CARDS = PlayingCard.values();
+
+    // The strength of the best low that can be made from each combination of low ranks.
+    // Bit 0 represents the ace, bit 1 the deuce and so on up to bit 7 for the eight.
+    private static final byte[] STRENGTHS = new byte[1 << LOW_RANKS];
+    static
+    {
+        // Comparing two 5-rank masks as numbers compares their highest cards first, so the
+        // smallest mask (the wheel) is the best low.
+        byte[] strengthOfFive = new byte[1 << LOW_RANKS];
+        byte strength = 0;
+        for (int lowBits = STRENGTHS.length - 1; lowBits >= 0; lowBits--)
+        {
+            if (Integer.bitCount(lowBits) == RankedHand.HAND_SIZE)
+            {
+                strengthOfFive[lowBits] = ++strength;
+            }
+        }
+        for (int lowBits = 0; lowBits < STRENGTHS.length; lowBits++)
+        {
+            STRENGTHS[lowBits] = strengthOfFive[keepLowest(lowBits, RankedHand.HAND_SIZE)];
+        }
+    }
+
+
+    /**
+     * Clears the highest set bits of a mask until no more than {@code count} remain.
+     */
+    private static int keepLowest(int bits, int count)
+    {
+        while (Integer.bitCount(bits) > count)
+        {
+            bits &= ~Integer.highestOneBit(bits);
+        }
+        return bits;
+    }
+
+
+    /**
+     * @param card Any card.
+     * @return The bit that represents the card's rank in a mask of low ranks, or zero if
+     * the card is too high to be part of a low hand.
+     */
+    static int lowBit(PlayingCard card)
+    {
+        FaceValue value = card.getValue();
+        if (value == FaceValue.ACE)
+        {
+            return 1;
+        }
+        return value.ordinal() < LOW_RANKS - 1 ? 2 << value.ordinal() : 0;
+    }
+
+
+    /**
+     * @param lowBits A mask of low ranks, as produced by combining the results of
+     * {@link #lowBit(PlayingCard)} for a set of cards.
+     * @return The strength of the best low that can be made from those ranks.
+     */
+    static int rankLow(int lowBits)
+    {
+        return STRENGTHS[lowBits];
+    }
+
+
+    /**
+     * @param cards Five or more cards in any order.
+     * @return The strength of the best qualifying low hand, in the range 1 (8-7-6-5-4) to
+     * {@link #CLASS_COUNT} (5-4-3-2-A), or zero if there is no qualifying low.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        return rankLow(toLowBits(cards));
+    }
+
+
+    /**
+     * @param cards Five or more cards in any order.
+     * @return The best qualifying low hand, or null if there is none.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        int lowBits = toLowBits(cards);
+        if (rankLow(lowBits) == 0)
+        {
+            return null;
+        }
+        return toRankedHand(keepLowest(lowBits, RankedHand.HAND_SIZE), cards);
+    }
+
+
+    static int toLowBits(List<PlayingCard> cards)
+    {
+        int lowBits = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            lowBits |= lowBit(cards.get(i));
+        }
+        return lowBits;
+    }
+
+
+    /**
+     * Picks one card of each of the specified ranks, highest rank first.
+     * @param lowBits Exactly five low ranks.
+     * @param cards The available cards.  Where there is a choice, the card of the highest
+     * suit is used.
+     */
+    static RankedHand toRankedHand(int lowBits, List<PlayingCard> cards)
+    {
+        long cardMask = CardUtils.toCardMask(cards);
+        PlayingCard[] hand = new PlayingCard[RankedHand.HAND_SIZE];
+        int index = 0;
+        for (int bit = LOW_RANKS - 1; bit >= 0; bit--)
+        {
+            if ((lowBits & (1 << bit)) != 0)
+            {
+                int rank = bit == 0 ? FaceValue.ACE.ordinal() : bit - 1;
+                // Card ordinals for a rank are consecutive, ordered by suit.
+                int card = rank * 4 + 3;
+                while ((cardMask & (1L << card)) == 0)
+                {
+                    --card;
+                }
+                hand[index++] = CARDS[card];
+            }
+        }
+        return new RankedHand(hand[0], hand[1], hand[2], hand[3], hand[4], HandRanking.LOW_EIGHT_OR_BETTER);
+    }
+}
@@ -13,6 +13,10 @@ import org.uncommons.util.ListUtils;
  */
 public class FiveCardHandEvaluator implements HandEvaluator
 {
+    private static final PlayingCard[] CARDS = PlayingCard.values();
+    private static final HandRanking[] RANKINGS = HandRanking.values();
+    private static final int SUIT_COUNT = Suit.values().length;
+
     /**
      * {@inheritDoc}
      */
@@ -30,6 +34,70 @@ public class FiveCardHandEvaluator implements HandEvaluator
     }
 
 
+    /**
+     * {@inheritDoc}
+     * Unlike {@link #evaluate(List)}, this does not re-order the cards, so they may be in
+     * any order.  As with {@link #evaluate(List)}, there may be fewer than five cards, in
+     * which case the remaining positions of the result are null and its strength is zero
+     * (there is no {@link HandStrength} for a partial hand).
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        int size = cards.size();
+        if (size > RankedHand.HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain no more than " + RankedHand.HAND_SIZE + " cards.");
+        }
+        long suitMasks = BitMaskHandEvaluator.toSuitMasks(cards);
+        if (size == RankedHand.HAND_SIZE)
+        {
+            result.setHighHand(BitMaskHandEvaluator.rank(suitMasks), suitMasks);
+            return;
+        }
+        // Without five cards there are no straights or flushes, so only groups matter.
+        long rankCounts = 0;
+        for (int i = 0; i < size; i++)
+        {
+            rankCounts = RankMultisetHash.add(rankCounts, cards.get(i).getValue().ordinal());
+        }
+        int descriptor = RankMultisetHash.describeGroups(rankCounts, false);
+        PlayingCard[] hand = result.update(RANKINGS[descriptor >>> 20], 0);
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            if (i < size)
+            {
+                // The faces of a partial hand are in the lowest bits, most significant first.
+                int face = (descriptor >>> (4 * (size - 1 - i))) & 0xF;
+                int suit = SUIT_COUNT - 1;
+                while ((suitMasks & (1L << (suit * BitMaskHandEvaluator.LANE_WIDTH + face))) == 0)
+                {
+                    --suit;
+                }
+                suitMasks &= ~(1L << (suit * BitMaskHandEvaluator.LANE_WIDTH + face));
+                hand[i] = CARDS[face * 4 + suit];
+            }
+            else
+            {
+                hand[i] = null;
+            }
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * The cards are not re-ordered.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        if (cards.size() > RankedHand.HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain no more than " + RankedHand.HAND_SIZE + " cards.");
+        }
+        return rankHand(cards);
+    }
+
+
     private HandRanking rankHand(List<PlayingCard> cards)
     {
         int pairs = countPairs(cards);
@@ -10,8 +10,32 @@ public interface HandEvaluator
 {
     /**
      * @param cards A list of cards that can be used to make the 5-card hand.
-     * These must be sorted in descending order of face value.
+     * These must be sorted in descending order of face value, unless the evaluator
+     * is an {@link OrderIndependentEvaluator}.
      * @return The highest possible ranking for this hand.
      */
     RankedHand evaluate(List<PlayingCard> cards);
+
+
+    /**
+     * Evaluates a hand without modifying the list of cards or allocating any objects, so
+     * that one list can be shared by several threads and simulation loops produce no garbage.
+     * @param cards A list of cards that can be used to make the 5-card hand, subject to
+     * the same requirements as for {@link #evaluate(List)}.  The list is not modified.
+     * @param result A holder that is overwritten with the highest possible ranking for
+     * this hand.
+     */
+    void evaluate(List<PlayingCard> cards, MutableRankedHand result);
+
+
+    /**
+     * Determines only the category of the best hand that can be made from the cards,
+     * without choosing or ordering the individual cards.  This is cheaper than
+     * {@link #evaluate(List)} for callers, such as statistics jobs, that do not need
+     * to break ties between hands of the same category.
+     * @param cards A list of cards that can be used to make the 5-card hand, subject to
+     * the same requirements as for {@link #evaluate(List)}.  The list is not modified.
+     * @return The ranking of the hand that {@link #evaluate(List)} would return.
+     */
+    HandRanking getRanking(List<PlayingCard> cards);
 }
@@ -0,0 +1,399 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Chooses and constructs a 7-card {@link BatchHandEvaluator} to suit the machine that the
+ * program is running on.  The candidates range from {@link BitMaskHandEvaluator}, which
+ * needs no tables, to {@link LookupHandEvaluator}, which needs about 270Mb.  Candidates
+ * whose tables would not fit in the memory budget are never considered.  Of the rest, the
+ * factory picks the smallest one that meets the latency target or, if none does (or if there
+ * is no target), the fastest one.
+ *
+ * Speeds are for ranking batches of hands with
+ * {@link BatchHandEvaluator#rankAll(int[], int, int, int[])} in which consecutive hands share
+ * most of their cards, as they do when every possible board is enumerated for a player's hole
+ * cards.  By default, the speed of each candidate is taken from estimates that were measured
+ * on a typical machine.  With these, the memory budget decides between
+ * {@link BitMaskHandEvaluator} and the much faster (for this workload)
+ * {@link StateMachineHandEvaluator}.  {@link RankMultisetHandEvaluator} is no faster than the
+ * bit-mask evaluator, and {@link LookupHandEvaluator} is bigger than the state machine and
+ * slower, so neither is chosen on estimates alone.
+ *
+ * Because the relative speeds of table look-ups and arithmetic vary a lot between machines,
+ * the factory can instead run a short benchmark of each candidate when it is created.
+ * Candidates are benchmarked in order of size, stopping as soon as one meets the latency
+ * target, so a big table is only generated if it might be chosen.  The tables held at any
+ * one time never add up to more than the memory budget.
+ *
+ * {@link SevenCardHandEvaluator} is not a candidate because {@link BitMaskHandEvaluator}
+ * needs no more memory and is always faster.
+ * @author Daniel Dyer
+ */
+public final class HandEvaluatorFactory
+{
+    private static final long MEGABYTE = 1024 * 1024;
+    private static final int BENCHMARK_HANDS = 1 << 17;
+    // The hands are made up of this many runs of consecutive boards, each for different hole cards.
+    private static final int BENCHMARK_RUNS = 8;
+    private static final int BENCHMARK_ROUNDS = 3;
+    private static final long BENCHMARK_SEED = 52;
+
+    private static volatile int sink;
+
+    /**
+     * The evaluators that the factory can choose from, in ascending order of size.
+     */
+    private static enum Candidate
+    {
+        BIT_MASK(BitMaskHandEvaluator.class, 0, 60)
+        {
+            BatchHandEvaluator create(TableStorage storage)
+            {
+                return new BitMaskHandEvaluator();
+            }
+        },
+
+        // The tables are static and always on the heap.
+        RANK_MULTISET(RankMultisetHandEvaluator.class, 200 * 1024, 60)
+        {
+            BatchHandEvaluator create(TableStorage storage)
+            {
+                return new RankMultisetHandEvaluator();
+            }
+        },
+
+        STATE_MACHINE(StateMachineHandEvaluator.class, 612977L * 52 * 4, 8)
+        {
+            BatchHandEvaluator create(TableStorage storage)
+            {
+                return new StateMachineHandEvaluator(storage);
+            }
+        },
+
+        LOOKUP(LookupHandEvaluator.class, 133784560L * 2, 85)
+        {
+            BatchHandEvaluator create(TableStorage storage)
+            {
+                return new LookupHandEvaluator(storage);
+            }
+        };
+
+        private final String name;
+        private final long memory;
+        private final long estimatedLatency;
+
+        /**
+         * @param type The class of the evaluator.
+         * @param memory The number of bytes needed for the evaluator's tables.
+         * @param estimatedLatency The typical time taken to rank a 7-card hand in a batch, in
+         * nanoseconds.
+         */
+        private Candidate(Class<? extends BatchHandEvaluator> type, long memory, long estimatedLatency)
+        {
+            this.name = type.getSimpleName();
+            this.memory = memory;
+            this.estimatedLatency = estimatedLatency;
+        }
+
+
+        abstract BatchHandEvaluator create(TableStorage storage);
+    }
+
+
+    private final long memoryBudget;
+    private final long latencyTarget;
+    private final TableStorage storage;
+    private final boolean benchmark;
+
+    /**
+     * Creates a factory that uses half of the heap that is currently available, has no
+     * latency target and does not run a benchmark.  So it picks the evaluator that is
+     * expected to be fastest, provided that it fits.
+     */
+    public HandEvaluatorFactory()
+    {
+        this(availableMemory(TableStorage.HEAP) / 2, 0, TableStorage.HEAP, false);
+    }
+
+
+    /**
+     * @param memoryBudget The maximum number of bytes that the evaluator's tables may occupy,
+     * either on the heap or off-heap, depending on the storage.
+     * @param latencyTarget The longest acceptable time to rank a 7-card hand, in nanoseconds.
+     * The smallest evaluator that meets this target is chosen in preference to faster ones.
+     * Zero means that the fastest evaluator that fits in the memory budget is always chosen.
+     * @param storage Where to keep generated tables.
+     * @param benchmark Whether to measure the speed of each candidate evaluator rather than
+     * relying on estimates.
+     */
+    public HandEvaluatorFactory(long memoryBudget,
+                                long latencyTarget,
+                                TableStorage storage,
+                                boolean benchmark)
+    {
+        if (memoryBudget < 0 || latencyTarget < 0)
+        {
+            throw new IllegalArgumentException("Memory budget and latency target must not be negative.");
+        }
+        this.memoryBudget = memoryBudget;
+        this.latencyTarget = latencyTarget;
+        this.storage = storage;
+        this.benchmark = benchmark;
+    }
+
+
+    /**
+     * @param storage Where the tables would be kept.
+     * @return The number of bytes that could currently be allocated for tables.  For
+     * off-heap storage, this assumes the JVM's default direct memory limit, which is
+     * the same as the maximum heap size.
+     */
+    public static long availableMemory(TableStorage storage)
+    {
+        Runtime runtime = Runtime.getRuntime();
+        if (storage == TableStorage.OFF_HEAP)
+        {
+            return runtime.maxMemory();
+        }
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+
+    /**
+     * Chooses an evaluator and constructs it, which may take a few seconds if it needs a
+     * table.
+     * @return The evaluator and the reason that it was chosen.
+     */
+    public Selection create()
+    {
+        List<Candidate> candidates = new ArrayList<Candidate>();
+        StringBuilder excluded = new StringBuilder();
+        for (Candidate candidate : Candidate.values())
+        {
+            if (candidate.memory <= memoryBudget)
+            {
+                candidates.add(candidate);
+            }
+            else
+            {
+                excluded.append(excluded.length() == 0 ? "; too big: " : ", ");
+                excluded.append(candidate.name).append(" (").append(megabytes(candidate.memory)).append(')');
+            }
+        }
+        // The bit-mask evaluator needs no memory, so there is always at least one candidate.
+        return benchmark ? chooseMeasured(candidates, excluded.toString())
+                         : chooseEstimated(candidates, excluded.toString());
+    }
+
+
+    private Selection chooseEstimated(List<Candidate> candidates, String excluded)
+    {
+        Candidate fastest = null;
+        for (Candidate candidate : candidates)
+        {
+            if (latencyTarget > 0 && candidate.estimatedLatency <= latencyTarget)
+            {
+                return new Selection(candidate.create(storage),
+                                     "smallest evaluator expected to meet the " + latencyTarget
+                                     + "ns target (estimated " + candidate.estimatedLatency + "ns per hand, "
+                                     + megabytes(candidate.memory) + ")" + excluded);
+            }
+            if (fastest == null || candidate.estimatedLatency < fastest.estimatedLatency)
+            {
+                fastest = candidate;
+            }
+        }
+        return new Selection(fastest.create(storage),
+                             describeFastest("estimated", fastest.estimatedLatency, fastest.memory) + excluded);
+    }
+
+
+    private Selection chooseMeasured(List<Candidate> candidates, String excluded)
+    {
+        int[] hands = createBenchmarkHands();
+        Candidate fastestCandidate = null;
+        BatchHandEvaluator fastest = null;
+        long fastestLatency = 0;
+        StringBuilder measurements = new StringBuilder();
+        for (Candidate candidate : candidates)
+        {
+            if (fastest != null && fastestCandidate.memory + candidate.memory > memoryBudget)
+            {
+                // Both tables won't fit, so let go of the fastest one so far and build it
+                // again if nothing beats it.
+                fastest = null;
+            }
+            BatchHandEvaluator evaluator = candidate.create(storage);
+            long latency = measure(evaluator, hands);
+            measurements.append(measurements.length() == 0 ? "; measured: " : ", ");
+            measurements.append(candidate.name).append(' ').append(latency).append("ns");
+            if (latencyTarget > 0 && latency <= latencyTarget)
+            {
+                return new Selection(evaluator,
+                                     "smallest evaluator that meets the " + latencyTarget + "ns target ("
+                                     + megabytes(candidate.memory) + ")" + measurements + excluded);
+            }
+            if (fastestCandidate == null || latency < fastestLatency)
+            {
+                // The previous fastest evaluator (and its table) can now be garbage collected.
+                fastestCandidate = candidate;
+                fastest = evaluator;
+                fastestLatency = latency;
+            }
+        }
+        if (fastest == null)
+        {
+            fastest = fastestCandidate.create(storage);
+        }
+        return new Selection(fastest,
+                             describeFastest("measured", fastestLatency, fastestCandidate.memory) + measurements + excluded);
+    }
+
+
+    private String describeFastest(String source, long latency, long memory)
+    {
+        String description = "fastest evaluator within the " + megabytes(memoryBudget) + " budget ("
+                             + source + " " + latency + "ns per hand, " + megabytes(memory) + ")";
+        return latencyTarget > 0 ? description + ", although none meets the " + latencyTarget + "ns target"
+                                 : description;
+    }
+
+
+    /**
+     * Generates the same hands every time, so that benchmark results are comparable.  For each
+     * of a few random pairs of hole cards, the boards are enumerated in order, as they would
+     * be to work out the pair's exact equity.  There are enough distinct hands that a big
+     * table cannot stay in the processor's cache during the benchmark any more than it would
+     * in a real enumeration.
+     * @return The ordinals of the cards, seven per hand (the hole cards first).
+     */
+    private static int[] createBenchmarkHands()
+    {
+        Random rng = new Random(BENCHMARK_SEED);
+        int deckSize = PlayingCard.values().length;
+        int[] hands = new int[BENCHMARK_HANDS * 7];
+        int index = 0;
+        for (int run = 0; run < BENCHMARK_RUNS; run++)
+        {
+            int hole1 = rng.nextInt(deckSize);
+            int hole2 = (hole1 + 1 + rng.nextInt(deckSize - 1)) % deckSize;
+            int[] deck = new int[deckSize - 2];
+            for (int card = 0, i = 0; card < deckSize; card++)
+            {
+                if (card != hole1 && card != hole2)
+                {
+                    deck[i++] = card;
+                }
+            }
+            int[] board = {0, 1, 2, 3, 4};
+            for (int i = 0; i < BENCHMARK_HANDS / BENCHMARK_RUNS; i++)
+            {
+                hands[index++] = hole1;
+                hands[index++] = hole2;
+                for (int position : board)
+                {
+                    hands[index++] = deck[position];
+                }
+                nextCombination(board, deck.length);
+            }
+        }
+        return hands;
+    }
+
+
+    /**
+     * Advances to the next combination, in lexicographic order, of positions in a deck.
+     */
+    private static void nextCombination(int[] positions, int deckSize)
+    {
+        int i = positions.length - 1;
+        while (positions[i] == deckSize - positions.length + i)
+        {
+            --i;
+        }
+        ++positions[i];
+        for (int j = i + 1; j < positions.length; j++)
+        {
+            positions[j] = positions[j - 1] + 1;
+        }
+    }
+
+
+    /**
+     * @return The average time taken to rank one hand, in nanoseconds, in the fastest of
+     * several rounds.
+     */
+    private static long measure(BatchHandEvaluator evaluator, int[] hands)
+    {
+        int[] ranks = new int[BENCHMARK_HANDS];
+        // Give the JIT compiler a chance to compile the evaluator first.
+        evaluator.rankAll(hands, 7, BENCHMARK_HANDS, ranks);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++)
+        {
+            long start = System.nanoTime();
+            evaluator.rankAll(hands, 7, BENCHMARK_HANDS, ranks);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        // Publishing a result stops the JIT compiler from eliminating the work.
+        sink = ranks[BENCHMARK_HANDS - 1];
+        return Math.max(1, best / BENCHMARK_HANDS);
+    }
+
+
+    private static String megabytes(long bytes)
+    {
+        return String.format("%.1fMb", (double) bytes / MEGABYTE);
+    }
+
+
+    /**
+     * The evaluator chosen by a {@link HandEvaluatorFactory}, and why it was chosen.
+     */
+    public static final class Selection
+    {
+        private final BatchHandEvaluator evaluator;
+        private final String reason;
+
+        private Selection(BatchHandEvaluator evaluator, String reason)
+        {
+            this.evaluator = evaluator;
+            this.reason = reason;
+        }
+
+
+        public BatchHandEvaluator getEvaluator()
+        {
+            return evaluator;
+        }
+
+
+        /**
+         * @return The simple class name of the chosen evaluator.
+         */
+        public String getName()
+        {
+            return evaluator.getClass().getSimpleName();
+        }
+
+
+        /**
+         * @return A human-readable explanation of the choice, including any candidates
+         * that were ruled out for lack of memory and any benchmark results.
+         */
+        public String getReason()
+        {
+            return reason;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return getName() + ": " + reason;
+        }
+    }
+}
@@ -15,5 +15,7 @@ public enum HandRanking
     FULL_HOUSE,
     FOUR_OF_A_KIND,
     STRAIGHT_FLUSH,
-    ROYAL_FLUSH
+    ROYAL_FLUSH,
+    /** Only possible when playing with wild cards (see {@link WildCardHandEvaluator}). */
+    FIVE_OF_A_KIND
 }
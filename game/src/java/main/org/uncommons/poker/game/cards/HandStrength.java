@@ -0,0 +1,297 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+
+/**
+ * Utility methods for working with integer hand strengths.  Although there are 2,598,960
+ * distinct 5-card poker hands, once suits are ignored (except to determine whether or not
+ * a hand is a flush) there are only 7,462 different hand values.  Each of these equivalence
+ * classes is assigned a number from 1 (7, 5, 4, 3, 2 of mixed suits) to 7,462 (a royal flush),
+ * so that the better of two hands can be determined with a single integer comparison rather
+ * than by constructing and comparing {@link RankedHand} objects.
+ * @author Daniel Dyer
+ */
+public final class HandStrength
+{
+    /**
+     * The number of distinct 5-card hand values.
+     */
+    public static final int CLASS_COUNT = 7462;
+
+    private static final int HIGH_CARD_BASE = 1;
+    private static final int PAIR_BASE = HIGH_CARD_BASE + 1277;
+    private static final int TWO_PAIR_BASE = PAIR_BASE + 13 * 220;
+    private static final int THREE_OF_A_KIND_BASE = TWO_PAIR_BASE + 78 * 11;
+    private static final int STRAIGHT_BASE = THREE_OF_A_KIND_BASE + 13 * 66;
+    private static final int FLUSH_BASE = STRAIGHT_BASE + 10;
+    private static final int FULL_HOUSE_BASE = FLUSH_BASE + 1277;
+    private static final int FOUR_OF_A_KIND_BASE = FULL_HOUSE_BASE + 13 * 12;
+    private static final int STRAIGHT_FLUSH_BASE = FOUR_OF_A_KIND_BASE + 13 * 12;
+
+    private static final PlayingCard[] CARDS = PlayingCard.values();
+    private static final HandRanking[] RANKINGS = HandRanking.values();
+
+    // Maps 13-bit masks of 5 distinct ranks to their position among all such masks
+    // that are not straights, ordered from weakest to strongest.
+    private static final short[] DISTINCT_RANKS_INDEX = new short[1 << 13];
+
+    // For each equivalence class, the hand ranking and the face values of the 5 cards
+    // in order of significance (packed 4 bits per card with the ranking above them).
+    private static final int[] DESCRIPTORS = new int[CLASS_COUNT + 1];
+
+    static
+    {
+        // For masks with the same number of bits, numeric order is the same as the order
+        // of the hands that they represent (compare the highest rank, then the next, etc.).
+        short index = 0;
+        for (int ranks = 0; ranks < DISTINCT_RANKS_INDEX.length; ranks++)
+        {
+            if (Integer.bitCount(ranks) == RankedHand.HAND_SIZE && BitMaskHandEvaluator.straightHigh(ranks) < 0)
+            {
+                DISTINCT_RANKS_INDEX[ranks] = index++;
+            }
+        }
+
+        // Evaluate one representative 5-card hand from each class to find out which cards
+        // make up the hands in that class.  First all flushes...
+        for (int ranks = 0; ranks < DISTINCT_RANKS_INDEX.length; ranks++)
+        {
+            if (Integer.bitCount(ranks) == RankedHand.HAND_SIZE)
+            {
+                addDescriptor((long) ranks << (Suit.SPADES.ordinal() * BitMaskHandEvaluator.LANE_WIDTH));
+            }
+        }
+        // ...then every multiset of 5 ranks, with suits allocated in rotation so that cards of
+        // the same rank have different suits and the 5 cards are never all of one suit.
+        for (int r0 = 0; r0 < 13; r0++)
+        {
+            for (int r1 = r0; r1 < 13; r1++)
+            {
+                for (int r2 = r1; r2 < 13; r2++)
+                {
+                    for (int r3 = r2; r3 < 13; r3++)
+                    {
+                        for (int r4 = Math.max(r3, r0 + 1); r4 < 13; r4++)
+                        {
+                            addDescriptor(BitMaskHandEvaluator.bit(r0 * 4)
+                                          | BitMaskHandEvaluator.bit(r1 * 4 + 1)
+                                          | BitMaskHandEvaluator.bit(r2 * 4 + 2)
+                                          | BitMaskHandEvaluator.bit(r3 * 4 + 3)
+                                          | BitMaskHandEvaluator.bit(r4 * 4));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static void addDescriptor(long suitMasks)
+    {
+        RankedHand hand = BitMaskHandEvaluator.evaluate(suitMasks);
+        int descriptor = hand.getRanking().ordinal();
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            descriptor = (descriptor << 4) | hand.getCard(i).getValue().ordinal();
+        }
+        DESCRIPTORS[BitMaskHandEvaluator.rank(suitMasks)] = descriptor;
+    }
+
+
+    private HandStrength()
+    {
+        // Prevents instantiation of utility class.
+    }
+
+
+    /**
+     * @param rank A hand strength in the range 1 - {@link #CLASS_COUNT}.
+     * @return The ranking (e.g. FLUSH or TWO_PAIR) of hands with this strength.
+     */
+    public static HandRanking getRanking(int rank)
+    {
+        return RANKINGS[DESCRIPTORS[rank] >>> 20];
+    }
+
+
+    /**
+     * Constructs a {@link RankedHand} for a hand whose strength is already known.  This allows
+     * callers that only need to compare hands to work exclusively with integer strengths and
+     * then build the full hand for just the winners.
+     * @param rank The strength of the best 5-card hand that can be made from the cards.
+     * @param cards The cards (5, 6 or 7 in any order) from which the hand was made.
+     * @return The best 5-card hand.  Where there is a choice between cards of equal rank, the
+     * cards of the highest suits are used (as they are by {@link SevenCardHandEvaluator}).
+     */
+    public static RankedHand toRankedHand(int rank, List<PlayingCard> cards)
+    {
+        return toRankedHand(DESCRIPTORS[rank], BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * Finds the strength of a hand that has already been ranked.
+     * @param hand A correctly ranked 5-card hand.
+     * @return A strength in the range 1 - {@link #CLASS_COUNT}.
+     */
+    public static int rank(RankedHand hand)
+    {
+        long suitMasks = 0;
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            suitMasks |= BitMaskHandEvaluator.bit(hand.getCard(i).ordinal());
+        }
+        return BitMaskHandEvaluator.rank(suitMasks);
+    }
+
+
+    /**
+     * @param descriptor The ranking and face values of the hand, packed as in
+     * {@link #DESCRIPTORS}.
+     * @param suitMasks The cards available, packed as for {@link BitMaskHandEvaluator}.
+     */
+    static RankedHand toRankedHand(int descriptor, long suitMasks)
+    {
+        PlayingCard[] hand = new PlayingCard[RankedHand.HAND_SIZE];
+        HandRanking ranking = selectCards(descriptor, suitMasks, hand);
+        return new RankedHand(hand[0], hand[1], hand[2], hand[3], hand[4], ranking);
+    }
+
+
+    /**
+     * Picks the cards that make up a hand without allocating anything.
+     * @param descriptor The ranking and face values of the hand, packed as in
+     * {@link #DESCRIPTORS}.
+     * @param suitMasks The cards available, packed as for {@link BitMaskHandEvaluator}.
+     * @param hand An array of 5 elements that is filled with the cards of the hand, in
+     * descending order of significance.
+     * @return The ranking of the hand.
+     */
+    static HandRanking selectCards(int descriptor, long suitMasks, PlayingCard[] hand)
+    {
+        HandRanking ranking = RANKINGS[descriptor >>> 20];
+        int flushSuit = -1;
+        if (ranking == HandRanking.FLUSH
+            || ranking == HandRanking.STRAIGHT_FLUSH
+            || ranking == HandRanking.ROYAL_FLUSH)
+        {
+            flushSuit = 3;
+            while (Long.bitCount(suitMasks & (0xFFFFL << (flushSuit * BitMaskHandEvaluator.LANE_WIDTH))) < RankedHand.HAND_SIZE)
+            {
+                --flushSuit;
+            }
+        }
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            int face = (descriptor >>> (16 - 4 * i)) & 0xF;
+            int suit = flushSuit;
+            if (suit < 0)
+            {
+                // Take the highest suit that has not already been used for this face value.
+                suit = 3;
+                while ((suitMasks & (1L << (suit * BitMaskHandEvaluator.LANE_WIDTH + face))) == 0)
+                {
+                    --suit;
+                }
+                suitMasks &= ~(1L << (suit * BitMaskHandEvaluator.LANE_WIDTH + face));
+            }
+            hand[i] = CARDS[face * 4 + suit];
+        }
+        return ranking;
+    }
+
+
+    /**
+     * @param rank A hand strength in the range 1 - {@link #CLASS_COUNT}.
+     * @return The ranking and face values of hands with this strength, packed as in
+     * {@link #DESCRIPTORS}.
+     */
+    static int getDescriptor(int rank)
+    {
+        return DESCRIPTORS[rank];
+    }
+
+
+    static int highCard(int ranks)
+    {
+        return HIGH_CARD_BASE + DISTINCT_RANKS_INDEX[ranks];
+    }
+
+
+    static int pair(int pair, int kickers)
+    {
+        return PAIR_BASE + pair * 220 + colex(without(kickers, pair));
+    }
+
+
+    static int twoPair(int highPair, int lowPair, int kicker)
+    {
+        // The kicker's position among the 11 ranks not used by either pair.
+        int kickerIndex = kicker - (lowPair < kicker ? 1 : 0) - (highPair < kicker ? 1 : 0);
+        return TWO_PAIR_BASE + colex((1 << highPair) | (1 << lowPair)) * 11 + kickerIndex;
+    }
+
+
+    static int threeOfAKind(int trips, int kickers)
+    {
+        return THREE_OF_A_KIND_BASE + trips * 66 + colex(without(kickers, trips));
+    }
+
+
+    static int straight(int highRank)
+    {
+        return STRAIGHT_BASE + highRank - FaceValue.FIVE.ordinal();
+    }
+
+
+    static int flush(int ranks)
+    {
+        return FLUSH_BASE + DISTINCT_RANKS_INDEX[ranks];
+    }
+
+
+    static int fullHouse(int trips, int pair)
+    {
+        return FULL_HOUSE_BASE + trips * 12 + pair - (pair > trips ? 1 : 0);
+    }
+
+
+    static int fourOfAKind(int quads, int kicker)
+    {
+        return FOUR_OF_A_KIND_BASE + quads * 12 + kicker - (kicker > quads ? 1 : 0);
+    }
+
+
+    static int straightFlush(int highRank)
+    {
+        return STRAIGHT_FLUSH_BASE + highRank - FaceValue.FIVE.ordinal();
+    }
+
+
+    /**
+     * Removes a rank from a rank mask, closing up the gap so that the higher ranks
+     * each move down one position.
+     */
+    private static int without(int ranks, int rank)
+    {
+        return (ranks & ((1 << rank) - 1)) | ((ranks >>> (rank + 1)) << rank);
+    }
+
+
+    /**
+     * @return The position of a set of ranks among all sets of the same size, in
+     * co-lexicographical order (i.e. ordered by the highest rank, then the next highest
+     * and so on).
+     */
+    private static int colex(int ranks)
+    {
+        int index = 0;
+        int k = 1;
+        while (ranks != 0)
+        {
+            index += CardUtils.choose(Integer.numberOfTrailingZeros(ranks), k++);
+            ranks &= ranks - 1;
+        }
+        return index;
+    }
+}
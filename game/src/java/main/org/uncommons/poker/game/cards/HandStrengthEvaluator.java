@@ -0,0 +1,21 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+
+/**
+ * A {@link HandEvaluator} that can also express the value of a hand as a single
+ * integer.  Comparing two such integers gives the same result as comparing the two
+ * corresponding {@link RankedHand}s (except that the integers do not distinguish between
+ * hands that differ only by suit), but is much cheaper.
+ * @author Daniel Dyer
+ */
+public interface HandStrengthEvaluator extends HandEvaluator
+{
+    /**
+     * @param cards A list of cards that can be used to make the 5-card hand.
+     * @return The strength of the best 5-card hand that can be made from the cards,
+     * in the range 1 - {@link HandStrength#CLASS_COUNT}.  Higher values are better hands.
+     * @see HandStrength#toRankedHand(int, List)
+     */
+    int rank(List<PlayingCard> cards);
+}
@@ -1,98 +1,404 @@
 package org.uncommons.poker.game.cards;
 
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
-import org.uncommons.maths.combinatorics.CombinationGenerator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.uncommons.util.ConsoleProgressDisplay;
+import org.uncommons.util.ProgressTracker;
 
 /**
- * A {@link HandEvaluator} that uses tables of pre-computed ranked hands to quickly
- * evaluate 7-card hands.  This implementation generates about 550Mb of look-up tables,
- * so requires a significant amount of heap space.
+ * A {@link HandEvaluator} that uses a table of pre-computed hand strengths (see
+ * {@link HandStrength}) to quickly evaluate 7-card hands.  There is one 16-bit entry for
+ * each of the ~134 million 7-card hands.  By default, the table is generated on start-up
+ * and held on the heap, which requires about 270Mb.  Because it is a single primitive array,
+ * the garbage collector does not have to trace it, but it does still have to be accommodated
+ * by the heap.  It can instead be generated {@link TableStorage#OFF_HEAP off-heap}, which
+ * allows the application to run with a much smaller heap.
+ *
+ * Alternatively, the table can be stored in a file, which is generated the first time that
+ * it is needed and then memory-mapped by all subsequent instances.  This takes no heap space
+ * and, once the file exists, no start-up time.  Several processes on the same machine that
+ * use the same file will share a single copy of the table.
+ *
+ * The table is indexed by {@link CardUtils#combinationHash(long)}, which is calculated from a
+ * mask of the cards, so the cards may be in any order and do not need to be sorted first.
  * @author Daniel Dyer
  */
-public class LookupHandEvaluator implements HandEvaluator
+public class LookupHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
 {
-    private static final int FIVE_CARD_COMBINATIONS = 2598960;
+    private static final int HAND_SIZE = 7;
     private static final int SEVEN_CARD_COMBINATIONS = 133784560;
-    private static final int FIVE_PERCENT = SEVEN_CARD_COMBINATIONS / 20;
+    // Increment whenever the meaning of the entries in the table file changes.
+    private static final int TABLE_VERSION = 1;
 
-    private static final HandEvaluator FIVE_CARD_EVALUATOR = new FiveCardHandEvaluator();
-    private static final HandEvaluator SEVEN_CARD_EVALUATOR = new SevenCardHandEvaluator();
-    private static final ConsoleProgressDisplay CONSOLE = new ConsoleProgressDisplay();
-
-    private final RankedHand[] sevenCardLookupTable;
+    private final ShortBuffer sevenCardStrengths;
 
+    /**
+     * Creates an evaluator that generates its table on the heap.
+     */
     public LookupHandEvaluator()
     {
-        sevenCardLookupTable = generateSevenCardMappings();
+        this(TableStorage.HEAP);
     }
 
 
-    private RankedHand[] generateFiveCardLookupTable()
+    /**
+     * Creates an evaluator that generates its table on start-up.
+     * @param storage Where to keep the generated table.
+     */
+    public LookupHandEvaluator(TableStorage storage)
     {
-        CONSOLE.start("Generating 5-card hand evaluation look-up table...");
+        sevenCardStrengths = generateSevenCardStrengths(storage);
+    }
 
-        final RankedHand[] lookupTable = new RankedHand[FIVE_CARD_COMBINATIONS];
-        CombinationGenerator<PlayingCard> generator = new CombinationGenerator<PlayingCard>(PlayingCard.reverseValues(), 5);
-        for (List<PlayingCard> hand : generator)
+
+    /**
+     * Creates an evaluator that uses a memory-mapped table file, checking the whole file
+     * against its checksum before use.
+     * @param tableFile The location of the table.  If this file does not exist, or if it
+     * does not contain a valid, up-to-date table, it will be (re-)generated.
+     * @throws IOException If the table file cannot be read or written.
+     */
+    public LookupHandEvaluator(File tableFile) throws IOException
+    {
+        this(tableFile, true);
+    }
+
+
+    /**
+     * Creates an evaluator that uses a memory-mapped table file.
+     * @param tableFile The location of the table.  If this file does not exist, or if it
+     * does not contain a valid, up-to-date table, it will be (re-)generated.
+     * @param verifyChecksum Whether to check the entire file against its checksum before
+     * using it.  This requires reading the whole file so, for the fastest possible start-up,
+     * it may be skipped (the table's header is still checked).
+     * @throws IOException If the table file cannot be read or written.
+     */
+    public LookupHandEvaluator(File tableFile, boolean verifyChecksum) throws IOException
+    {
+        ByteBuffer table = mapTable(tableFile, verifyChecksum);
+        if (table == null)
         {
-            int hash = CardUtils.fiveCardHash(hand);
-            RankedHand rankedHand = FIVE_CARD_EVALUATOR.evaluate(hand);
-            lookupTable[hash] = rankedHand;
+            writeSevenCardStrengths(tableFile);
+            table = mapTable(tableFile, verifyChecksum);
+            if (table == null)
+            {
+                throw new IOException("Invalid look-up table: " + tableFile);
+            }
         }
+        sevenCardStrengths = table.asShortBuffer();
+    }
+
+
+    private static ByteBuffer mapTable(File tableFile, boolean verifyChecksum) throws IOException
+    {
+        return TableFile.map(tableFile,
+                             TableFile.SEVEN_CARD_STRENGTHS,
+                             TABLE_VERSION,
+                             2,
+                             SEVEN_CARD_COMBINATIONS,
+                             verifyChecksum);
+    }
 
-        CONSOLE.finish(true);
 
-        return lookupTable;
+    /**
+     * Generates the strength of every 7-card hand, indexed by
+     * {@link CardUtils#sevenCardHash(List) hash value}.  The work is divided between all
+     * available processors by splitting the hands into groups that share the same two
+     * highest cards.
+     */
+    private ShortBuffer generateSevenCardStrengths(TableStorage storage)
+    {
+        ConsoleProgressDisplay console = new ConsoleProgressDisplay();
+        console.start("Generating 7-card hand strengths...");
+        console.update(0);
+
+        final ShortBuffer strengths = storage.allocateShorts(SEVEN_CARD_COMBINATIONS);
+        final ProgressTracker progress = new ProgressTracker(console, SEVEN_CARD_COMBINATIONS);
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (int highestCard = 6; highestCard < PlayingCard.values().length; highestCard++)
+        {
+            for (int secondCard = 5; secondCard < highestCard; secondCard++)
+            {
+                final int c6 = highestCard;
+                final int c5 = secondCard;
+                tasks.add(new Callable<Object>()
+                {
+                    public Object call()
+                    {
+                        int offset = CardUtils.choose(c6, 7) + CardUtils.choose(c5, 6);
+                        progress.addCompleted(rankHands(c6, c5, strengths, offset));
+                        return null;
+                    }
+                });
+            }
+        }
+        runInParallel(tasks);
+        console.finish(true);
+
+        return strengths;
     }
 
 
     /**
-     * Generate a table of mappings from seven-card hands to entries in a 5-card look-up table.
-     * This will return ~134 million integers, which requires about 535Mb of memory.
-     * @return An array of indices for mapping
-     * {@link CardUtils#sevenCardHash(java.util.List) 7-card hashes} to an entry in the
-     * {@link #generateFiveCardLookupTable() 5-card look-up table}.
+     * Writes the strength of every 7-card hand to a file.  The hands are enumerated in order
+     * of their {@link CardUtils#sevenCardHash(List) hash values}, so the table can be streamed
+     * straight to disk a piece at a time, without having to be held in memory.  Each piece
+     * (the hands that share the same two highest cards) is generated by a separate task, on
+     * all available processors, and the pieces are written in order as they become ready.
      */
-    private RankedHand[] generateSevenCardMappings()
+    private void writeSevenCardStrengths(File tableFile) throws IOException
     {
-        // Generate all 5-card hands up front and then refer to these rather than creating
-        // duplicate 5-card hands from different 7-card hands.
-        RankedHand[] fiveCardLookupTable = generateFiveCardLookupTable();
+        final ConsoleProgressDisplay console = new ConsoleProgressDisplay();
+        console.start("Writing 7-card hand strengths to " + tableFile + "...");
+        console.update(0);
+        boolean success = false;
+        try
+        {
+            TableFile.write(tableFile,
+                            TableFile.SEVEN_CARD_STRENGTHS,
+                            TABLE_VERSION,
+                            2,
+                            SEVEN_CARD_COMBINATIONS,
+                            new TableFile.Generator()
+            {
+                void generate(DataOutput output) throws IOException
+                {
+                    int threadCount = Runtime.getRuntime().availableProcessors();
+                    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+                    try
+                    {
+                        // Only a few pieces are generated ahead of the one being written, so
+                        // that finished pieces don't pile up in memory.
+                        Queue<Future<short[]>> pending = new LinkedList<Future<short[]>>();
+                        long count = 0;
+                        for (int c6 = 6; c6 < 52; c6++)
+                        {
+                            for (int c5 = 5; c5 < c6; c5++)
+                            {
+                                pending.add(executor.submit(createChunkTask(c6, c5)));
+                                if (pending.size() > threadCount * 2)
+                                {
+                                    count += writeChunk(pending.remove(), output);
+                                }
+                            }
+                            console.update((int) (count * 100 / SEVEN_CARD_COMBINATIONS));
+                        }
+                        while (!pending.isEmpty())
+                        {
+                            writeChunk(pending.remove(), output);
+                        }
+                    }
+                    finally
+                    {
+                        executor.shutdownNow();
+                    }
+                }
+            });
+            success = true;
+        }
+        finally
+        {
+            console.finish(success);
+        }
+    }
 
-        CONSOLE.start("Mapping 7-card hands to 5-card hands...");
-        CONSOLE.update(0);
 
-        RankedHand[] mappings = new RankedHand[SEVEN_CARD_COMBINATIONS];
-        CombinationGenerator<PlayingCard> generator = new CombinationGenerator<PlayingCard>(PlayingCard.reverseValues(), 7);
-        long count = 0;
-        for (List<PlayingCard> hand : generator)
+    /**
+     * @return A task that calculates the strengths of all 7-card hands that have the two
+     * specified cards as their highest cards, in order of their hash values.
+     */
+    private static Callable<short[]> createChunkTask(final int c6, final int c5)
+    {
+        return new Callable<short[]>()
         {
-            int index = CardUtils.sevenCardHash(hand);
-            PlayingCard[] cards = SEVEN_CARD_EVALUATOR.evaluate(hand).getCards();
-            CardUtils.fiveCardSort(cards);
-            int fiveCardIndex = CardUtils.fiveCardHash(cards);
-            mappings[index] = fiveCardLookupTable[fiveCardIndex];
-            ++count;
-            if (count % FIVE_PERCENT == 0)
+            public short[] call()
             {
-                CONSOLE.update((int) (count * 100 / mappings.length));
+                short[] chunk = new short[CardUtils.choose(c5, 5)];
+                rankHands(c6, c5, ShortBuffer.wrap(chunk), 0);
+                return chunk;
             }
+        };
+    }
+
+
+    /**
+     * Waits for a chunk of strengths to be generated and then writes it.
+     * @return The number of strengths written.
+     */
+    private static int writeChunk(Future<short[]> result, DataOutput output) throws IOException
+    {
+        short[] chunk = await(result);
+        for (short strength : chunk)
+        {
+            output.writeShort(strength);
         }
-        CONSOLE.finish(true);
+        return chunk.length;
+    }
 
-        return mappings;
+
+    /**
+     * Calculates the strengths of all 7-card hands that have the two specified cards as their
+     * highest cards, in order of their {@link CardUtils#sevenCardHash(List) hash values}.
+     * @param c6 The ordinal of the highest card.
+     * @param c5 The ordinal of the second-highest card.
+     * @param strengths The table to store the strengths in.
+     * @param offset The index at which to store the first strength.
+     * @return The number of strengths stored.
+     */
+    private static int rankHands(int c6, int c5, ShortBuffer strengths, int offset)
+    {
+        int index = offset;
+        // Cards are in ascending order, c0 < c1 < ... < c6.
+        long mask5 = BitMaskHandEvaluator.bit(c6) | BitMaskHandEvaluator.bit(c5);
+        for (int c4 = 4; c4 < c5; c4++)
+        {
+            long mask4 = mask5 | BitMaskHandEvaluator.bit(c4);
+            for (int c3 = 3; c3 < c4; c3++)
+            {
+                long mask3 = mask4 | BitMaskHandEvaluator.bit(c3);
+                for (int c2 = 2; c2 < c3; c2++)
+                {
+                    long mask2 = mask3 | BitMaskHandEvaluator.bit(c2);
+                    for (int c1 = 1; c1 < c2; c1++)
+                    {
+                        long mask1 = mask2 | BitMaskHandEvaluator.bit(c1);
+                        for (int c0 = 0; c0 < c1; c0++)
+                        {
+                            strengths.put(index++, (short) BitMaskHandEvaluator.rank(mask1 | BitMaskHandEvaluator.bit(c0)));
+                        }
+                    }
+                }
+            }
+        }
+        return index - offset;
+    }
+
+
+    /**
+     * Runs independent tasks on all available processors and waits for them to complete.
+     */
+    private static void runInParallel(List<Callable<Object>> tasks)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try
+        {
+            // Waiting on each task's result also guarantees that everything it wrote to
+            // the shared table is visible to this thread.
+            for (Future<Object> result : executor.invokeAll(tasks))
+            {
+                await(result);
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating look-up table.", ex);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Waits for a generation task to complete.
+     * @return The result of the task.
+     */
+    private static <T> T await(Future<T> result)
+    {
+        try
+        {
+            return result.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating look-up table.", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IllegalStateException("Failed to generate look-up table.", ex.getCause());
+        }
     }
 
 
     /**
      * {@inheritDoc}
-     * @param cards Seven cards, sorted in descending order of rank.
+     * @param cards Seven cards in any order.
      * @return A ranked 5-card hand.
      */
     public RankedHand evaluate(List<PlayingCard> cards)
     {
-        int sevenCardHash = CardUtils.sevenCardHash(cards);
-        return sevenCardLookupTable[sevenCardHash];
+        return HandStrength.toRankedHand(rank(cards), cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        result.setHighHand(rank(cards), BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain " + HAND_SIZE + " cards.");
+        }
+        return sevenCardStrengths.get(CardUtils.combinationHash(CardUtils.toCardMask(cards)));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return HandStrength.getRanking(rank(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param handSize Must be seven.
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        if (handSize != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand size must be " + HAND_SIZE + ".");
+        }
+        int index = 0;
+        for (int i = 0; i < handCount; i++)
+        {
+            long cardMask = 0;
+            for (int j = 0; j < handSize; j++)
+            {
+                cardMask |= 1L << cards[index++];
+            }
+            ranks[i] = sevenCardStrengths.get(CardUtils.combinationHash(cardMask));
+        }
     }
 }
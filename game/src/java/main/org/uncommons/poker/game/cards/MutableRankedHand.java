@@ -0,0 +1,127 @@
+package org.uncommons.poker.game.cards;
+
+/**
+ * A reusable holder for the result of evaluating a hand with
+ * {@link HandEvaluator#evaluate(java.util.List, MutableRankedHand)}.  A simulation can create
+ * one holder per thread and pass it to the evaluator for every hand, so that no objects are
+ * allocated in its inner loop.  Use {@link #toRankedHand()} to keep a result beyond the next
+ * evaluation.
+ *
+ * Instances are not thread-safe, but because the evaluator never modifies the list of cards,
+ * several threads may evaluate the same list at once, each into its own holder.
+ * @author Daniel Dyer
+ */
+public final class MutableRankedHand
+{
+    private final PlayingCard[] cards = new PlayingCard[RankedHand.HAND_SIZE];
+    private HandRanking ranking;
+    private int strength;
+
+    /**
+     * @return The value of the most recently evaluated hand (e.g. TWO_PAIR or FULL_HOUSE),
+     * or null if no hand has been evaluated yet.
+     */
+    public HandRanking getRanking()
+    {
+        return ranking;
+    }
+
+
+    /**
+     * @param index The position of the card in the hand, from 0 (the most significant)
+     * to 4.
+     * @return The card at that position in the most recently evaluated hand.
+     */
+    public PlayingCard getCard(int index)
+    {
+        return cards[index];
+    }
+
+
+    /**
+     * @return The strength of the most recently evaluated hand, on the same scale as the
+     * evaluator's {@code rank} method (for high hands, this is a {@link HandStrength}).
+     * Higher values are better hands.
+     */
+    public int getStrength()
+    {
+        return strength;
+    }
+
+
+    /**
+     * @param card The card to search for.
+     * @return True if the card is present in the most recently evaluated hand, false otherwise.
+     */
+    public boolean contains(PlayingCard card)
+    {
+        for (int i = 0; i < cards.length; i++)
+        {
+            if (cards[i] == card)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return An immutable copy of the most recently evaluated hand.
+     */
+    public RankedHand toRankedHand()
+    {
+        return new RankedHand(cards[0], cards[1], cards[2], cards[3], cards[4], ranking);
+    }
+
+
+    /**
+     * Replaces the contents of this holder with a high hand.
+     * @param rank The {@link HandStrength} of the hand.
+     * @param suitMasks The cards available, packed as for {@link BitMaskHandEvaluator}.
+     */
+    void setHighHand(int rank, long suitMasks)
+    {
+        set(HandStrength.getDescriptor(rank), rank, suitMasks);
+    }
+
+
+    /**
+     * Replaces the contents of this holder.
+     * @param descriptor The ranking and face values of the hand, packed as for
+     * {@link HandStrength#toRankedHand(int, long)}.
+     * @param strength The strength of the hand, on the evaluator's own scale.
+     * @param suitMasks The cards available, packed as for {@link BitMaskHandEvaluator}.
+     */
+    void set(int descriptor, int strength, long suitMasks)
+    {
+        this.ranking = HandStrength.selectCards(descriptor, suitMasks, cards);
+        this.strength = strength;
+    }
+
+
+    /**
+     * Replaces the ranking and strength of this holder, leaving the caller to fill in
+     * the cards.
+     * @return The array that holds the cards, in descending order of significance.
+     */
+    PlayingCard[] update(HandRanking ranking, int strength)
+    {
+        this.ranking = ranking;
+        this.strength = strength;
+        return cards;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder();
+        for (PlayingCard card : cards)
+        {
+            buffer.append(card);
+            buffer.append(' ');
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,229 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The result of analysing a set of community cards once so that many different sets of
+ * Omaha hole cards can be ranked against them.  In Omaha, a hand must be made from exactly
+ * two hole cards and exactly three community cards.  This class pre-computes the face values
+ * and suits of every combination of three community cards (ten combinations for a full board)
+ * so that each of a player's 5-card combinations is ranked by combining two small summaries
+ * and doing a single {@link PerfectHashHandEvaluator} table look-up, without creating or
+ * sorting any lists.  Eight-or-better low hands, for Omaha Hi/Lo, are found in the same
+ * way (see {@link #rankLow(List)}).
+ *
+ * Instances are immutable and so can be shared between threads.
+ * @author Daniel Dyer
+ */
+public final class OmahaBoardContext
+{
+    private static final int HOLE_CARDS_USED = 2;
+    private static final int BOARD_CARDS_USED = 3;
+
+    private final PlayingCard[] boardCards;
+    // The indices (into boardCards) of the cards in each combination of three board cards,
+    // packed 8 bits per card.
+    private final int[] triples;
+    private final int[] tripleRankBits;
+    private final long[] tripleRankCounts;
+    // The suit of all three cards, or -1 if they are not all of the same suit.
+    private final int[] tripleSuits;
+    // The low ranks (see EightOrBetterLowEvaluator) of the three cards, or zero if they
+    // are not three different low ranks.
+    private final int[] tripleLowBits;
+
+    /**
+     * @param boardCards Between three and five community cards, in any order.
+     */
+    public OmahaBoardContext(List<PlayingCard> boardCards)
+    {
+        if (boardCards.size() < BOARD_CARDS_USED || boardCards.size() > RankedHand.HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Board must contain between 3 and 5 cards.");
+        }
+        this.boardCards = boardCards.toArray(new PlayingCard[boardCards.size()]);
+        int count = CardUtils.choose(boardCards.size(), BOARD_CARDS_USED);
+        triples = new int[count];
+        tripleRankBits = new int[count];
+        tripleRankCounts = new long[count];
+        tripleSuits = new int[count];
+        tripleLowBits = new int[count];
+        int index = 0;
+        for (int i = 0; i < this.boardCards.length; i++)
+        {
+            for (int j = i + 1; j < this.boardCards.length; j++)
+            {
+                for (int k = j + 1; k < this.boardCards.length; k++)
+                {
+                    triples[index] = (i << 16) | (j << 8) | k;
+                    long rankCounts = 0;
+                    int suit = this.boardCards[i].getSuit().ordinal();
+                    int lowBits = 0;
+                    for (int card : new int[]{i, j, k})
+                    {
+                        int rank = this.boardCards[card].getValue().ordinal();
+                        tripleRankBits[index] |= 1 << rank;
+                        lowBits |= EightOrBetterLowEvaluator.lowBit(this.boardCards[card]);
+                        rankCounts = RankMultisetHash.add(rankCounts, rank);
+                        if (this.boardCards[card].getSuit().ordinal() != suit)
+                        {
+                            suit = -1;
+                        }
+                    }
+                    tripleRankCounts[index] = rankCounts;
+                    tripleSuits[index] = suit;
+                    tripleLowBits[index] = Integer.bitCount(lowBits) == BOARD_CARDS_USED ? lowBits : 0;
+                    ++index;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Ranks the best hand that can be made from exactly two of the hole cards and exactly
+     * three of the community cards.
+     * @param holeCards Two or more hole cards (four in standard Omaha), in any order.
+     * @return The strength of the hand, as defined by {@link HandStrength}.
+     */
+    public int rank(List<PlayingCard> holeCards)
+    {
+        return (int) (findBest(holeCards) >>> 32);
+    }
+
+
+    /**
+     * Finds the best hand that can be made from exactly two of the hole cards and exactly
+     * three of the community cards.  Callers that only need to compare hands should use
+     * {@link #rank(List)}.
+     * @param holeCards Two or more hole cards (four in standard Omaha), in any order.
+     * @return The best hand.
+     */
+    public RankedHand evaluate(List<PlayingCard> holeCards)
+    {
+        long best = findBest(holeCards);
+        int triple = triples[(int) (best >>> 16) & 0xFFFF];
+        List<PlayingCard> cards = Arrays.asList(holeCards.get((int) (best >>> 8) & 0xFF),
+                                                holeCards.get((int) best & 0xFF),
+                                                boardCards[triple >>> 16],
+                                                boardCards[(triple >>> 8) & 0xFF],
+                                                boardCards[triple & 0xFF]);
+        return HandStrength.toRankedHand((int) (best >>> 32), cards);
+    }
+
+
+    /**
+     * Ranks the best eight-or-better low hand that can be made from exactly two of the hole
+     * cards and exactly three of the community cards.
+     * @param holeCards Two or more hole cards (four in standard Omaha), in any order.
+     * @return The strength of the low hand, as defined by {@link EightOrBetterLowEvaluator},
+     * or zero if there is no qualifying low.
+     */
+    public int rankLow(List<PlayingCard> holeCards)
+    {
+        return (int) (findBestLow(holeCards) >>> 32);
+    }
+
+
+    /**
+     * Finds the best eight-or-better low hand that can be made from exactly two of the hole
+     * cards and exactly three of the community cards.
+     * @param holeCards Two or more hole cards (four in standard Omaha), in any order.
+     * @return The best low hand, or null if there is no qualifying low.
+     */
+    public RankedHand evaluateLow(List<PlayingCard> holeCards)
+    {
+        long best = findBestLow(holeCards);
+        if (best == 0)
+        {
+            return null;
+        }
+        int triple = triples[(int) (best >>> 16) & 0xFFFF];
+        List<PlayingCard> cards = Arrays.asList(holeCards.get((int) (best >>> 8) & 0xFF),
+                                                holeCards.get((int) best & 0xFF),
+                                                boardCards[triple >>> 16],
+                                                boardCards[(triple >>> 8) & 0xFF],
+                                                boardCards[triple & 0xFF]);
+        return EightOrBetterLowEvaluator.toRankedHand(EightOrBetterLowEvaluator.toLowBits(cards), cards);
+    }
+
+
+    /**
+     * @return The strength and cards of the best low hand, packed as for
+     * {@link #findBest(List)}, or zero if there is no qualifying low.
+     */
+    private long findBestLow(List<PlayingCard> holeCards)
+    {
+        if (holeCards.size() < HOLE_CARDS_USED)
+        {
+            throw new IllegalArgumentException("At least " + HOLE_CARDS_USED + " hole cards are required.");
+        }
+        long best = 0;
+        for (int i = 0; i < holeCards.size(); i++)
+        {
+            int lowBit1 = EightOrBetterLowEvaluator.lowBit(holeCards.get(i));
+            for (int j = i + 1; j < holeCards.size(); j++)
+            {
+                int lowBit2 = EightOrBetterLowEvaluator.lowBit(holeCards.get(j));
+                if (lowBit1 == 0 || lowBit2 == 0 || lowBit1 == lowBit2)
+                {
+                    continue; // This pair can't be part of a low hand.
+                }
+                int pairLowBits = lowBit1 | lowBit2;
+                for (int t = 0; t < triples.length; t++)
+                {
+                    // The five ranks must all be different.
+                    if (tripleLowBits[t] != 0 && (tripleLowBits[t] & pairLowBits) == 0)
+                    {
+                        int rank = EightOrBetterLowEvaluator.rankLow(tripleLowBits[t] | pairLowBits);
+                        if (rank > (int) (best >>> 32))
+                        {
+                            best = ((long) rank << 32) | (t << 16) | (i << 8) | j;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * @return The strength of the best hand in the top 32 bits, then the index of the
+     * combination of board cards that makes it (16 bits) and the indices of the two hole
+     * cards (8 bits each).
+     */
+    private long findBest(List<PlayingCard> holeCards)
+    {
+        if (holeCards.size() < HOLE_CARDS_USED)
+        {
+            throw new IllegalArgumentException("At least " + HOLE_CARDS_USED + " hole cards are required.");
+        }
+        long best = 0;
+        for (int i = 0; i < holeCards.size(); i++)
+        {
+            PlayingCard card1 = holeCards.get(i);
+            int rank1 = card1.getValue().ordinal();
+            for (int j = i + 1; j < holeCards.size(); j++)
+            {
+                PlayingCard card2 = holeCards.get(j);
+                int rank2 = card2.getValue().ordinal();
+                int pairRankBits = (1 << rank1) | (1 << rank2);
+                long pairRankCounts = RankMultisetHash.add(RankMultisetHash.add(0, rank1), rank2);
+                int pairSuit = card1.getSuit() == card2.getSuit() ? card1.getSuit().ordinal() : -1;
+                for (int t = 0; t < triples.length; t++)
+                {
+                    int rank = pairSuit >= 0 && tripleSuits[t] == pairSuit
+                               ? PerfectHashHandEvaluator.rankFlush(tripleRankBits[t] | pairRankBits)
+                               : PerfectHashHandEvaluator.rankWithoutFlush(tripleRankCounts[t] + pairRankCounts);
+                    if (rank > (int) (best >>> 32))
+                    {
+                        best = ((long) rank << 32) | (t << 16) | (i << 8) | j;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,389 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates the three rows of an open-face Chinese poker hand: a 3-card top row and 5-card
+ * middle and bottom rows.  The 5-card rows are ranked in exactly the same way as by
+ * {@link FiveCardHandEvaluator}, but the result is a {@link HandStrength}.  The top row can
+ * only be a high card, a pair or three of a kind.  It is ranked on its own scale from 1
+ * (4, 3, 2) to {@link #TOP_CLASS_COUNT} (three aces).
+ *
+ * A hand is fouled (and so scores nothing) unless the bottom row is at least as strong as
+ * the middle row, and the middle row is at least as strong as the top row.  When comparing
+ * the top row to the middle row, the two missing cards count as lower than any real card.
+ * So Q-Q-K on top is beaten by Q-Q-K-3-2 in the middle.
+ *
+ * A solver tries millions of placements, so every part of the evaluation is a table
+ * look-up on card ordinals, and {@link #rankAll(int[], int, int[])} and
+ * {@link #scoreAll(int[], int, int[])} work on whole batches of placements at once, without
+ * any lists.  The tables take about 50Kb.  They are shared by all instances and can safely
+ * be used by any number of threads.
+ * @author Daniel Dyer
+ */
+public class OpenFaceEvaluator
+{
+    /** The number of cards in the top row. */
+    public static final int TOP_ROW_SIZE = 3;
+    /** The number of cards in the middle and bottom rows. */
+    public static final int ROW_SIZE = RankedHand.HAND_SIZE;
+    /** The number of cards in a complete hand. */
+    public static final int PLACEMENT_SIZE = TOP_ROW_SIZE + 2 * ROW_SIZE;
+    /** The number of distinct top-row values. */
+    public static final int TOP_CLASS_COUNT = 455;
+    /** The score of a fouled hand. */
+    public static final int FOUL = -1;
+
+    private static final int RANK_COUNT = FaceValue.values().length;
+    private static final HandRanking[] RANKINGS = HandRanking.values();
+
+    // Top-row strengths indexed by the face values of the three cards (in any order), as
+    // a * 169 + b * 13 + c.
+    private static final short[] TOP_ROWS = new short[RANK_COUNT * RANK_COUNT * RANK_COUNT];
+    // For each top-row strength, the ranking and face values, packed like the descriptors
+    // of HandStrength but with no fourth and fifth cards.
+    private static final int[] TOP_DESCRIPTORS = new int[TOP_CLASS_COUNT + 1];
+    // For each top-row strength, the weakest middle row that does not foul the hand.
+    private static final short[] MIDDLE_THRESHOLDS = new short[TOP_CLASS_COUNT + 1];
+
+    // 5-card rows with five distinct ranks, indexed by rank mask.
+    private static final short[] FLUSHES = new short[1 << RANK_COUNT];
+    private static final short[] DISTINCT_RANKS = new short[1 << RANK_COUNT];
+    // 5-card rows with at least one pair, indexed by RankMultisetHash.
+    private static final short[] PAIRED = new short[RankMultisetHash.size(ROW_SIZE)];
+
+    static
+    {
+        // List the top rows from weakest to strongest: high cards, then pairs, then trips.
+        int top = 0;
+        for (int a = 2; a < RANK_COUNT; a++)
+        {
+            for (int b = 1; b < a; b++)
+            {
+                for (int c = 0; c < b; c++)
+                {
+                    addTopRow(++top, HandRanking.HIGH_CARD, a, b, c);
+                }
+            }
+        }
+        for (int pair = 0; pair < RANK_COUNT; pair++)
+        {
+            for (int kicker = 0; kicker < RANK_COUNT; kicker++)
+            {
+                if (kicker != pair)
+                {
+                    addTopRow(++top, HandRanking.PAIR, pair, pair, kicker);
+                }
+            }
+        }
+        for (int trips = 0; trips < RANK_COUNT; trips++)
+        {
+            addTopRow(++top, HandRanking.THREE_OF_A_KIND, trips, trips, trips);
+        }
+        assert top == TOP_CLASS_COUNT : "Wrong number of top rows: " + top;
+
+        // Hand strengths are in the same order as their descriptors, so the weakest middle
+        // row that beats each top row can be found by stepping through both in order.  A
+        // middle row beats a top row if its first three cards are at least as good.
+        int middle = 1;
+        for (top = 1; top <= TOP_CLASS_COUNT; top++)
+        {
+            while (HandStrength.getDescriptor(middle) >>> 8 < TOP_DESCRIPTORS[top] >>> 8)
+            {
+                ++middle;
+            }
+            MIDDLE_THRESHOLDS[top] = (short) middle;
+        }
+
+        for (int ranks = 0; ranks < FLUSHES.length; ranks++)
+        {
+            if (Integer.bitCount(ranks) == ROW_SIZE)
+            {
+                FLUSHES[ranks] = (short) BitMaskHandEvaluator.rankFlush(ranks);
+                DISTINCT_RANKS[ranks] = (short) BitMaskHandEvaluator.rankWithoutFlush(ranks, 0, 0, 0);
+            }
+        }
+        long[] allRankCounts = RankMultisetHash.allRankCounts(ROW_SIZE);
+        for (int i = 0; i < allRankCounts.length; i++)
+        {
+            PAIRED[i] = (short) RankMultisetHash.rankWithoutFlush(allRankCounts[i]);
+        }
+    }
+
+    private final int[] topRoyalties = new int[TOP_CLASS_COUNT + 1];
+    private final int[] middleRoyalties = new int[HandStrength.CLASS_COUNT + 1];
+    private final int[] bottomRoyalties = new int[HandStrength.CLASS_COUNT + 1];
+
+    /**
+     * Creates an evaluator that uses the standard royalties:
+     * <ul>
+     *   <li>Top row: 1 point for a pair of sixes, rising by 1 point per rank to 9 for a pair
+     *   of aces, and 10 points for three deuces, rising by 1 point per rank to 22 for three
+     *   aces.</li>
+     *   <li>Middle row: 2 points for three of a kind, 4 for a straight, 8 for a flush, 12 for a
+     *   full house, 20 for four of a kind, 30 for a straight flush and 50 for a royal
+     *   flush.</li>
+     *   <li>Bottom row: 2 points for a straight, 4 for a flush, 6 for a full house, 10 for four
+     *   of a kind, 15 for a straight flush and 25 for a royal flush.</li>
+     * </ul>
+     */
+    public OpenFaceEvaluator()
+    {
+        this(standardTopPairRoyalties(), standardTopTripsRoyalties(),
+             royalties(0, 0, 0, 2, 4, 8, 12, 20, 30, 50),
+             royalties(0, 0, 0, 0, 2, 4, 6, 10, 15, 25));
+    }
+
+
+    /**
+     * Creates an evaluator with custom royalties.  Hands that are not in a map score no
+     * royalty.
+     * @param topPairRoyalties The royalty for a pair in the top row, by the face value of the
+     * pair.
+     * @param topTripsRoyalties The royalty for three of a kind in the top row.
+     * @param middleRoyalties The royalty for each hand ranking in the middle row.
+     * @param bottomRoyalties The royalty for each hand ranking in the bottom row.
+     */
+    public OpenFaceEvaluator(Map<FaceValue, Integer> topPairRoyalties,
+                             Map<FaceValue, Integer> topTripsRoyalties,
+                             Map<HandRanking, Integer> middleRoyalties,
+                             Map<HandRanking, Integer> bottomRoyalties)
+    {
+        for (int top = 1; top <= TOP_CLASS_COUNT; top++)
+        {
+            FaceValue face = FaceValue.values()[(TOP_DESCRIPTORS[top] >>> 16) & 0xF];
+            switch (getTopRanking(top))
+            {
+                case PAIR : topRoyalties[top] = royalty(topPairRoyalties, face); break;
+                case THREE_OF_A_KIND : topRoyalties[top] = royalty(topTripsRoyalties, face); break;
+            }
+        }
+        for (int rank = 1; rank <= HandStrength.CLASS_COUNT; rank++)
+        {
+            HandRanking ranking = HandStrength.getRanking(rank);
+            this.middleRoyalties[rank] = royalty(middleRoyalties, ranking);
+            this.bottomRoyalties[rank] = royalty(bottomRoyalties, ranking);
+        }
+    }
+
+
+    private static void addTopRow(int top, HandRanking ranking, int a, int b, int c)
+    {
+        TOP_DESCRIPTORS[top] = (ranking.ordinal() << 20) | (a << 16) | (b << 12) | (c << 8);
+        // Fill in every order of the three cards so that they don't need to be sorted.
+        int[][] orders = {{a, b, c}, {a, c, b}, {b, a, c}, {b, c, a}, {c, a, b}, {c, b, a}};
+        for (int[] order : orders)
+        {
+            TOP_ROWS[(order[0] * RANK_COUNT + order[1]) * RANK_COUNT + order[2]] = (short) top;
+        }
+    }
+
+
+    private static Map<FaceValue, Integer> standardTopPairRoyalties()
+    {
+        Map<FaceValue, Integer> royalties = new EnumMap<FaceValue, Integer>(FaceValue.class);
+        for (FaceValue face : FaceValue.values())
+        {
+            if (face.compareTo(FaceValue.SIX) >= 0)
+            {
+                royalties.put(face, face.ordinal() - FaceValue.FIVE.ordinal());
+            }
+        }
+        return royalties;
+    }
+
+
+    private static Map<FaceValue, Integer> standardTopTripsRoyalties()
+    {
+        Map<FaceValue, Integer> royalties = new EnumMap<FaceValue, Integer>(FaceValue.class);
+        for (FaceValue face : FaceValue.values())
+        {
+            royalties.put(face, face.ordinal() + 10);
+        }
+        return royalties;
+    }
+
+
+    /**
+     * @param points The royalties for each ranking from HIGH_CARD to ROYAL_FLUSH.
+     */
+    private static Map<HandRanking, Integer> royalties(int... points)
+    {
+        Map<HandRanking, Integer> royalties = new EnumMap<HandRanking, Integer>(HandRanking.class);
+        for (int i = 0; i < points.length; i++)
+        {
+            royalties.put(RANKINGS[HandRanking.HIGH_CARD.ordinal() + i], points[i]);
+        }
+        return royalties;
+    }
+
+
+    private static <K> int royalty(Map<K, Integer> royalties, K key)
+    {
+        Integer points = royalties.get(key);
+        return points == null ? 0 : points;
+    }
+
+
+    /**
+     * @param cards The three cards of a top row, in any order.
+     * @return The strength of the row, from 1 to {@link #TOP_CLASS_COUNT}.  Higher values
+     * are better.
+     */
+    public int rankTop(List<PlayingCard> cards)
+    {
+        if (cards.size() != TOP_ROW_SIZE)
+        {
+            throw new IllegalArgumentException("Top row must contain " + TOP_ROW_SIZE + " cards.");
+        }
+        return rankTop(cards.get(0).ordinal(), cards.get(1).ordinal(), cards.get(2).ordinal());
+    }
+
+
+    /**
+     * @param cards The five cards of a middle or bottom row, in any order.
+     * @return The {@link HandStrength} of the row.
+     */
+    public int rankRow(List<PlayingCard> cards)
+    {
+        if (cards.size() != ROW_SIZE)
+        {
+            throw new IllegalArgumentException("Row must contain " + ROW_SIZE + " cards.");
+        }
+        return rankRow(cards.get(0).ordinal(),
+                       cards.get(1).ordinal(),
+                       cards.get(2).ordinal(),
+                       cards.get(3).ordinal(),
+                       cards.get(4).ordinal());
+    }
+
+
+    private static int rankTop(int card1, int card2, int card3)
+    {
+        return TOP_ROWS[((card1 >> 2) * RANK_COUNT + (card2 >> 2)) * RANK_COUNT + (card3 >> 2)];
+    }
+
+
+    private static int rankRow(int card1, int card2, int card3, int card4, int card5)
+    {
+        int ranks = (1 << (card1 >> 2)) | (1 << (card2 >> 2)) | (1 << (card3 >> 2))
+                    | (1 << (card4 >> 2)) | (1 << (card5 >> 2));
+        if (Integer.bitCount(ranks) == ROW_SIZE)
+        {
+            boolean flush = (((card1 ^ card2) | (card1 ^ card3) | (card1 ^ card4) | (card1 ^ card5)) & 3) == 0;
+            return flush ? FLUSHES[ranks] : DISTINCT_RANKS[ranks];
+        }
+        // A pair rules out both straights and flushes.
+        long rankCounts = RankMultisetHash.add(0, card1 >> 2);
+        rankCounts = RankMultisetHash.add(rankCounts, card2 >> 2);
+        rankCounts = RankMultisetHash.add(rankCounts, card3 >> 2);
+        rankCounts = RankMultisetHash.add(rankCounts, card4 >> 2);
+        rankCounts = RankMultisetHash.add(rankCounts, card5 >> 2);
+        return PAIRED[RankMultisetHash.index(rankCounts, ROW_SIZE)];
+    }
+
+
+    /**
+     * @param top The strength of a top row, as returned by {@link #rankTop(List)}.
+     * @return HIGH_CARD, PAIR or THREE_OF_A_KIND.
+     */
+    public static HandRanking getTopRanking(int top)
+    {
+        return RANKINGS[TOP_DESCRIPTORS[top] >>> 20];
+    }
+
+
+    /**
+     * @param top The strength of the top row, as returned by {@link #rankTop(List)}.
+     * @param middle The {@link HandStrength} of the middle row.
+     * @param bottom The {@link HandStrength} of the bottom row.
+     * @return True if the rows are not in order of strength, so the hand is fouled.
+     */
+    public static boolean isFoul(int top, int middle, int bottom)
+    {
+        return bottom < middle || middle < MIDDLE_THRESHOLDS[top];
+    }
+
+
+    /**
+     * @param top The strength of the top row, as returned by {@link #rankTop(List)}.
+     * @param middle The {@link HandStrength} of the middle row.
+     * @param bottom The {@link HandStrength} of the bottom row.
+     * @return The total royalties for the three rows, or {@link #FOUL} if the hand is fouled.
+     */
+    public int getRoyalties(int top, int middle, int bottom)
+    {
+        return isFoul(top, middle, bottom)
+               ? FOUL
+               : topRoyalties[top] + middleRoyalties[middle] + bottomRoyalties[bottom];
+    }
+
+
+    /**
+     * @param top The three cards of the top row.
+     * @param middle The five cards of the middle row.
+     * @param bottom The five cards of the bottom row.
+     * @return The total royalties for the three rows, or {@link #FOUL} if the hand is fouled.
+     */
+    public int score(List<PlayingCard> top, List<PlayingCard> middle, List<PlayingCard> bottom)
+    {
+        return getRoyalties(rankTop(top), rankRow(middle), rankRow(bottom));
+    }
+
+
+    /**
+     * Ranks the rows of a batch of complete hands.
+     * @param cards The ordinals (see {@link PlayingCard#ordinal()}) of the cards of all of
+     * the hands.  Hand {@code i} is made up of the {@link #PLACEMENT_SIZE} elements starting
+     * at index {@code i * PLACEMENT_SIZE}: first the top row, then the middle row, then the
+     * bottom row.  The cards within each row may be in any order.
+     * @param handCount The number of hands to rank.
+     * @param ranks The array that the strengths of the top, middle and bottom rows of each
+     * hand are written to, so hand {@code i} fills the three elements starting at index
+     * {@code i * 3}.
+     */
+    public void rankAll(int[] cards, int handCount, int[] ranks)
+    {
+        int index = 0;
+        for (int i = 0; i < handCount; i++, index += PLACEMENT_SIZE)
+        {
+            ranks[i * 3] = rankTop(cards[index], cards[index + 1], cards[index + 2]);
+            ranks[i * 3 + 1] = rankRow(cards[index + 3], cards[index + 4], cards[index + 5],
+                                       cards[index + 6], cards[index + 7]);
+            ranks[i * 3 + 2] = rankRow(cards[index + 8], cards[index + 9], cards[index + 10],
+                                       cards[index + 11], cards[index + 12]);
+        }
+    }
+
+
+    /**
+     * Scores a batch of complete hands.
+     * @param cards The ordinals of the cards of all of the hands, laid out as for
+     * {@link #rankAll(int[], int, int[])}.
+     * @param handCount The number of hands to score.
+     * @param scores The array that the total royalties of each hand, or {@link #FOUL}, are
+     * written to.  Must have at least {@code handCount} elements.
+     */
+    public void scoreAll(int[] cards, int handCount, int[] scores)
+    {
+        int index = 0;
+        for (int i = 0; i < handCount; i++, index += PLACEMENT_SIZE)
+        {
+            int bottom = rankRow(cards[index + 8], cards[index + 9], cards[index + 10],
+                                 cards[index + 11], cards[index + 12]);
+            int middle = rankRow(cards[index + 3], cards[index + 4], cards[index + 5],
+                                 cards[index + 6], cards[index + 7]);
+            if (bottom < middle)
+            {
+                // Fouled, so there is no need to rank the top row.
+                scores[i] = FOUL;
+            }
+            else
+            {
+                scores[i] = getRoyalties(rankTop(cards[index], cards[index + 1], cards[index + 2]), middle, bottom);
+            }
+        }
+    }
+}
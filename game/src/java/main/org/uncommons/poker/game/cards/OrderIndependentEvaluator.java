@@ -0,0 +1,13 @@
+package org.uncommons.poker.game.cards;
+
+/**
+ * Marker interface for {@link HandEvaluator} implementations that accept cards in any order.
+ * Callers can check for this interface and skip sorting the cards before evaluating them
+ * (most evaluators require the cards to be in descending order of face value).  The list
+ * passed to such an evaluator is never modified.
+ * @author Daniel Dyer
+ */
+public interface OrderIndependentEvaluator
+{
+    // Marker interface.
+}
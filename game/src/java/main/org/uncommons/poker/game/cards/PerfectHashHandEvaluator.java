@@ -0,0 +1,163 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+
+/**
+ * A {@link HandEvaluator} for exactly five cards that uses two small tables indexed by
+ * perfect hashes of the cards' face values.  If all five cards are of the same suit, the
+ * hand is looked up in a table indexed by its 13-bit rank mask.  Otherwise it is looked up
+ * in a table indexed by the {@link RankMultisetHash} of its face values.  The two tables
+ * have 8,192 and 6,175 entries respectively, a total of less than 30Kb, so they stay in
+ * the processor's cache even when many hands are evaluated.
+ *
+ * The cards may be in any order.  Hands are ordered in the same way as by
+ * {@link FiveCardHandEvaluator}, but there is no sorting or copying of lists, which makes
+ * this evaluator particularly suitable for games, such as Omaha, in which many different
+ * 5-card combinations must be evaluated for each player.
+ * @author Daniel Dyer
+ */
+public class PerfectHashHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
+{
+    private static final short[] FLUSHES = new short[1 << FaceValue.values().length];
+    private static final short[] NON_FLUSHES = new short[RankMultisetHash.size(RankedHand.HAND_SIZE)];
+    static
+    {
+        for (int ranks = 0; ranks < FLUSHES.length; ranks++)
+        {
+            if (Integer.bitCount(ranks) == RankedHand.HAND_SIZE)
+            {
+                // All in the same suit (the first lane).
+                FLUSHES[ranks] = (short) BitMaskHandEvaluator.rank(ranks);
+            }
+        }
+        long[] allRankCounts = RankMultisetHash.allRankCounts(RankedHand.HAND_SIZE);
+        for (int i = 0; i < allRankCounts.length; i++)
+        {
+            NON_FLUSHES[i] = (short) RankMultisetHash.rankWithoutFlush(allRankCounts[i]);
+        }
+    }
+
+
+    /**
+     * @param rankBits The ranks of five cards of the same suit.
+     * @return The strength of the flush (or straight flush).
+     */
+    static int rankFlush(int rankBits)
+    {
+        return FLUSHES[rankBits];
+    }
+
+
+    /**
+     * @param rankCounts The rank counts, packed as for {@link RankMultisetHash}, of five
+     * cards that are not all of the same suit.
+     * @return The strength of the hand.
+     */
+    static int rankWithoutFlush(long rankCounts)
+    {
+        return NON_FLUSHES[RankMultisetHash.index(rankCounts, RankedHand.HAND_SIZE)];
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five cards in any order.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(rank(cards), cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        result.setHighHand(rank(cards), BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() != RankedHand.HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain " + RankedHand.HAND_SIZE + " cards.");
+        }
+        return rank(cards.get(0), cards.get(1), cards.get(2), cards.get(3), cards.get(4));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return HandStrength.getRanking(rank(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param handSize Must be five.
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        if (handSize != RankedHand.HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand size must be " + RankedHand.HAND_SIZE + ".");
+        }
+        int index = 0;
+        for (int i = 0; i < handCount; i++)
+        {
+            int suits = 0;
+            int rankBits = 0;
+            long rankCounts = 0;
+            for (int j = 0; j < RankedHand.HAND_SIZE; j++)
+            {
+                int card = cards[index++];
+                suits |= 1 << (card & 3);
+                rankBits |= 1 << (card >> 2);
+                rankCounts = RankMultisetHash.add(rankCounts, card >> 2);
+            }
+            // A single suit means a flush.
+            ranks[i] = Integer.bitCount(suits) == 1 ? FLUSHES[rankBits]
+                                                     : NON_FLUSHES[RankMultisetHash.index(rankCounts, RankedHand.HAND_SIZE)];
+        }
+    }
+
+
+    /**
+     * Ranks five cards without requiring them to be put into a list.
+     * @return The strength of the hand, as defined by {@link HandStrength}.
+     */
+    public int rank(PlayingCard card1,
+                    PlayingCard card2,
+                    PlayingCard card3,
+                    PlayingCard card4,
+                    PlayingCard card5)
+    {
+        int rank1 = card1.getValue().ordinal();
+        int rank2 = card2.getValue().ordinal();
+        int rank3 = card3.getValue().ordinal();
+        int rank4 = card4.getValue().ordinal();
+        int rank5 = card5.getValue().ordinal();
+        Suit suit = card1.getSuit();
+        if (card2.getSuit() == suit && card3.getSuit() == suit && card4.getSuit() == suit && card5.getSuit() == suit)
+        {
+            return FLUSHES[(1 << rank1) | (1 << rank2) | (1 << rank3) | (1 << rank4) | (1 << rank5)];
+        }
+        long rankCounts = RankMultisetHash.add(0, rank1);
+        rankCounts = RankMultisetHash.add(rankCounts, rank2);
+        rankCounts = RankMultisetHash.add(rankCounts, rank3);
+        rankCounts = RankMultisetHash.add(rankCounts, rank4);
+        rankCounts = RankMultisetHash.add(rankCounts, rank5);
+        return NON_FLUSHES[RankMultisetHash.index(rankCounts, RankedHand.HAND_SIZE)];
+    }
+}
@@ -0,0 +1,156 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+
+/**
+ * A table-driven {@link HandEvaluator} for 5, 6 or 7 cards whose tables are small enough
+ * to stay in the processor's cache.  It works in the same way as
+ * {@link PerfectHashHandEvaluator}, but for bigger hands.  With no more than seven cards, a
+ * hand that contains a flush cannot contain anything better except a straight flush, so:
+ * <ul>
+ *   <li>If five or more of the cards are of the same suit, the hand is looked up in a table
+ *   of 8,192 entries indexed by the 13-bit rank mask of that suit.</li>
+ *   <li>Otherwise suits are irrelevant and the hand is looked up in a table indexed by the
+ *   {@link RankMultisetHash} of its face values.  For 7-card hands, this has just 49,205
+ *   entries.</li>
+ * </ul>
+ * All of the tables together take less than 200Kb, compared to the 270Mb of
+ * {@link LookupHandEvaluator}.  They are built in a few milliseconds when the class is
+ * loaded and, because they are shared and read-only, any number of threads can use them
+ * without competing for memory bandwidth.
+ *
+ * The cards may be in any order.
+ * @author Daniel Dyer
+ */
+public class RankMultisetHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
+{
+    private static final short[] FLUSHES = new short[1 << FaceValue.values().length];
+    // NON_FLUSHES[n] is the table for n-card hands.
+    private static final short[][] NON_FLUSHES = new short[RankMultisetHash.MAX_CARDS + 1][];
+    static
+    {
+        for (int ranks = 0; ranks < FLUSHES.length; ranks++)
+        {
+            if (Integer.bitCount(ranks) >= RankedHand.HAND_SIZE)
+            {
+                FLUSHES[ranks] = (short) BitMaskHandEvaluator.rankFlush(ranks);
+            }
+        }
+        for (int cards = RankedHand.HAND_SIZE; cards <= RankMultisetHash.MAX_CARDS; cards++)
+        {
+            long[] allRankCounts = RankMultisetHash.allRankCounts(cards);
+            NON_FLUSHES[cards] = new short[allRankCounts.length];
+            for (int i = 0; i < allRankCounts.length; i++)
+            {
+                NON_FLUSHES[cards][i] = (short) RankMultisetHash.rankWithoutFlush(allRankCounts[i]);
+            }
+        }
+    }
+
+    // Added to a set of four 4-bit suit counts, sets the top bit of any count of 5 or more.
+    private static final int FLUSH_CARRY = 0x3333;
+    private static final int FLUSH_BITS = 0x8888;
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(rank(cards), cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        result.setHighHand(rank(cards), BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        int handSize = cards.size();
+        if (handSize < RankedHand.HAND_SIZE || handSize > RankMultisetHash.MAX_CARDS)
+        {
+            throw new IllegalArgumentException("Hand must contain 5, 6 or 7 cards.");
+        }
+        long suitMasks = 0;
+        long rankCounts = 0;
+        int suitCounts = 0;
+        for (int i = 0; i < handSize; i++)
+        {
+            int card = cards.get(i).ordinal();
+            suitMasks |= BitMaskHandEvaluator.bit(card);
+            rankCounts = RankMultisetHash.add(rankCounts, card >> 2);
+            suitCounts += 1 << ((card & 3) << 2);
+        }
+        return rank(suitMasks, rankCounts, suitCounts, handSize);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return HandStrength.getRanking(rank(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param handSize Five, six or seven.
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        if (handSize < RankedHand.HAND_SIZE || handSize > RankMultisetHash.MAX_CARDS)
+        {
+            throw new IllegalArgumentException("Hand size must be 5, 6 or 7.");
+        }
+        int index = 0;
+        for (int i = 0; i < handCount; i++)
+        {
+            long suitMasks = 0;
+            long rankCounts = 0;
+            int suitCounts = 0;
+            for (int j = 0; j < handSize; j++)
+            {
+                int card = cards[index++];
+                suitMasks |= BitMaskHandEvaluator.bit(card);
+                rankCounts = RankMultisetHash.add(rankCounts, card >> 2);
+                suitCounts += 1 << ((card & 3) << 2);
+            }
+            ranks[i] = rank(suitMasks, rankCounts, suitCounts, handSize);
+        }
+    }
+
+
+    /**
+     * @param suitMasks The cards, packed as for {@link BitMaskHandEvaluator}.
+     * @param rankCounts The number of cards of each rank, packed as for {@link RankMultisetHash}.
+     * @param suitCounts The number of cards of each suit, packed 4 bits per suit.
+     * @param handSize The number of cards.
+     */
+    private static int rank(long suitMasks, long rankCounts, int suitCounts, int handSize)
+    {
+        int flushBits = (suitCounts + FLUSH_CARRY) & FLUSH_BITS;
+        if (flushBits != 0)
+        {
+            // There can only be one flush suit in seven cards.
+            int flushSuit = Integer.numberOfTrailingZeros(flushBits) >> 2;
+            int flushRanks = BitMaskHandEvaluator.lane(suitMasks, flushSuit);
+            return FLUSHES[flushRanks];
+        }
+        return NON_FLUSHES[handSize][RankMultisetHash.index(rankCounts, handSize)];
+    }
+}
@@ -0,0 +1,239 @@
+package org.uncommons.poker.game.cards;
+
+/**
+ * A minimal perfect hash for the face values of a hand, ignoring suits.  The face values
+ * are given as the number of cards of each rank, packed 3 bits per rank
+ * (see {@link #add(long, int)}), and every possible combination of counts for a given
+ * number of cards maps to a distinct index in the range 0 to {@link #size(int)} - 1.
+ * So a table indexed by this hash has no gaps (e.g. 6,175 entries for 5-card hands,
+ * 49,205 for 7-card hands).
+ *
+ * The index of a combination is its position when all combinations are listed in
+ * order of the number of aces, then kings, and so on down to deuces.  It is calculated by
+ * adding up, for each rank, how many combinations come before it because they have fewer
+ * cards of that rank.
+ * @author Daniel Dyer
+ */
+final class RankMultisetHash
+{
+    static final int MAX_CARDS = 7;
+    static final int BITS_PER_RANK = 3;
+
+    private static final int RANK_COUNT = FaceValue.values().length;
+    private static final int SUIT_COUNT = Suit.values().length;
+
+    /**
+     * OFFSETS[cards][rank][count] is the number of combinations of {@code cards} cards,
+     * all of rank {@code rank} or lower, that have fewer than {@code count} cards of
+     * rank {@code rank}.
+     */
+    private static final int[][][] OFFSETS = new int[MAX_CARDS + 1][RANK_COUNT][SUIT_COUNT + 1];
+    static
+    {
+        for (int cards = 0; cards <= MAX_CARDS; cards++)
+        {
+            for (int rank = 0; rank < RANK_COUNT; rank++)
+            {
+                for (int count = 1; count <= SUIT_COUNT; count++)
+                {
+                    // The lower ranks must make up the rest of the cards.
+                    OFFSETS[cards][rank][count] = OFFSETS[cards][rank][count - 1]
+                                                  + combinations(rank, cards - (count - 1));
+                }
+            }
+        }
+    }
+
+    private RankMultisetHash()
+    {
+        // Prevents instantiation of utility class.
+    }
+
+
+    /**
+     * @return The number of ways that {@code cards} cards can be made from the lowest
+     * {@code ranks} ranks (with at most four of each).
+     */
+    private static int combinations(int ranks, int cards)
+    {
+        if (cards < 0)
+        {
+            return 0;
+        }
+        if (ranks == 0)
+        {
+            return cards == 0 ? 1 : 0;
+        }
+        int total = 0;
+        for (int count = 0; count <= Math.min(SUIT_COUNT, cards); count++)
+        {
+            total += combinations(ranks - 1, cards - count);
+        }
+        return total;
+    }
+
+
+    /**
+     * @param cards The number of cards in each hand.
+     * @return The number of distinct hash values for hands of that size.
+     */
+    static int size(int cards)
+    {
+        return combinations(RANK_COUNT, cards);
+    }
+
+
+    /**
+     * @param cards The number of cards in each hand.
+     * @return The rank counts of every possible hand of that size, such that element
+     * {@code i} is the hand whose index is {@code i}.
+     */
+    static long[] allRankCounts(int cards)
+    {
+        long[] all = new long[size(cards)];
+        addRankCounts(all, RANK_COUNT - 1, cards, 0, cards);
+        return all;
+    }
+
+
+    /**
+     * Fills in the counts of every possible hand, one rank at a time.
+     * @param rank The highest rank that has not yet been assigned a number of cards.
+     * @param remaining The number of cards still to be assigned.
+     * @param rankCounts The counts assigned so far.
+     */
+    private static void addRankCounts(long[] all, int rank, int remaining, long rankCounts, int cards)
+    {
+        if (rank < 0)
+        {
+            if (remaining == 0)
+            {
+                all[index(rankCounts, cards)] = rankCounts;
+            }
+            return;
+        }
+        long counts = rankCounts;
+        for (int count = 0; count <= Math.min(remaining, SUIT_COUNT); count++)
+        {
+            addRankCounts(all, rank - 1, remaining - count, counts, cards);
+            counts = add(counts, rank);
+        }
+    }
+
+
+    /**
+     * Adds one card of the specified rank to packed rank counts.
+     * @param rankCounts The number of cards of each rank, 3 bits per rank.
+     * @param rank The ordinal of the face value of the card.
+     * @return The updated counts.
+     */
+    static long add(long rankCounts, int rank)
+    {
+        return rankCounts + (1L << (rank * BITS_PER_RANK));
+    }
+
+
+    /**
+     * @param rankCounts The number of cards of each rank, 3 bits per rank.
+     * @param rank The ordinal of a face value.
+     * @return The number of cards of that rank.
+     */
+    static int count(long rankCounts, int rank)
+    {
+        return (int) (rankCounts >>> (rank * BITS_PER_RANK)) & 7;
+    }
+
+
+    /**
+     * Ranks a hand that is known not to contain a flush.
+     * @param rankCounts The number of cards of each rank, 3 bits per rank.
+     * @return The strength of the hand, as defined by {@link HandStrength}.
+     */
+    static int rankWithoutFlush(long rankCounts)
+    {
+        // Masks of the ranks of which there are at least 1, 2, 3 and 4 cards.
+        int[] atLeast = new int[SUIT_COUNT + 1];
+        for (int rank = 0; rank < RANK_COUNT; rank++)
+        {
+            for (int count = 1; count <= count(rankCounts, rank); count++)
+            {
+                atLeast[count] |= 1 << rank;
+            }
+        }
+        return BitMaskHandEvaluator.rankWithoutFlush(atLeast[1], atLeast[2], atLeast[3], atLeast[4]);
+    }
+
+
+    /**
+     * Describes a 5-card hand by its groups of same-rank cards, ignoring straights and
+     * flushes.
+     * @param rankCounts The number of cards of each rank, 3 bits per rank (5 in total).
+     * @param acesLow Whether aces rank below deuces, which affects only the order in which
+     * the face values are listed.
+     * @return The ranking of the hand (HIGH_CARD, PAIR, TWO_PAIR, THREE_OF_A_KIND, FULL_HOUSE
+     * or FOUR_OF_A_KIND) and the face values of its cards in order of significance (biggest
+     * group first, then highest rank first), packed 4 bits per card with the ranking above
+     * them, as for {@link HandStrength#toRankedHand(int, long)}.
+     */
+    static int describeGroups(long rankCounts, boolean acesLow)
+    {
+        int faces = 0;
+        int largestGroup = 0;
+        int secondGroup = 0;
+        for (int count = SUIT_COUNT; count > 0; count--)
+        {
+            for (int i = RANK_COUNT - 1; i >= 0; i--)
+            {
+                // With aces low, the ace comes after the deuce rather than before the king.
+                int rank = acesLow ? (i + RANK_COUNT - 1) % RANK_COUNT : i;
+                if (count(rankCounts, rank) == count)
+                {
+                    for (int j = 0; j < count; j++)
+                    {
+                        faces = (faces << 4) | rank;
+                    }
+                    if (largestGroup == 0)
+                    {
+                        largestGroup = count;
+                    }
+                    else if (secondGroup == 0)
+                    {
+                        secondGroup = count;
+                    }
+                }
+            }
+        }
+        return (groupRanking(largestGroup, secondGroup).ordinal() << 20) | faces;
+    }
+
+
+    private static HandRanking groupRanking(int largestGroup, int secondGroup)
+    {
+        switch (largestGroup)
+        {
+            case 4 : return HandRanking.FOUR_OF_A_KIND;
+            case 3 : return secondGroup == 2 ? HandRanking.FULL_HOUSE : HandRanking.THREE_OF_A_KIND;
+            case 2 : return secondGroup == 2 ? HandRanking.TWO_PAIR : HandRanking.PAIR;
+            default : return HandRanking.HIGH_CARD;
+        }
+    }
+
+
+    /**
+     * @param rankCounts The number of cards of each rank, 3 bits per rank.
+     * @param cards The total number of cards (the sum of the counts).
+     * @return A unique index in the range 0 to {@code size(cards) - 1}.
+     */
+    static int index(long rankCounts, int cards)
+    {
+        int index = 0;
+        int remaining = cards;
+        for (int rank = RANK_COUNT - 1; remaining > 0; rank--)
+        {
+            int count = count(rankCounts, rank);
+            index += OFFSETS[remaining][rank][count];
+            remaining -= count;
+        }
+        return index;
+    }
+}
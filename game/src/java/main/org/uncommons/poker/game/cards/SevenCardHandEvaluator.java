@@ -11,9 +11,9 @@ import org.uncommons.util.ListUtils;
  * cards (9 cards in total) and has restrictions on how cards may be combined to make a 5-card
  * hand.
  *
- * <i>For Omaha, first generate all valid 5-card combinations and then use
- * {@link FiveCardHandEvaluator}.  The same approach could also be used for Hold'em and
- * Stud but a 7-card evaluator is faster.</i>
+ * <i>For Omaha, use {@link org.uncommons.poker.game.rules.Omaha} or
+ * {@link OmahaBoardContext}, which rank all valid 5-card combinations without needing
+ * to generate them as lists.</i>
  *
  * @author Daniel Dyer
  */
@@ -35,6 +35,30 @@ public class SevenCardHandEvaluator implements HandEvaluator
     }
 
 
+    /**
+     * {@inheritDoc}
+     * Unlike {@link #evaluate(List)}, this does not filter or re-order the cards, so they may
+     * be in any order.  The hand is ranked by {@link BitMaskHandEvaluator}, which chooses
+     * the same cards.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        long suitMasks = BitMaskHandEvaluator.toSuitMasks(cards);
+        result.setHighHand(BitMaskHandEvaluator.rank(suitMasks), suitMasks);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * Unlike {@link #evaluate(List)}, this does not need to filter or re-order the cards,
+     * so they may be in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return BitMaskHandEvaluator.getRanking(BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
     /**
      * Check for hand types that are constructed from groups (pairs, trips, quads)
      * of same rank cards.
@@ -73,6 +97,20 @@ public class SevenCardHandEvaluator implements HandEvaluator
         biggestGroup = Math.max(biggestGroup, runLength);
         // Map the number of pairs to a hand ranking.
         HandRanking handRanking = mapPairsToRanking(pairs, biggestGroup);
+        if (handRanking == HandRanking.FOUR_OF_A_KIND)
+        {
+            // A pair that was moved up behind the quads may have pushed a higher card
+            // out of the kicker position.
+            int kicker = RankedHand.HAND_SIZE - 1;
+            for (int i = kicker + 1; i < cards.size(); i++)
+            {
+                if (cards.get(i).getValue().compareTo(cards.get(kicker).getValue()) > 0)
+                {
+                    kicker = i;
+                }
+            }
+            ListUtils.shiftLeft(cards, kicker, 1, kicker - (RankedHand.HAND_SIZE - 1));
+        }
         return new RankedHand(cards.get(0),
                               cards.get(1),
                               cards.get(2),
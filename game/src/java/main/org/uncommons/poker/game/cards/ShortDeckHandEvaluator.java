@@ -0,0 +1,412 @@
+package org.uncommons.poker.game.cards;
+
+import java.nio.ShortBuffer;
+import java.util.BitSet;
+import java.util.List;
+import org.uncommons.util.ConsoleProgressDisplay;
+
+/**
+ * Evaluates hands for short-deck (6-plus) Hold'em, which is played with the 36-card deck
+ * returned by {@link Deck#createShortDeck(java.util.Random)}.  With the twos to fives
+ * removed, two of the usual rules change: A-9-8-7-6 is a straight (the ace plays low, in
+ * place of the five), and a flush beats a full house because it is now the rarer hand.
+ *
+ * The strengths returned by {@link #rank(List)} are therefore not the same as those of
+ * {@link HandStrength}.  There are only {@link #CLASS_COUNT} distinct short-deck hand
+ * values, numbered from 1 (J, 9, 8, 7, 6 of mixed suits) to {@link #CLASS_COUNT} (a royal
+ * flush).  {@link RankedHand#compareTo(RankedHand)} uses the standard order of hand
+ * rankings, so short-deck hands should be compared by their strengths.
+ *
+ * Seven-card hands are ranked with a look-up table that has one 16-bit entry for each of the
+ * 8,347,680 combinations of 7 cards from the short deck.  This is indexed in the same way as
+ * the table used by {@link LookupHandEvaluator}, but with card ordinals re-numbered from the
+ * lowest card of the short deck, so it is a sixteenth of the size (about 16Mb rather than
+ * 270Mb) and takes a fraction of the time to generate.  Like the bigger table, it can be
+ * kept {@link TableStorage#OFF_HEAP off-heap}.  Hands of 5 or 6 cards are ranked directly.
+ * @author Daniel Dyer
+ */
+public class ShortDeckHandEvaluator implements HandEvaluator, OrderIndependentEvaluator
+{
+    /** The number of distinct short-deck hand values. */
+    public static final int CLASS_COUNT = 1404;
+
+    private static final int DECK_SIZE = 36;
+    // The ordinal of the six of clubs, which is the lowest card in the short deck.
+    private static final int LOWEST_CARD = FaceValue.SIX.ordinal() * 4;
+    private static final int SEVEN_CARD_COMBINATIONS = 8347680;
+
+    // A, 9, 8, 7, 6 - the only straight that can't be found by shifting.
+    private static final int WHEEL = (1 << FaceValue.ACE.ordinal()) | (0xF << FaceValue.SIX.ordinal());
+
+    private static final HandRanking[] RANKINGS = HandRanking.values();
+
+    // The position of each ranking in the short-deck order (flushes and full houses swap).
+    private static final int[] ORDER = new int[RANKINGS.length];
+
+    // The sort keys (see sortKey) of every distinct hand value, weakest first.
+    private static final int[] SORT_KEYS = new int[CLASS_COUNT];
+
+    // For each strength, the ranking and face values of the hand, packed in the format
+    // used by HandStrength.toRankedHand(int, long).
+    private static final int[] DESCRIPTORS = new int[CLASS_COUNT + 1];
+
+    static
+    {
+        for (HandRanking ranking : RANKINGS)
+        {
+            ORDER[ranking.ordinal()] = ranking.ordinal();
+        }
+        ORDER[HandRanking.FLUSH.ordinal()] = HandRanking.FULL_HOUSE.ordinal();
+        ORDER[HandRanking.FULL_HOUSE.ordinal()] = HandRanking.FLUSH.ordinal();
+
+        // Every value occurs among the 5-card hands.  Marking their sort keys in a bit set
+        // and then reading the bits back in order sorts them and eliminates duplicates.
+        BitSet sortKeys = new BitSet();
+        for (int c4 = 4; c4 < DECK_SIZE; c4++)
+        {
+            for (int c3 = 3; c3 < c4; c3++)
+            {
+                for (int c2 = 2; c2 < c3; c2++)
+                {
+                    for (int c1 = 1; c1 < c2; c1++)
+                    {
+                        for (int c0 = 0; c0 < c1; c0++)
+                        {
+                            sortKeys.set(sortKey(describe(toSuitMasks(c4, c3, c2, c1, c0))));
+                        }
+                    }
+                }
+            }
+        }
+        if (sortKeys.cardinality() != CLASS_COUNT)
+        {
+            throw new IllegalStateException("Expected " + CLASS_COUNT + " hand values, found "
+                                            + sortKeys.cardinality());
+        }
+        int strength = 0;
+        for (int key = sortKeys.nextSetBit(0); key >= 0; key = sortKeys.nextSetBit(key + 1))
+        {
+            SORT_KEYS[strength++] = key;
+            DESCRIPTORS[strength] = unsortKey(key);
+        }
+    }
+
+
+    private final ShortBuffer sevenCardStrengths;
+
+    /**
+     * Creates an evaluator that generates its table on the heap.
+     */
+    public ShortDeckHandEvaluator()
+    {
+        this(TableStorage.HEAP);
+    }
+
+
+    /**
+     * @param storage Where to keep the generated table.
+     */
+    public ShortDeckHandEvaluator(TableStorage storage)
+    {
+        sevenCardStrengths = generateSevenCardStrengths(storage);
+    }
+
+
+    /**
+     * Generates the strength of every 7-card short-deck hand, indexed by the
+     * {@link CardUtils#combinationHash(long) hash value} of the cards' re-numbered ordinals.
+     */
+    private static ShortBuffer generateSevenCardStrengths(TableStorage storage)
+    {
+        ConsoleProgressDisplay console = new ConsoleProgressDisplay();
+        console.start("Generating short-deck hand strengths...");
+        console.update(0);
+
+        ShortBuffer strengths = storage.allocateShorts(SEVEN_CARD_COMBINATIONS);
+        int index = 0;
+        // Cards are in ascending order, c0 < c1 < ... < c6, which is the order of their hashes.
+        for (int c6 = 6; c6 < DECK_SIZE; c6++)
+        {
+            for (int c5 = 5; c5 < c6; c5++)
+            {
+                for (int c4 = 4; c4 < c5; c4++)
+                {
+                    for (int c3 = 3; c3 < c4; c3++)
+                    {
+                        for (int c2 = 2; c2 < c3; c2++)
+                        {
+                            long suitMasks = toSuitMasks(c6, c5, c4, c3, c2);
+                            for (int c1 = 1; c1 < c2; c1++)
+                            {
+                                for (int c0 = 0; c0 < c1; c0++)
+                                {
+                                    long hand = suitMasks | toSuitMasks(c1, c0);
+                                    strengths.put(index++, (short) strength(describe(hand)));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            console.update((int) ((long) index * 100 / SEVEN_CARD_COMBINATIONS));
+        }
+        console.finish(true);
+        return strengths;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards from the short deck, in any order.
+     * @return A ranked 5-card hand.  Its ranking uses the standard {@link HandRanking}
+     * constants, but a short-deck hand's value should be determined from its strength
+     * (see {@link #rank(List)}) rather than from its ranking.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(DESCRIPTORS[rank(cards)], BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards from the short deck, in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        int rank = rank(cards);
+        result.set(DESCRIPTORS[rank], rank, BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * @param cards Five, six or seven cards from the short deck, in any order.
+     * @return The strength of the best 5-card short-deck hand that can be made from the
+     * cards, in the range 1 - {@link #CLASS_COUNT}.  Higher values are better hands.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() < RankedHand.HAND_SIZE || cards.size() > 7)
+        {
+            throw new IllegalArgumentException("Hand must contain 5, 6 or 7 cards.");
+        }
+        long cardMask = CardUtils.toCardMask(cards);
+        if ((cardMask & ((1L << LOWEST_CARD) - 1)) != 0)
+        {
+            throw new IllegalArgumentException("Short-deck hands cannot contain cards lower than six.");
+        }
+        if (cards.size() == 7)
+        {
+            return sevenCardStrengths.get(CardUtils.combinationHash(cardMask >>> LOWEST_CARD));
+        }
+        return strength(describe(BitMaskHandEvaluator.toSuitMasks(cards)));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards from the short deck, in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return getRanking(rank(cards));
+    }
+
+
+    /**
+     * @param rank A short-deck hand strength in the range 1 - {@link #CLASS_COUNT}.
+     * @return The ranking (e.g. FLUSH or TWO_PAIR) of hands with this strength.
+     */
+    public static HandRanking getRanking(int rank)
+    {
+        return RANKINGS[DESCRIPTORS[rank] >>> 20];
+    }
+
+
+    /**
+     * Converts short-deck cards, identified by their positions in the short deck, into
+     * packed suit masks (see {@link BitMaskHandEvaluator}).
+     */
+    private static long toSuitMasks(int... shortDeckCards)
+    {
+        long suitMasks = 0;
+        for (int card : shortDeckCards)
+        {
+            suitMasks |= BitMaskHandEvaluator.bit(card + LOWEST_CARD);
+        }
+        return suitMasks;
+    }
+
+
+    private static int strength(int descriptor)
+    {
+        int low = 0;
+        int high = SORT_KEYS.length - 1;
+        int key = sortKey(descriptor);
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (SORT_KEYS[middle] < key)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low + 1;
+    }
+
+
+    /**
+     * Finds the best short-deck hand that can be made from 5 to 7 cards.
+     * @return The ranking and the face values of the hand's cards, in order of significance,
+     * packed 4 bits per card with the ranking above them.
+     */
+    static int describe(long suitMasks)
+    {
+        // With no more than 7 cards, a flush rules out four-of-a-kind and full houses, so
+        // if there is a flush then it (or a straight flush) is the best hand available.
+        int flushSuit = BitMaskHandEvaluator.flushSuit(suitMasks);
+        if (flushSuit >= 0)
+        {
+            int suitRanks = BitMaskHandEvaluator.lane(suitMasks, flushSuit);
+            int straightHigh = straightHigh(suitRanks);
+            if (straightHigh >= 0)
+            {
+                return straight(straightHigh == FaceValue.ACE.ordinal() ? HandRanking.ROYAL_FLUSH
+                                                                        : HandRanking.STRAIGHT_FLUSH,
+                                straightHigh);
+            }
+            return faces(HandRanking.FLUSH.ordinal(), BitMaskHandEvaluator.keepHighest(suitRanks, RankedHand.HAND_SIZE));
+        }
+
+        int clubs = BitMaskHandEvaluator.lane(suitMasks, Suit.CLUBS.ordinal());
+        int diamonds = BitMaskHandEvaluator.lane(suitMasks, Suit.DIAMONDS.ordinal());
+        int hearts = BitMaskHandEvaluator.lane(suitMasks, Suit.HEARTS.ordinal());
+        int spades = BitMaskHandEvaluator.lane(suitMasks, Suit.SPADES.ordinal());
+        // Ranks that occur at least once, twice, three times and four times respectively.
+        int ones = clubs | diamonds | hearts | spades;
+        int twos = BitMaskHandEvaluator.twoOrMore(clubs, diamonds, hearts, spades);
+        int threes = BitMaskHandEvaluator.threeOrMore(clubs, diamonds, hearts, spades);
+        int fours = clubs & diamonds & hearts & spades;
+
+        if (fours != 0)
+        {
+            int quads = BitMaskHandEvaluator.highestRank(fours);
+            int kicker = BitMaskHandEvaluator.keepHighest(ones & ~(1 << quads), 1);
+            return faces(repeat(HandRanking.FOUR_OF_A_KIND.ordinal(), quads, 4), kicker);
+        }
+        if (threes != 0)
+        {
+            int trips = BitMaskHandEvaluator.highestRank(threes);
+            int pairs = twos & ~(1 << trips);
+            if (pairs != 0)
+            {
+                int pair = BitMaskHandEvaluator.highestRank(pairs);
+                return repeat(repeat(HandRanking.FULL_HOUSE.ordinal(), trips, 3), pair, 2);
+            }
+        }
+        int straightHigh = straightHigh(ones);
+        if (straightHigh >= 0)
+        {
+            return straight(HandRanking.STRAIGHT, straightHigh);
+        }
+        if (threes != 0)
+        {
+            int trips = BitMaskHandEvaluator.highestRank(threes);
+            int kickers = BitMaskHandEvaluator.keepHighest(ones & ~(1 << trips), 2);
+            return faces(repeat(HandRanking.THREE_OF_A_KIND.ordinal(), trips, 3), kickers);
+        }
+        if (twos != 0)
+        {
+            int highPair = BitMaskHandEvaluator.highestRank(twos);
+            int lowPairs = twos & ~(1 << highPair);
+            if (lowPairs != 0)
+            {
+                int lowPair = BitMaskHandEvaluator.highestRank(lowPairs);
+                int kicker = BitMaskHandEvaluator.keepHighest(ones & ~((1 << highPair) | (1 << lowPair)), 1);
+                return faces(repeat(repeat(HandRanking.TWO_PAIR.ordinal(), highPair, 2), lowPair, 2), kicker);
+            }
+            int kickers = BitMaskHandEvaluator.keepHighest(ones & ~(1 << highPair), 3);
+            return faces(repeat(HandRanking.PAIR.ordinal(), highPair, 2), kickers);
+        }
+        return faces(HandRanking.HIGH_CARD.ordinal(), BitMaskHandEvaluator.keepHighest(ones, RankedHand.HAND_SIZE));
+    }
+
+
+    /**
+     * @param ranks A 13-bit rank mask.
+     * @return The rank of the highest card in the best straight that can be made from
+     * the specified ranks, or -1 if there is no straight.
+     */
+    private static int straightHigh(int ranks)
+    {
+        // The standard wheel (A, 5, 4, 3, 2) is impossible without the low cards.
+        int straightHigh = BitMaskHandEvaluator.straightHigh(ranks);
+        if (straightHigh < 0 && (ranks & WHEEL) == WHEEL)
+        {
+            straightHigh = FaceValue.NINE.ordinal();
+        }
+        return straightHigh;
+    }
+
+
+    private static int straight(HandRanking ranking, int highRank)
+    {
+        int descriptor = ranking.ordinal();
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            // The ace is the lowest card of a 9-high straight.
+            int rank = highRank - i;
+            descriptor = (descriptor << 4) | (rank < FaceValue.SIX.ordinal() ? FaceValue.ACE.ordinal() : rank);
+        }
+        return descriptor;
+    }
+
+
+    /**
+     * Appends several cards of the same rank to a packed descriptor.
+     */
+    private static int repeat(int descriptor, int rank, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            descriptor = (descriptor << 4) | rank;
+        }
+        return descriptor;
+    }
+
+
+    /**
+     * Appends one card for each of the specified ranks, highest rank first.
+     */
+    private static int faces(int descriptor, int ranks)
+    {
+        while (ranks != 0)
+        {
+            int rank = BitMaskHandEvaluator.highestRank(ranks);
+            descriptor = (descriptor << 4) | rank;
+            ranks ^= 1 << rank;
+        }
+        return descriptor;
+    }
+
+
+    /**
+     * Descriptors compare in the order of their hands' values, except that the ranking
+     * must be replaced by its position in the short-deck order.
+     */
+    private static int sortKey(int descriptor)
+    {
+        return (ORDER[descriptor >>> 20] << 20) | (descriptor & 0xFFFFF);
+    }
+
+
+    private static int unsortKey(int sortKey)
+    {
+        // Swapping flushes and full houses is its own inverse.
+        return sortKey(sortKey);
+    }
+}
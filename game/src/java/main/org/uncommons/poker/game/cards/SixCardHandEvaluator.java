@@ -0,0 +1,194 @@
+package org.uncommons.poker.game.cards;
+
+import java.nio.ShortBuffer;
+import java.util.List;
+import org.uncommons.util.ConsoleProgressDisplay;
+
+/**
+ * A {@link HandEvaluator} for 6-card hands, such as a Hold'em player's cards on the turn.
+ * It finds the best 5 of the 6 cards without padding the hand to seven cards or ranking
+ * each 5-card combination separately.
+ *
+ * By default, hands are looked up in a table that has one 16-bit entry for each of the
+ * 20,358,520 6-card hands (about 40Mb, generated in a second or two), indexed by
+ * {@link CardUtils#combinationHash(long)}, which uses the same combinatorial numbering as the
+ * table of {@link LookupHandEvaluator}.  Callers that cannot afford the memory can use
+ * {@link #createWithoutTable()} instead, which ranks each hand on the fly with
+ * {@link BitMaskHandEvaluator}.  This is a few times slower but needs no start-up time or
+ * memory.  Either way, the cards may be in any order.
+ * @author Daniel Dyer
+ */
+public class SixCardHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
+{
+    private static final int HAND_SIZE = 6;
+    private static final int SIX_CARD_COMBINATIONS = 20358520;
+
+    // Null if hands are ranked on the fly.
+    private final ShortBuffer sixCardStrengths;
+
+    /**
+     * Creates an evaluator that generates its table on the heap.
+     */
+    public SixCardHandEvaluator()
+    {
+        this(TableStorage.HEAP);
+    }
+
+
+    /**
+     * Creates an evaluator that generates its table on start-up.
+     * @param storage Where to keep the generated table.
+     */
+    public SixCardHandEvaluator(TableStorage storage)
+    {
+        this(generateSixCardStrengths(storage));
+    }
+
+
+    private SixCardHandEvaluator(ShortBuffer sixCardStrengths)
+    {
+        this.sixCardStrengths = sixCardStrengths;
+    }
+
+
+    /**
+     * Creates an evaluator that ranks each hand as it is needed rather than looking it up
+     * in a pre-computed table.
+     * @return An evaluator with no table.
+     */
+    public static SixCardHandEvaluator createWithoutTable()
+    {
+        return new SixCardHandEvaluator((ShortBuffer) null);
+    }
+
+
+    /**
+     * Generates the strength of every 6-card hand, indexed by
+     * {@link CardUtils#combinationHash(long) hash value}.
+     */
+    private static ShortBuffer generateSixCardStrengths(TableStorage storage)
+    {
+        ConsoleProgressDisplay console = new ConsoleProgressDisplay();
+        console.start("Generating 6-card hand strengths...");
+        console.update(0);
+
+        ShortBuffer strengths = storage.allocateShorts(SIX_CARD_COMBINATIONS);
+        int index = 0;
+        // Cards are in ascending order, c0 < c1 < ... < c5, which is the order of their hashes.
+        for (int c5 = 5; c5 < PlayingCard.values().length; c5++)
+        {
+            long mask5 = BitMaskHandEvaluator.bit(c5);
+            for (int c4 = 4; c4 < c5; c4++)
+            {
+                long mask4 = mask5 | BitMaskHandEvaluator.bit(c4);
+                for (int c3 = 3; c3 < c4; c3++)
+                {
+                    long mask3 = mask4 | BitMaskHandEvaluator.bit(c3);
+                    for (int c2 = 2; c2 < c3; c2++)
+                    {
+                        long mask2 = mask3 | BitMaskHandEvaluator.bit(c2);
+                        for (int c1 = 1; c1 < c2; c1++)
+                        {
+                            long mask1 = mask2 | BitMaskHandEvaluator.bit(c1);
+                            for (int c0 = 0; c0 < c1; c0++)
+                            {
+                                strengths.put(index++, (short) BitMaskHandEvaluator.rank(mask1 | BitMaskHandEvaluator.bit(c0)));
+                            }
+                        }
+                    }
+                }
+            }
+            console.update((int) ((long) index * 100 / SIX_CARD_COMBINATIONS));
+        }
+        console.finish(true);
+        return strengths;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Six cards in any order.
+     * @return A ranked 5-card hand.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(rank(cards), cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Six cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        result.setHighHand(rank(cards), BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Six cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain " + HAND_SIZE + " cards.");
+        }
+        if (sixCardStrengths == null)
+        {
+            return BitMaskHandEvaluator.rank(BitMaskHandEvaluator.toSuitMasks(cards));
+        }
+        return sixCardStrengths.get(CardUtils.combinationHash(CardUtils.toCardMask(cards)));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Six cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return HandStrength.getRanking(rank(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param handSize Must be six.
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        if (handSize != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand size must be " + HAND_SIZE + ".");
+        }
+        int index = 0;
+        for (int i = 0; i < handCount; i++)
+        {
+            long cardMask = 0;
+            for (int j = 0; j < HAND_SIZE; j++)
+            {
+                cardMask |= 1L << cards[index++];
+            }
+            ranks[i] = sixCardStrengths == null ? BitMaskHandEvaluator.rank(toSuitMasks(cardMask))
+                                                : sixCardStrengths.get(CardUtils.combinationHash(cardMask));
+        }
+    }
+
+
+    /**
+     * Converts a mask in which bit n represents the card with ordinal n into packed suit
+     * masks (see {@link BitMaskHandEvaluator}).
+     */
+    private static long toSuitMasks(long cardMask)
+    {
+        long suitMasks = 0;
+        for (long remaining = cardMask; remaining != 0; remaining &= remaining - 1)
+        {
+            suitMasks |= BitMaskHandEvaluator.bit(Long.numberOfTrailingZeros(remaining));
+        }
+        return suitMasks;
+    }
+}
@@ -0,0 +1,405 @@
+package org.uncommons.poker.game.cards;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.uncommons.util.ConsoleProgressDisplay;
+
+/**
+ * A {@link HandEvaluator} for 7-card hands that works like a finite state machine.  Starting
+ * from the empty hand, each card is fed in turn to a pre-computed transition table that gives
+ * the state for the cards seen so far.  After the seventh card, the "state" is the strength of
+ * the hand (see {@link HandStrength}).  So ranking a hand takes exactly seven array look-ups,
+ * with no sorting, hashing or branching on the cards.
+ *
+ * Hands that can no longer differ in value share a state.  The number of cards of each rank
+ * always matters, but a card's suit only matters while its suit can still make a flush
+ * with the cards still to come.  This merging reduces the table to 612,977 states (about
+ * 128Mb, one int for each state and each card).
+ * The table is generated in a few seconds, either on the heap or {@link TableStorage#OFF_HEAP
+ * off-heap}.  It can also be stored in a file, which is generated the first time that it is
+ * needed and then memory-mapped by all subsequent instances, just like the table used by
+ * {@link LookupHandEvaluator}.
+ *
+ * The cards may be in any order and must all be different (the result for a hand that
+ * contains the same card twice is undefined).
+ * @author Daniel Dyer
+ */
+public class StateMachineHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
+{
+    private static final int HAND_SIZE = 7;
+    private static final int DECK_SIZE = 52;
+    // Number of states for hands of 0 to 6 cards.  Every state has one transition per card.
+    private static final int STATE_COUNT = 612977;
+    // Increment whenever the meaning of the entries in the table file changes.
+    private static final int TABLE_VERSION = 1;
+
+    private static final long LANE_MASK = BitMaskHandEvaluator.RANK_MASK;
+
+    /**
+     * Each entry is the offset (state number * 52) of the next state's transitions, so
+     * the offset of the next state is simply {@code transitions.get(offset + card)}.  The
+     * entries for the seventh card are hand strengths instead.
+     */
+    private final IntBuffer transitions;
+
+    /**
+     * Creates an evaluator that generates its transition table on the heap.
+     */
+    public StateMachineHandEvaluator()
+    {
+        this(TableStorage.HEAP);
+    }
+
+
+    /**
+     * Creates an evaluator that generates its transition table on start-up.
+     * @param storage Where to keep the generated table.
+     */
+    public StateMachineHandEvaluator(TableStorage storage)
+    {
+        transitions = generateTransitions(storage);
+    }
+
+
+    /**
+     * Creates an evaluator that uses a memory-mapped table file, checking the whole file
+     * against its checksum before use.
+     * @param tableFile The location of the table.  If this file does not exist, or if it
+     * does not contain a valid, up-to-date table, it will be (re-)generated.
+     * @throws IOException If the table file cannot be read or written.
+     */
+    public StateMachineHandEvaluator(File tableFile) throws IOException
+    {
+        this(tableFile, true);
+    }
+
+
+    /**
+     * Creates an evaluator that uses a memory-mapped table file.
+     * @param tableFile The location of the table.  If this file does not exist, or if it
+     * does not contain a valid, up-to-date table, it will be (re-)generated.
+     * @param verifyChecksum Whether to check the entire file against its checksum before
+     * using it.
+     * @throws IOException If the table file cannot be read or written.
+     */
+    public StateMachineHandEvaluator(File tableFile, boolean verifyChecksum) throws IOException
+    {
+        ByteBuffer table = mapTable(tableFile, verifyChecksum);
+        if (table == null)
+        {
+            final IntBuffer generated = generateTransitions(TableStorage.HEAP);
+            TableFile.write(tableFile,
+                            TableFile.STATE_MACHINE_TRANSITIONS,
+                            TABLE_VERSION,
+                            4,
+                            generated.capacity(),
+                            new TableFile.Generator()
+            {
+                void generate(DataOutput output) throws IOException
+                {
+                    for (int i = 0; i < generated.capacity(); i++)
+                    {
+                        output.writeInt(generated.get(i));
+                    }
+                }
+            });
+            table = mapTable(tableFile, verifyChecksum);
+            if (table == null)
+            {
+                throw new IOException("Invalid state machine table: " + tableFile);
+            }
+        }
+        transitions = table.asIntBuffer();
+    }
+
+
+    private static ByteBuffer mapTable(File tableFile, boolean verifyChecksum) throws IOException
+    {
+        return TableFile.map(tableFile,
+                             TableFile.STATE_MACHINE_TRANSITIONS,
+                             TABLE_VERSION,
+                             4,
+                             STATE_COUNT * DECK_SIZE,
+                             verifyChecksum);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return HandStrength.toRankedHand(rank(cards), cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        result.setHighHand(rank(cards), BitMaskHandEvaluator.toSuitMasks(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        if (cards.size() != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain " + HAND_SIZE + " cards.");
+        }
+        int state = 0;
+        for (int i = 0; i < HAND_SIZE; i++)
+        {
+            state = transitions.get(state + cards.get(i).ordinal());
+        }
+        return state;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Seven cards in any order.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return HandStrength.getRanking(rank(cards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * Four hands at a time are walked through the table together.  Their look-ups are
+     * independent, so the processor can have several cache misses outstanding at once
+     * rather than waiting for each in turn.
+     * @param handSize Must be seven.
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        if (handSize != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand size must be " + HAND_SIZE + ".");
+        }
+        int i = 0;
+        for (; i + 4 <= handCount; i += 4)
+        {
+            int index = i * HAND_SIZE;
+            int state0 = 0;
+            int state1 = 0;
+            int state2 = 0;
+            int state3 = 0;
+            for (int j = 0; j < HAND_SIZE; j++, index++)
+            {
+                state0 = transitions.get(state0 + cards[index]);
+                state1 = transitions.get(state1 + cards[index + HAND_SIZE]);
+                state2 = transitions.get(state2 + cards[index + 2 * HAND_SIZE]);
+                state3 = transitions.get(state3 + cards[index + 3 * HAND_SIZE]);
+            }
+            ranks[i] = state0;
+            ranks[i + 1] = state1;
+            ranks[i + 2] = state2;
+            ranks[i + 3] = state3;
+        }
+        // Any remaining hands are done one at a time.
+        for (; i < handCount; i++)
+        {
+            int state = 0;
+            for (int index = i * HAND_SIZE; index < (i + 1) * HAND_SIZE; index++)
+            {
+                state = transitions.get(state + cards[index]);
+            }
+            ranks[i] = state;
+        }
+    }
+
+
+    /**
+     * Builds the transition table one layer (number of cards) at a time, starting with the
+     * empty hand, so that the states for each layer are numbered before any of their
+     * transitions are needed.
+     */
+    private static IntBuffer generateTransitions(TableStorage storage)
+    {
+        ConsoleProgressDisplay console = new ConsoleProgressDisplay();
+        console.start("Generating 7-card state machine...");
+        console.update(0);
+
+        IntBuffer transitions = storage.allocateInts(STATE_COUNT * DECK_SIZE);
+        List<State> layer = new ArrayList<State>(1);
+        layer.add(new State(0, 0));
+        int firstState = 0;
+        for (int cardCount = 0; cardCount < HAND_SIZE - 1; cardCount++)
+        {
+            int nextFirstState = firstState + layer.size();
+            Map<State, Integer> nextLayer = new HashMap<State, Integer>();
+            List<State> nextStates = new ArrayList<State>();
+            for (int i = 0; i < layer.size(); i++)
+            {
+                int offset = (firstState + i) * DECK_SIZE;
+                for (int card = 0; card < DECK_SIZE; card++)
+                {
+                    State next = layer.get(i).add(card, cardCount);
+                    if (next != null)
+                    {
+                        Integer index = nextLayer.get(next);
+                        if (index == null)
+                        {
+                            index = nextStates.size();
+                            nextLayer.put(next, index);
+                            nextStates.add(next);
+                        }
+                        transitions.put(offset + card, (nextFirstState + index) * DECK_SIZE);
+                    }
+                }
+            }
+            layer = nextStates;
+            firstState = nextFirstState;
+            console.update((cardCount + 1) * 100 / HAND_SIZE);
+        }
+
+        // The last transition from each 6-card state leads to the strength of the complete hand.
+        for (int i = 0; i < layer.size(); i++)
+        {
+            int offset = (firstState + i) * DECK_SIZE;
+            for (int card = 0; card < DECK_SIZE; card++)
+            {
+                State hand = layer.get(i).add(card, HAND_SIZE - 1);
+                if (hand != null)
+                {
+                    transitions.put(offset + card, hand.rank());
+                }
+            }
+        }
+        if (firstState + layer.size() != STATE_COUNT)
+        {
+            throw new IllegalStateException("Expected " + STATE_COUNT + " states, generated "
+                                            + (firstState + layer.size()));
+        }
+        console.finish(true);
+
+        return transitions;
+    }
+
+
+    /**
+     * The cards seen so far, reduced to only those details that can affect the final value
+     * of the hand.
+     */
+    private static final class State
+    {
+        /** The number of cards of each rank, packed as for {@link RankMultisetHash}. */
+        private final long rankCounts;
+        /**
+         * The cards (packed as for {@link BitMaskHandEvaluator}) of those suits that can
+         * still make a flush.  The cards of any other suits are left out.
+         */
+        private final long flushCards;
+
+        State(long rankCounts, long flushCards)
+        {
+            this.rankCounts = rankCounts;
+            this.flushCards = flushCards;
+        }
+
+
+        /**
+         * @param card The ordinal of the card to add.
+         * @param cardCount The number of cards in this state.
+         * @return The state after adding the card, or null if the card cannot be added
+         * (because it is already in the hand).
+         */
+        State add(int card, int cardCount)
+        {
+            int rank = card >> 2;
+            int suit = card & 3;
+            if (RankMultisetHash.count(rankCounts, rank) == Suit.values().length)
+            {
+                return null;
+            }
+            long bit = BitMaskHandEvaluator.bit(card);
+            if ((flushCards & bit) != 0)
+            {
+                return null;
+            }
+            long nextFlushCards = flushCards;
+            if (canMakeFlush(flushCards, suit, cardCount))
+            {
+                nextFlushCards |= bit;
+            }
+            for (int s = 0; s < Suit.values().length; s++)
+            {
+                if (!canMakeFlush(nextFlushCards, s, cardCount + 1))
+                {
+                    nextFlushCards &= ~(LANE_MASK << (s * BitMaskHandEvaluator.LANE_WIDTH));
+                }
+            }
+            return new State(RankMultisetHash.add(rankCounts, rank), nextFlushCards);
+        }
+
+
+        /**
+         * @return True if the suit could make a flush once the hand has all seven cards.
+         * Once a suit has been ruled out, its cards are no longer recorded, so there is
+         * no way for it to be considered again.
+         */
+        private static boolean canMakeFlush(long flushCards, int suit, int cardCount)
+        {
+            long suitCards = flushCards & (LANE_MASK << (suit * BitMaskHandEvaluator.LANE_WIDTH));
+            return Long.bitCount(suitCards) + HAND_SIZE - cardCount >= RankedHand.HAND_SIZE;
+        }
+
+
+        /**
+         * @return The strength of a complete 7-card hand.
+         */
+        int rank()
+        {
+            for (int suit = 0; suit < Suit.values().length; suit++)
+            {
+                if (Long.bitCount(flushCards & (LANE_MASK << (suit * BitMaskHandEvaluator.LANE_WIDTH))) >= RankedHand.HAND_SIZE)
+                {
+                    // Only the flush suit's cards are needed to rank a flush.
+                    return BitMaskHandEvaluator.rank(flushCards);
+                }
+            }
+            return RankMultisetHash.rankWithoutFlush(rankCounts);
+        }
+
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass())
+            {
+                return false;
+            }
+            State state = (State) other;
+            return rankCounts == state.rankCounts && flushCards == state.flushCards;
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            long hash = rankCounts * 31 + flushCards;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ranks the face-up cards of a player in 7-Card Stud, which determine who acts first on each
+ * betting round after the first.  A player has between one and four face-up cards, so only
+ * pairs, two pair, three of a kind and four of a kind count (straights and flushes are not
+ * possible).  The strength depends only on the face values of the cards, so for each number
+ * of cards there is a small table (no more than 1,820 entries) indexed by the
+ * {@link RankMultisetHash} of the cards.
+ * @author Daniel Dyer
+ */
+public class StudBoardEvaluator
+{
+    /** The most cards that a player in 7-Card Stud can have face-up. */
+    public static final int MAX_CARDS = 4;
+
+    // STRENGTHS[n] is the table for n face-up cards.
+    private static final short[][] STRENGTHS = new short[MAX_CARDS + 1][];
+    static
+    {
+        for (int cards = 1; cards <= MAX_CARDS; cards++)
+        {
+            long[] allRankCounts = RankMultisetHash.allRankCounts(cards);
+            // Sort the hands by value, keeping track of the index of each.
+            long[] keys = new long[allRankCounts.length];
+            for (int i = 0; i < keys.length; i++)
+            {
+                keys[i] = (sortKey(allRankCounts[i]) << 16) | i;
+            }
+            Arrays.sort(keys);
+            STRENGTHS[cards] = new short[keys.length];
+            for (int i = 0; i < keys.length; i++)
+            {
+                STRENGTHS[cards][(int) keys[i] & 0xFFFF] = (short) (i + 1);
+            }
+        }
+    }
+
+
+    /**
+     * Orders hands by the sizes of their groups of same-rank cards (so four of a kind beats
+     * three of a kind, which beats two pair, and so on) and then by the ranks of the groups,
+     * biggest group first.
+     * @return A number that is higher for better hands.
+     */
+    private static long sortKey(long rankCounts)
+    {
+        long groupSizes = 0;
+        long groupRanks = 0;
+        int groups = 0;
+        for (int count = Suit.values().length; count > 0; count--)
+        {
+            for (int rank = FaceValue.values().length - 1; rank >= 0; rank--)
+            {
+                if (RankMultisetHash.count(rankCounts, rank) == count)
+                {
+                    groupSizes = groupSizes * 8 + count;
+                    groupRanks = groupRanks * 16 + rank;
+                    ++groups;
+                }
+            }
+        }
+        // Pad to four groups so that the most significant group always lines up.
+        for (; groups < MAX_CARDS; groups++)
+        {
+            groupSizes *= 8;
+            groupRanks *= 16;
+        }
+        return (groupSizes << 16) | groupRanks;
+    }
+
+
+    /**
+     * Ranks a player's face-up cards.  Only boards with the same number of cards can be
+     * compared.
+     * @param faceUpCards Between one and four cards, in any order.
+     * @return A strength that is higher for better boards, and is equal for boards that
+     * differ only in suits.
+     */
+    public int rank(List<PlayingCard> faceUpCards)
+    {
+        int cards = faceUpCards.size();
+        if (cards < 1 || cards > MAX_CARDS)
+        {
+            throw new IllegalArgumentException("Must have between 1 and " + MAX_CARDS + " face-up cards.");
+        }
+        long rankCounts = 0;
+        for (int i = 0; i < cards; i++)
+        {
+            rankCounts = RankMultisetHash.add(rankCounts, faceUpCards.get(i).getValue().ordinal());
+        }
+        return STRENGTHS[cards][RankMultisetHash.index(rankCounts, cards)];
+    }
+}
@@ -0,0 +1,202 @@
+package org.uncommons.poker.game.cards;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes pre-computed look-up tables as binary files so that they only have to
+ * be generated once.  Each file starts with a fixed-size header that identifies the table,
+ * its version and dimensions, and a CRC-32 checksum of the data that follows.  Tables are
+ * read by mapping the file into memory read-only, so there is no parsing step and processes
+ * that open the same file share a single copy of it in the operating system's page cache.
+ * @author Daniel Dyer
+ */
+final class TableFile
+{
+    /** Strengths (as defined by {@link HandStrength}) of all 7-card hands. */
+    static final int SEVEN_CARD_STRENGTHS = 1;
+    /** Transitions of the state machine used by {@link StateMachineHandEvaluator}. */
+    static final int STATE_MACHINE_TRANSITIONS = 2;
+
+    private static final int MAGIC_NUMBER = 0x504B5442; // "PKTB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHECKSUM_OFFSET = 24;
+
+    private TableFile()
+    {
+        // Prevents instantiation of utility class.
+    }
+
+
+    /**
+     * Callback that produces the contents of a table.
+     */
+    abstract static class Generator
+    {
+        /**
+         * Writes every entry of the table, in index order.
+         */
+        abstract void generate(DataOutput output) throws IOException;
+    }
+
+
+    /**
+     * Generates a table and writes it to a file.  The table is written to a temporary file
+     * in the same directory first and then renamed, so other processes will never see a
+     * partially-written table.
+     * @param file The file to create or replace.
+     * @param type The kind of table (e.g. {@link #SEVEN_CARD_STRENGTHS}).
+     * @param version The version of the table's content.  This should be incremented
+     * whenever the meaning of the entries changes, so that out-of-date files are not used.
+     * @param entrySize The size, in bytes, of each entry.
+     * @param entryCount The number of entries.
+     * @param generator Writes the entries.
+     */
+    static void write(File file,
+                      int type,
+                      int version,
+                      int entrySize,
+                      int entryCount,
+                      Generator generator) throws IOException
+    {
+        File directory = file.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try
+        {
+            FileOutputStream fileStream = new FileOutputStream(temp);
+            try
+            {
+                BufferedOutputStream buffered = new BufferedOutputStream(fileStream);
+                DataOutputStream header = new DataOutputStream(buffered);
+                header.writeInt(MAGIC_NUMBER);
+                header.writeInt(FORMAT_VERSION);
+                header.writeInt(type);
+                header.writeInt(version);
+                header.writeInt(entrySize);
+                header.writeInt(entryCount);
+                header.writeLong(0); // Checksum, filled in once it is known.
+                header.flush();
+
+                CRC32 checksum = new CRC32();
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileStream,
+                                                                                                              checksum),
+                                                                                      1 << 16));
+                generator.generate(data);
+                data.flush();
+                if (data.size() != (long) entrySize * entryCount)
+                {
+                    throw new IOException("Table generator wrote " + data.size() + " bytes, expected "
+                                          + (long) entrySize * entryCount);
+                }
+
+                fileStream.getChannel().write(longBuffer(checksum.getValue()), CHECKSUM_OFFSET);
+            }
+            finally
+            {
+                fileStream.close();
+            }
+            // Replace any existing (presumably stale or corrupt) file.
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+            {
+                throw new IOException("Unable to rename " + temp + " to " + file);
+            }
+        }
+        finally
+        {
+            temp.delete(); // Only has any effect if the rename did not happen.
+        }
+    }
+
+
+    /**
+     * Maps a previously written table into memory.
+     * @param file The table file.
+     * @param type The kind of table that is expected.
+     * @param version The expected version of the table's content.
+     * @param entrySize The expected size, in bytes, of each entry.
+     * @param entryCount The expected number of entries.
+     * @param verifyChecksum Whether to check the data against the checksum in the header.
+     * This involves reading the entire file, so callers that need to start quickly may prefer
+     * to rely on the other header checks.
+     * @return A read-only buffer containing just the table's data, or null if the file does
+     * not exist or does not contain a valid table of the expected kind.
+     */
+    static ByteBuffer map(File file,
+                          int type,
+                          int version,
+                          int entrySize,
+                          int entryCount,
+                          boolean verifyChecksum) throws IOException
+    {
+        if (!file.isFile())
+        {
+            return null;
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() != HEADER_SIZE + (long) entrySize * entryCount)
+            {
+                return null;
+            }
+            // The mapping remains valid after the channel is closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC_NUMBER
+                || buffer.getInt() != FORMAT_VERSION
+                || buffer.getInt() != type
+                || buffer.getInt() != version
+                || buffer.getInt() != entrySize
+                || buffer.getInt() != entryCount)
+            {
+                return null;
+            }
+            long expectedChecksum = buffer.getLong();
+            ByteBuffer data = buffer.slice();
+            if (verifyChecksum && checksum(data.duplicate()) != expectedChecksum)
+            {
+                return null;
+            }
+            return data;
+        }
+        finally
+        {
+            randomAccessFile.close();
+        }
+    }
+
+
+    private static long checksum(ByteBuffer data)
+    {
+        CRC32 checksum = new CRC32();
+        byte[] chunk = new byte[1 << 16];
+        while (data.hasRemaining())
+        {
+            int length = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, length);
+            checksum.update(chunk, 0, length);
+        }
+        return checksum.getValue();
+    }
+
+
+    private static ByteBuffer longBuffer(long value)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(value);
+        buffer.flip();
+        return buffer;
+    }
+}
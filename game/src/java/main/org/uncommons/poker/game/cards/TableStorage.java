@@ -0,0 +1,70 @@
+package org.uncommons.poker.game.cards;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Where a table-based evaluator keeps a look-up table that it generates for itself (tables
+ * loaded from a {@link TableFile} are always memory-mapped).
+ * @author Daniel Dyer
+ */
+public enum TableStorage
+{
+    /**
+     * The table is a primitive array on the Java heap.  This is the fastest to generate and
+     * to read, but the heap must be big enough to hold it.
+     */
+    HEAP
+    {
+        ShortBuffer allocateShorts(int count)
+        {
+            return ShortBuffer.wrap(new short[count]);
+        }
+
+        IntBuffer allocateInts(int count)
+        {
+            return IntBuffer.wrap(new int[count]);
+        }
+    },
+
+    /**
+     * The table is held in a direct buffer, outside of the Java heap, so it does not count
+     * towards the maximum heap size and the garbage collector never has to scan or copy it.
+     * The memory is released when the evaluator is garbage collected.  The total size of
+     * direct buffers is limited by the JVM's {@code -XX:MaxDirectMemorySize} option.
+     */
+    OFF_HEAP
+    {
+        ShortBuffer allocateShorts(int count)
+        {
+            return allocateDirect(count * 2).asShortBuffer();
+        }
+
+        IntBuffer allocateInts(int count)
+        {
+            return allocateDirect(count * 4).asIntBuffer();
+        }
+
+        private ByteBuffer allocateDirect(int bytes)
+        {
+            // Native byte order avoids swapping bytes on every access.
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    };
+
+
+    /**
+     * @param count The number of entries in the table.
+     * @return A zero-filled buffer with the specified number of 16-bit entries.
+     */
+    abstract ShortBuffer allocateShorts(int count);
+
+
+    /**
+     * @param count The number of entries in the table.
+     * @return A zero-filled buffer with the specified number of 32-bit entries.
+     */
+    abstract IntBuffer allocateInts(int count);
+}
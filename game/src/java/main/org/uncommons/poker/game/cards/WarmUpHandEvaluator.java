@@ -0,0 +1,287 @@
+package org.uncommons.poker.game.cards;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link HandEvaluator} that can be used as soon as it is created, while a table-based
+ * evaluator (typically a {@link LookupHandEvaluator}) is built or loaded on a background
+ * thread.  Until the table is ready, hands are ranked by a fallback evaluator that needs no
+ * tables.  When the table is ready, the evaluator switches over to it.  The switch is a
+ * single volatile write, so callers are never blocked, not even while it happens.
+ *
+ * The default fallback is {@link BitMaskHandEvaluator} rather than
+ * {@link SevenCardHandEvaluator}, because it is faster, does not need the cards to be sorted,
+ * and always chooses the same cards as the table-based evaluators.  So results do not change
+ * when the switch happens.  Because the table-based evaluators only rank 7-card hands, this
+ * evaluator only accepts 7 cards, even before the switch, when the fallback could rank fewer.
+ *
+ * If the table cannot be built (for example, if there is not enough memory), the fallback
+ * is used indefinitely and the failure is reported by {@link #getReadiness()}.
+ * @author Daniel Dyer
+ */
+public class WarmUpHandEvaluator implements BatchHandEvaluator, OrderIndependentEvaluator
+{
+    private static final int HAND_SIZE = 7;
+
+    private final BatchHandEvaluator fallback;
+    private final Readiness readiness;
+    private final Thread thread;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong fallbackCount = new AtomicLong(0);
+
+    // Null until the background evaluator is ready.
+    private volatile BatchHandEvaluator evaluator = null;
+    private volatile long warmUpTime = -1;
+
+    /**
+     * Starts loading an evaluator in the background, using {@link BitMaskHandEvaluator}
+     * until it is ready.
+     * @param loader Creates the evaluator that will be used once it is ready.  It must
+     * accept cards in any order.
+     */
+    public WarmUpHandEvaluator(Callable<? extends BatchHandEvaluator> loader)
+    {
+        this(loader, new BitMaskHandEvaluator());
+    }
+
+
+    /**
+     * Starts loading an evaluator in the background.
+     * @param loader Creates the evaluator that will be used once it is ready.  It must
+     * accept cards in any order.
+     * @param fallback The evaluator that is used until the loaded evaluator is ready.  It
+     * must also accept cards in any order.
+     */
+    public WarmUpHandEvaluator(final Callable<? extends BatchHandEvaluator> loader,
+                               BatchHandEvaluator fallback)
+    {
+        this.fallback = fallback;
+        this.readiness = new Readiness(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call() throws Exception
+            {
+                BatchHandEvaluator loaded = loader.call();
+                // Table generation doesn't respond to interrupts, so the future may have
+                // been cancelled while it was running.  If so, discard the result.
+                if (!readiness.claimSwitch())
+                {
+                    throw new CancellationException("Warm-up was cancelled.");
+                }
+                // Both fields are set before the future completes, so anybody that has
+                // waited for it will see the switch.
+                warmUpTime = (System.nanoTime() - startTime) / 1000000;
+                evaluator = loaded;
+                return loaded;
+            }
+        });
+        this.thread = new Thread(readiness, "Hand evaluator warm-up");
+        // Don't stop the JVM from exiting just because the table is not finished.
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Creates an evaluator that generates a {@link LookupHandEvaluator} table in the background.
+     * @param storage Where to keep the generated table.
+     * @return An evaluator that is ready for use immediately.
+     */
+    public static WarmUpHandEvaluator forLookupTable(final TableStorage storage)
+    {
+        return new WarmUpHandEvaluator(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call()
+            {
+                return new LookupHandEvaluator(storage);
+            }
+        });
+    }
+
+
+    /**
+     * Creates an evaluator that maps (or, if necessary, generates) a {@link LookupHandEvaluator}
+     * table file in the background.
+     * @param tableFile The location of the table.
+     * @param verifyChecksum Whether to check the entire file against its checksum before
+     * using it.
+     * @return An evaluator that is ready for use immediately.
+     */
+    public static WarmUpHandEvaluator forLookupTable(final File tableFile, final boolean verifyChecksum)
+    {
+        return new WarmUpHandEvaluator(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call() throws Exception
+            {
+                return new LookupHandEvaluator(tableFile, verifyChecksum);
+            }
+        });
+    }
+
+
+    /**
+     * @param handSize The number of cards in each hand.
+     * @param handCount The number of hands.
+     * @return The evaluator to use for the next hands.
+     */
+    private BatchHandEvaluator select(int handSize, int handCount)
+    {
+        if (handSize != HAND_SIZE)
+        {
+            throw new IllegalArgumentException("Hand must contain " + HAND_SIZE + " cards.");
+        }
+        BatchHandEvaluator current = evaluator;
+        if (current == null)
+        {
+            fallbackCount.addAndGet(handCount);
+            return fallback;
+        }
+        return current;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        return select(cards.size(), 1).evaluate(cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        select(cards.size(), 1).evaluate(cards, result);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return select(cards.size(), 1).getRanking(cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        return select(cards.size(), 1).rank(cards);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rankAll(int[] cards, int handSize, int handCount, int[] ranks)
+    {
+        select(handSize, handCount).rankAll(cards, handSize, handCount, ranks);
+    }
+
+
+    /**
+     * @return A future that completes, with the loaded evaluator, when the switch from the
+     * fallback evaluator has happened.  If loading fails, the future's {@code get} method
+     * throws an {@link java.util.concurrent.ExecutionException} that gives the cause.
+     * Cancelling the future means that the switch never happens, so the fallback is used
+     * indefinitely.  If the loaded evaluator is already being switched in, {@code cancel}
+     * fails and returns false.  The loader's thread is interrupted, but the built-in table generators
+     * don't check for this, so a table that is being generated is finished and then thrown
+     * away.
+     */
+    public Future<BatchHandEvaluator> getReadiness()
+    {
+        return readiness;
+    }
+
+
+    /**
+     * Waits for the background thread to finish, whether or not the warm-up was cancelled.
+     * Used by unit tests, which can't tell from the future when a cancelled loader has
+     * returned.
+     * @param timeout The maximum number of milliseconds to wait.
+     * @return True if the thread has finished, false if it timed out.
+     */
+    boolean awaitLoader(long timeout) throws InterruptedException
+    {
+        thread.join(timeout);
+        return !thread.isAlive();
+    }
+
+
+    /**
+     * @return True if hands are now ranked by the loaded evaluator.
+     */
+    public boolean isReady()
+    {
+        return evaluator != null;
+    }
+
+
+    /**
+     * @return The number of milliseconds it took for the loaded evaluator to become ready,
+     * or -1 if it is not ready.
+     */
+    public long getWarmUpTime()
+    {
+        return warmUpTime;
+    }
+
+
+    /**
+     * @return The number of hands that have been ranked by the fallback evaluator.
+     */
+    public long getFallbackCount()
+    {
+        return fallbackCount.get();
+    }
+
+
+    /**
+     * The future returned by {@link #getReadiness()}.  Switching to the loaded evaluator and
+     * cancelling the warm-up each have to claim the same flag first, so only one of them can
+     * happen.  Checking {@link #isCancelled()} before switching would not be enough, because
+     * the future could be cancelled between the check and the switch.
+     */
+    private static final class Readiness extends FutureTask<BatchHandEvaluator>
+    {
+        private final AtomicBoolean decided = new AtomicBoolean(false);
+
+        Readiness(Callable<BatchHandEvaluator> loader)
+        {
+            super(loader);
+        }
+
+
+        /**
+         * @return True if the switch may go ahead, false if the warm-up has been cancelled.
+         */
+        boolean claimSwitch()
+        {
+            return decided.compareAndSet(false, true);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         * Fails, returning false, if the switch has already been claimed.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            return decided.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link HandEvaluator} for games with wild cards, such as deuces wild or games with
+ * jokers.  A wild card stands for whichever card makes the best hand.  Jokers, which are
+ * dealt as null by a {@link Deck#createDeckWithJokers(java.util.Random, int) deck with
+ * jokers}, are always wild, and any other cards can be made wild too.  With wild cards, five
+ * cards of the same rank are possible.  {@link HandRanking#FIVE_OF_A_KIND} beats every other
+ * hand, including a royal flush.
+ *
+ * Rather than trying every possible substitution for the wild cards, hands are looked up in
+ * tables that are generated (in a few milliseconds) when the class is loaded.  There is a set
+ * of tables for each number of wild cards:
+ * <ul>
+ *   <li>A table of 8,192 entries, indexed by the ranks of the natural (non-wild) cards of a
+ *   single suit, gives the best flush or straight flush that those cards make with the wild
+ *   cards.</li>
+ *   <li>A table indexed by the {@link RankMultisetHash} of all of the natural cards gives the
+ *   best hand that ignores suits.</li>
+ * </ul>
+ * Each entry is calculated from the table for one fewer wild card, by trying each rank for
+ * one of the wild cards.  A hand with five or more wild cards is always five aces.
+ *
+ * The strengths returned by {@link #rank(List)} are on their own scale, from 1 to
+ * {@link #CLASS_COUNT}.  Up to {@link HandStrength#CLASS_COUNT} they are the same as
+ * {@link HandStrength}s, and the 13 five-of-a-kind hands are above them.  So this is not a
+ * {@link HandStrengthEvaluator}, and its strengths must not be passed to the methods of
+ * {@link HandStrength}.  The cards may be in any order.
+ * @author Daniel Dyer
+ */
+public class WildCardHandEvaluator implements HandEvaluator, OrderIndependentEvaluator
+{
+    private static final int RANK_COUNT = FaceValue.values().length;
+    private static final int SUIT_COUNT = Suit.values().length;
+    private static final PlayingCard[] CARDS = PlayingCard.values();
+
+    /** The number of distinct hand values, including five-of-a-kind. */
+    public static final int CLASS_COUNT = HandStrength.CLASS_COUNT + RANK_COUNT;
+
+    // Strengths above this are five-of-a-kind, one per rank.
+    private static final int FIVE_OF_A_KIND_BASE = HandStrength.CLASS_COUNT + 1;
+    // With more wild cards than this, the best hand is always five aces.
+    private static final int MAX_WILD_CARDS = 4;
+
+    // FLUSHES[w][ranks] is the best flush from a suit's natural ranks and w wild cards, or 0.
+    private static final short[][] FLUSHES = new short[MAX_WILD_CARDS + 1][1 << RANK_COUNT];
+    // NON_FLUSHES[n][w] is the table for n-card hands with w wild cards.
+    private static final short[][][] NON_FLUSHES = new short[RankMultisetHash.MAX_CARDS + 1][MAX_WILD_CARDS + 1][];
+    static
+    {
+        for (int ranks = 0; ranks < FLUSHES[0].length; ranks++)
+        {
+            if (Integer.bitCount(ranks) >= RankedHand.HAND_SIZE)
+            {
+                FLUSHES[0][ranks] = (short) BitMaskHandEvaluator.rankFlush(ranks);
+            }
+        }
+        for (int wild = 1; wild <= MAX_WILD_CARDS; wild++)
+        {
+            for (int ranks = 0; ranks < FLUSHES[wild].length; ranks++)
+            {
+                if (Integer.bitCount(ranks) + wild >= RankedHand.HAND_SIZE)
+                {
+                    // Making a wild card duplicate a natural card never helps a flush.
+                    short best = 0;
+                    for (int rank = 0; rank < RANK_COUNT; rank++)
+                    {
+                        if ((ranks & (1 << rank)) == 0)
+                        {
+                            best = (short) Math.max(best, FLUSHES[wild - 1][ranks | (1 << rank)]);
+                        }
+                    }
+                    FLUSHES[wild][ranks] = best;
+                }
+            }
+        }
+
+        for (int cards = RankedHand.HAND_SIZE; cards <= RankMultisetHash.MAX_CARDS; cards++)
+        {
+            long[] allRankCounts = RankMultisetHash.allRankCounts(cards);
+            NON_FLUSHES[cards][0] = new short[allRankCounts.length];
+            for (int i = 0; i < allRankCounts.length; i++)
+            {
+                NON_FLUSHES[cards][0][i] = (short) RankMultisetHash.rankWithoutFlush(allRankCounts[i]);
+            }
+            for (int wild = 1; wild <= MAX_WILD_CARDS; wild++)
+            {
+                int naturals = cards - wild;
+                long[] hands = RankMultisetHash.allRankCounts(naturals);
+                NON_FLUSHES[cards][wild] = new short[hands.length];
+                for (int i = 0; i < hands.length; i++)
+                {
+                    NON_FLUSHES[cards][wild][i] = (short) rankWithoutFlush(hands[i], naturals, wild, NON_FLUSHES[cards][wild - 1]);
+                }
+            }
+        }
+    }
+
+    private final long wildCards;
+
+    /**
+     * Creates an evaluator for which only jokers are wild.
+     */
+    public WildCardHandEvaluator()
+    {
+        this(EnumSet.noneOf(PlayingCard.class));
+    }
+
+
+    /**
+     * @param wildCards The cards that are wild, in addition to any jokers.
+     */
+    public WildCardHandEvaluator(Set<PlayingCard> wildCards)
+    {
+        long mask = 0;
+        for (PlayingCard card : wildCards)
+        {
+            mask |= 1L << card.ordinal();
+        }
+        this.wildCards = mask;
+    }
+
+
+    /**
+     * @return An evaluator for which all four deuces (and any jokers) are wild.
+     */
+    public static WildCardHandEvaluator createDeucesWild()
+    {
+        return new WildCardHandEvaluator(EnumSet.of(PlayingCard.TWO_OF_CLUBS,
+                                                    PlayingCard.TWO_OF_DIAMONDS,
+                                                    PlayingCard.TWO_OF_HEARTS,
+                                                    PlayingCard.TWO_OF_SPADES));
+    }
+
+
+    /**
+     * Finds the best hand that ignores suits, by trying each rank for one of the wild cards.
+     * @param rankCounts The natural cards, packed as for {@link RankMultisetHash}.
+     * @param naturals The number of natural cards.
+     * @param wild The number of wild cards (at least one).
+     * @param fewerWild The table for hands with one more natural card and one fewer wild card.
+     */
+    private static int rankWithoutFlush(long rankCounts, int naturals, int wild, short[] fewerWild)
+    {
+        // Nothing beats five-of-a-kind, so make it with the highest rank possible.
+        for (int rank = RANK_COUNT - 1; rank >= 0; rank--)
+        {
+            if (RankMultisetHash.count(rankCounts, rank) + wild >= RankedHand.HAND_SIZE)
+            {
+                return FIVE_OF_A_KIND_BASE + rank;
+            }
+        }
+        // Otherwise no rank can reach five, so adding one card to any rank is a valid hand.
+        int best = 0;
+        for (int rank = 0; rank < RANK_COUNT; rank++)
+        {
+            long withWild = RankMultisetHash.add(rankCounts, rank);
+            best = Math.max(best, fewerWild[RankMultisetHash.index(withWild, naturals + 1)]);
+        }
+        return best;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.  Jokers are null.
+     * @return The best 5-card hand, with each wild card replaced by the card that it
+     * stands for.
+     */
+    public RankedHand evaluate(List<PlayingCard> cards)
+    {
+        PlayingCard[] hand = new PlayingCard[RankedHand.HAND_SIZE];
+        HandRanking ranking = selectCards(cards, rank(cards), hand, null);
+        return new RankedHand(hand[0], hand[1], hand[2], hand[3], hand[4], ranking);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.  Jokers are null.
+     */
+    public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+    {
+        int rank = rank(cards);
+        selectCards(cards, rank, result.update(getRanking(rank), rank), null);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param cards Five, six or seven cards in any order.  Jokers are null.
+     */
+    public HandRanking getRanking(List<PlayingCard> cards)
+    {
+        return getRanking(rank(cards));
+    }
+
+
+    /**
+     * @param cards Five, six or seven cards in any order.  Jokers are null.
+     * @return The strength of the best 5-card hand that can be made from the cards, in the
+     * range 1 - {@link #CLASS_COUNT}.  Higher values are better hands.
+     */
+    public int rank(List<PlayingCard> cards)
+    {
+        int handSize = cards.size();
+        if (handSize < RankedHand.HAND_SIZE || handSize > RankMultisetHash.MAX_CARDS)
+        {
+            throw new IllegalArgumentException("Hand must contain 5, 6 or 7 cards.");
+        }
+        long suitMasks = 0;
+        long rankCounts = 0;
+        int wild = 0;
+        for (int i = 0; i < handSize; i++)
+        {
+            PlayingCard card = cards.get(i);
+            if (isWild(card))
+            {
+                ++wild;
+            }
+            else
+            {
+                suitMasks |= BitMaskHandEvaluator.bit(card.ordinal());
+                rankCounts = RankMultisetHash.add(rankCounts, card.ordinal() >> 2);
+            }
+        }
+        if (wild > MAX_WILD_CARDS)
+        {
+            return FIVE_OF_A_KIND_BASE + FaceValue.ACE.ordinal();
+        }
+        int best = NON_FLUSHES[handSize][wild][RankMultisetHash.index(rankCounts, handSize - wild)];
+        for (int suit = 0; suit < SUIT_COUNT; suit++)
+        {
+            int ranks = BitMaskHandEvaluator.lane(suitMasks, suit);
+            if (Integer.bitCount(ranks) + wild >= RankedHand.HAND_SIZE)
+            {
+                best = Math.max(best, FLUSHES[wild][ranks]);
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * Finds out which card each wild card stands for in the best hand.
+     * @param cards Five, six or seven cards in any order.  Jokers are null.
+     * @return One card for each wild card, in the order that the wild cards appear in the
+     * list.  An element is null if that wild card is not needed for the best hand.  In a
+     * five-of-a-kind, a wild card may stand for a card that is already in the hand.
+     */
+    public List<PlayingCard> getSubstitutes(List<PlayingCard> cards)
+    {
+        int wild = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            if (isWild(cards.get(i)))
+            {
+                ++wild;
+            }
+        }
+        PlayingCard[] substitutes = new PlayingCard[wild];
+        selectCards(cards, rank(cards), new PlayingCard[RankedHand.HAND_SIZE], substitutes);
+        return Arrays.asList(substitutes);
+    }
+
+
+    /**
+     * @param rank A hand strength in the range 1 - {@link #CLASS_COUNT}.
+     * @return The ranking (e.g. FLUSH or FIVE_OF_A_KIND) of hands with this strength.
+     */
+    public static HandRanking getRanking(int rank)
+    {
+        return rank >= FIVE_OF_A_KIND_BASE ? HandRanking.FIVE_OF_A_KIND : HandStrength.getRanking(rank);
+    }
+
+
+    private boolean isWild(PlayingCard card)
+    {
+        return card == null || (wildCards & (1L << card.ordinal())) != 0;
+    }
+
+
+    /**
+     * Picks the cards of a hand whose strength is already known, using natural cards where
+     * possible and wild cards for the rest.
+     * @param hand An array of 5 elements that is filled with the cards of the hand, in
+     * descending order of significance.
+     * @param substitutes If not null, filled with the card that each wild card stands for.
+     * @return The ranking of the hand.
+     */
+    private HandRanking selectCards(List<PlayingCard> cards, int rank, PlayingCard[] hand, PlayingCard[] substitutes)
+    {
+        long naturals = 0;
+        int wild = 0;
+        for (int i = 0; i < cards.size(); i++)
+        {
+            PlayingCard card = cards.get(i);
+            if (isWild(card))
+            {
+                ++wild;
+            }
+            else
+            {
+                naturals |= BitMaskHandEvaluator.bit(card.ordinal());
+            }
+        }
+
+        HandRanking ranking = getRanking(rank);
+        int descriptor = ranking == HandRanking.FIVE_OF_A_KIND ? describeFiveOfAKind(rank - FIVE_OF_A_KIND_BASE)
+                                                                : HandStrength.getDescriptor(rank);
+        int flushSuit = -1;
+        if (ranking == HandRanking.FLUSH
+            || ranking == HandRanking.STRAIGHT_FLUSH
+            || ranking == HandRanking.ROYAL_FLUSH)
+        {
+            int faces = 0;
+            for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+            {
+                faces |= 1 << ((descriptor >>> (16 - 4 * i)) & 0xF);
+            }
+            // The highest suit whose natural cards, with the wild cards, make the flush.
+            flushSuit = SUIT_COUNT - 1;
+            while (Integer.bitCount(faces & ~(int) (naturals >>> (flushSuit * BitMaskHandEvaluator.LANE_WIDTH))) > wild)
+            {
+                --flushSuit;
+            }
+        }
+
+        long available = naturals;
+        long substituted = 0;
+        int used = 0;
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            int face = (descriptor >>> (16 - 4 * i)) & 0xF;
+            int suit = flushSuit >= 0 ? flushSuit : highestSuit(available, face);
+            if (suit >= 0 && (available & bit(face, suit)) != 0)
+            {
+                available &= ~bit(face, suit);
+            }
+            else
+            {
+                if (suit < 0)
+                {
+                    // Prefer a card that is not already in the hand.
+                    suit = highestSuit(~(naturals | substituted), face);
+                    suit = suit < 0 ? SUIT_COUNT - 1 : suit;
+                }
+                substituted |= bit(face, suit);
+                if (substitutes != null)
+                {
+                    substitutes[used] = CARDS[face * 4 + suit];
+                }
+                ++used;
+            }
+            hand[i] = CARDS[face * 4 + suit];
+        }
+        return ranking;
+    }
+
+
+    private static int describeFiveOfAKind(int face)
+    {
+        int descriptor = HandRanking.FIVE_OF_A_KIND.ordinal();
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            descriptor = (descriptor << 4) | face;
+        }
+        return descriptor;
+    }
+
+
+    private static long bit(int face, int suit)
+    {
+        return 1L << (suit * BitMaskHandEvaluator.LANE_WIDTH + face);
+    }
+
+
+    /**
+     * @return The highest suit for which the card of the specified face value is in the
+     * mask, or -1 if there is none.
+     */
+    private static int highestSuit(long suitMasks, int face)
+    {
+        for (int suit = SUIT_COUNT - 1; suit >= 0; suit--)
+        {
+            if ((suitMasks & bit(face, suit)) != 0)
+            {
+                return suit;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,51 @@
+package org.uncommons.poker.game.rules;
+
+import org.uncommons.poker.game.cards.RankedHand;
+
+/**
+ * The two halves of a player's hand in a high/low split game.
+ * @author Daniel Dyer
+ */
+public final class HighLowHand
+{
+    private final RankedHand highHand;
+    private final RankedHand lowHand;
+
+    /**
+     * @param highHand The player's best high hand.
+     * @param lowHand The player's best qualifying low hand, or null if the player has none.
+     */
+    public HighLowHand(RankedHand highHand, RankedHand lowHand)
+    {
+        this.highHand = highHand;
+        this.lowHand = lowHand;
+    }
+
+
+    public RankedHand getHighHand()
+    {
+        return highHand;
+    }
+
+
+    /**
+     * @return The player's best qualifying low hand, or null if the player does not have one.
+     */
+    public RankedHand getLowHand()
+    {
+        return lowHand;
+    }
+
+
+    public boolean hasLowHand()
+    {
+        return lowHand != null;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return highHand + " / " + (lowHand == null ? "no low" : lowHand);
+    }
+}
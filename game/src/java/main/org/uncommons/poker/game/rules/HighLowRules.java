@@ -0,0 +1,22 @@
+package org.uncommons.poker.game.rules;
+
+import java.util.List;
+import org.uncommons.poker.game.cards.PlayingCard;
+
+/**
+ * {@link PokerRules} for games that can be played high/low split, in which half of the pot
+ * goes to the best high hand and half to the best eight-or-better low hand (if any player
+ * has one).
+ * @author Daniel Dyer
+ */
+public interface HighLowRules extends PokerRules
+{
+    /**
+     * Ranks both halves of a player's hand in a single call.
+     * @param playerCards The player's hole cards (and/or face-up cards).
+     * @param communityCards The community cards for use by all players.
+     * @return The player's best high hand and best qualifying low hand.
+     */
+    HighLowHand rankHighLow(List<PlayingCard> playerCards,
+                            List<PlayingCard> communityCards);
+}
@@ -0,0 +1,72 @@
+package org.uncommons.poker.game.rules;
+
+import java.util.List;
+import org.uncommons.poker.game.cards.OmahaBoardContext;
+import org.uncommons.poker.game.cards.PlayingCard;
+import org.uncommons.poker.game.cards.RankedHand;
+
+/**
+ * Rules for Omaha and its variants with more hole cards.  Unlike Texas Hold'em, a
+ * hand must be made from exactly two of the player's hole cards and exactly three of
+ * the community cards.  In Omaha Hi/Lo, this applies to the high and low hands
+ * separately, so a player may use different hole cards for each.
+ * @author Daniel Dyer
+ */
+public class Omaha implements HighLowRules
+{
+    private final int holeCardCount;
+
+
+    /**
+     * Rules for standard (4 hole card) Omaha.
+     */
+    public Omaha()
+    {
+        this(4);
+    }
+
+
+    /**
+     * @param holeCardCount The number of hole cards dealt to each player, 4 (standard
+     * Omaha), 5 (5-card Omaha, also known as Big O) or 6 (6-card Omaha).
+     */
+    public Omaha(int holeCardCount)
+    {
+        if (holeCardCount < 4 || holeCardCount > 6)
+        {
+            throw new IllegalArgumentException("Omaha is played with 4, 5 or 6 hole cards.");
+        }
+        this.holeCardCount = holeCardCount;
+    }
+
+
+    /**
+     * Ranks a player's hand.  When ranking many players' hands against the same community
+     * cards, it is faster to create one {@link OmahaBoardContext} and use it for every
+     * player.
+     */
+    public RankedHand rankHand(List<PlayingCard> playerCards,
+                               List<PlayingCard> communityCards)
+    {
+        checkHoleCards(playerCards);
+        return new OmahaBoardContext(communityCards).evaluate(playerCards);
+    }
+
+
+    public HighLowHand rankHighLow(List<PlayingCard> playerCards,
+                                   List<PlayingCard> communityCards)
+    {
+        checkHoleCards(playerCards);
+        OmahaBoardContext board = new OmahaBoardContext(communityCards);
+        return new HighLowHand(board.evaluate(playerCards), board.evaluateLow(playerCards));
+    }
+
+
+    private void checkHoleCards(List<PlayingCard> playerCards)
+    {
+        if (playerCards.size() != holeCardCount)
+        {
+            throw new IllegalArgumentException("Player must have " + holeCardCount + " hole cards.");
+        }
+    }
+}
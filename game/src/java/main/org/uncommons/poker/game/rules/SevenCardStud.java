@@ -0,0 +1,139 @@
+package org.uncommons.poker.game.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.uncommons.poker.game.cards.CardUtils;
+import org.uncommons.poker.game.cards.EightOrBetterLowEvaluator;
+import org.uncommons.poker.game.cards.HandEvaluator;
+import org.uncommons.poker.game.cards.OrderIndependentEvaluator;
+import org.uncommons.poker.game.cards.PlayingCard;
+import org.uncommons.poker.game.cards.RankedHand;
+import org.uncommons.poker.game.cards.SevenCardHandEvaluator;
+import org.uncommons.poker.game.cards.StudBoardEvaluator;
+
+/**
+ * Rules for 7-Card Stud (and 7-Card Stud Hi/Lo).  Each player has seven cards of their own,
+ * three face-down and four face-up, and may use any five of them.  The face-up cards
+ * determine the order of play, so as well as ranking final hands, these rules rank partial
+ * boards of face-up cards on every street.
+ * @author Daniel Dyer
+ */
+public class SevenCardStud implements HighLowRules
+{
+    private static final EightOrBetterLowEvaluator LOW_EVALUATOR = new EightOrBetterLowEvaluator();
+    private static final StudBoardEvaluator BOARD_EVALUATOR = new StudBoardEvaluator();
+
+    private final HandEvaluator handEvaluator;
+
+
+    public SevenCardStud()
+    {
+        this(new SevenCardHandEvaluator());
+    }
+
+
+    /**
+     * @param handEvaluator A 7-card hand evaluator.
+     */
+    public SevenCardStud(HandEvaluator handEvaluator)
+    {
+        this.handEvaluator = handEvaluator;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * @param playerCards All of the player's cards, face-down and face-up.
+     * @param communityCards Normally empty.  If there are not enough cards left in the
+     * deck for every player to receive a seventh card, a single community card is dealt
+     * instead.
+     */
+    public RankedHand rankHand(List<PlayingCard> playerCards,
+                               List<PlayingCard> communityCards)
+    {
+        return handEvaluator.evaluate(combineCards(playerCards, communityCards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * As with the high hand, the low hand can be made from any 5 of the 7 cards.
+     */
+    public HighLowHand rankHighLow(List<PlayingCard> playerCards,
+                                   List<PlayingCard> communityCards)
+    {
+        List<PlayingCard> allCards = combineCards(playerCards, communityCards);
+        return new HighLowHand(handEvaluator.evaluate(allCards), LOW_EVALUATOR.evaluate(allCards));
+    }
+
+
+    private List<PlayingCard> combineCards(List<PlayingCard> playerCards,
+                                           List<PlayingCard> communityCards)
+    {
+        List<PlayingCard> allCards = new ArrayList<PlayingCard>(playerCards.size() + communityCards.size());
+        allCards.addAll(playerCards);
+        allCards.addAll(communityCards);
+
+        // Most seven-card evaluators expect the cards to be sorted.
+        if (!(handEvaluator instanceof OrderIndependentEvaluator))
+        {
+            CardUtils.sevenCardSort(allCards);
+        }
+        return allCards;
+    }
+
+
+    /**
+     * Ranks a player's face-up cards.  Only pairs, two pair, three of a kind and four of a
+     * kind count; straights and flushes do not.
+     * @param faceUpCards Between one and four face-up cards.
+     * @return A strength that is higher for better boards.  Only the strengths of boards with
+     * the same number of cards can be compared.
+     */
+    public int rankFaceUpCards(List<PlayingCard> faceUpCards)
+    {
+        return BOARD_EVALUATOR.rank(faceUpCards);
+    }
+
+
+    /**
+     * Determines which player acts first on a betting round.  On third street (one face-up
+     * card each), the player with the lowest card must bring in, with suits (clubs lowest,
+     * then diamonds, hearts and spades) breaking ties.  On later streets, the player with
+     * the best face-up cards acts first and, if two or more players have equal boards, the
+     * one closest to the dealer's left acts first.
+     * @param faceUpCards The face-up cards of each player still in the hand, starting with
+     * the player closest to the dealer's left.  Every player must have the same number of
+     * face-up cards.
+     * @return The index of the player who acts first.
+     */
+    public int getFirstToAct(List<List<PlayingCard>> faceUpCards)
+    {
+        int first = 0;
+        if (faceUpCards.get(0).size() == 1)
+        {
+            // Card ordinals are ordered by face value and then by suit.
+            for (int i = 1; i < faceUpCards.size(); i++)
+            {
+                if (faceUpCards.get(i).get(0).ordinal() < faceUpCards.get(first).get(0).ordinal())
+                {
+                    first = i;
+                }
+            }
+        }
+        else
+        {
+            int best = rankFaceUpCards(faceUpCards.get(0));
+            for (int i = 1; i < faceUpCards.size(); i++)
+            {
+                int strength = rankFaceUpCards(faceUpCards.get(i));
+                if (strength > best)
+                {
+                    best = strength;
+                    first = i;
+                }
+            }
+        }
+        return first;
+    }
+}
@@ -2,17 +2,21 @@ package org.uncommons.poker.game.rules;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.uncommons.poker.game.cards.EightOrBetterLowEvaluator;
 import org.uncommons.poker.game.cards.HandEvaluator;
 import org.uncommons.poker.game.cards.PlayingCard;
 import org.uncommons.poker.game.cards.RankedHand;
 import org.uncommons.poker.game.cards.CardUtils;
+import org.uncommons.poker.game.cards.OrderIndependentEvaluator;
 import org.uncommons.poker.game.cards.SevenCardHandEvaluator;
 
 /**
  * @author Daniel Dyer
  */
-public class TexasHoldem implements PokerRules
+public class TexasHoldem implements HighLowRules
 {
+    private static final EightOrBetterLowEvaluator LOW_EVALUATOR = new EightOrBetterLowEvaluator();
+
     private final HandEvaluator handEvaluator;
 
 
@@ -33,6 +37,25 @@ public class TexasHoldem implements PokerRules
     
     public RankedHand rankHand(List<PlayingCard> playerCards,
                                List<PlayingCard> communityCards)
+    {
+        return handEvaluator.evaluate(combineCards(playerCards, communityCards));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * As with the high hand, the low hand can be made from any 5 of the 7 cards.
+     */
+    public HighLowHand rankHighLow(List<PlayingCard> playerCards,
+                                   List<PlayingCard> communityCards)
+    {
+        List<PlayingCard> allCards = combineCards(playerCards, communityCards);
+        return new HighLowHand(handEvaluator.evaluate(allCards), LOW_EVALUATOR.evaluate(allCards));
+    }
+
+
+    private List<PlayingCard> combineCards(List<PlayingCard> playerCards,
+                                           List<PlayingCard> communityCards)
     {
         // There are no restrictions on the use of hole cards in Texas Hold'em.  A hand
         // can be made from any 5 of the 7 cards (2 hole cards and 5 community cards)
@@ -41,9 +64,11 @@ public class TexasHoldem implements PokerRules
         allCards.addAll(playerCards);
         allCards.addAll(communityCards);
 
-        // The seven-card evaluator expects the cards to be sorted.
-        CardUtils.sevenCardSort(allCards);
-
-        return handEvaluator.evaluate(allCards);
+        // Most seven-card evaluators expect the cards to be sorted.
+        if (!(handEvaluator instanceof OrderIndependentEvaluator))
+        {
+            CardUtils.sevenCardSort(allCards);
+        }
+        return allCards;
     }
 }
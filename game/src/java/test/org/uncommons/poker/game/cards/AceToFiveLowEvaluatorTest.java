@@ -0,0 +1,115 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link AceToFiveLowEvaluator}.
+ * @author Daniel Dyer
+ */
+public class AceToFiveLowEvaluatorTest
+{
+    private final AceToFiveLowEvaluator evaluator = new AceToFiveLowEvaluator();
+
+    @Test
+    public void testWheel()
+    {
+        // Straights and flushes don't count against the hand.
+        List<PlayingCard> wheel = Arrays.asList(PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.FOUR_OF_HEARTS,
+                                                PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.ACE_OF_HEARTS);
+        assert evaluator.rank(wheel) == AceToFiveLowEvaluator.CLASS_COUNT : "Wheel should be the best low.";
+        RankedHand hand = evaluator.evaluate(wheel);
+        assert hand.getRanking() == HandRanking.HIGH_CARD : "Wrong ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.FIVE_OF_HEARTS : "Five should be the most significant card.";
+        assert hand.getCard(4) == PlayingCard.ACE_OF_HEARTS : "Ace should be the least significant card.";
+    }
+
+
+    @Test
+    public void testHighestCardCountsFirst()
+    {
+        List<PlayingCard> sixLow = Arrays.asList(PlayingCard.SIX_OF_CLUBS,
+                                                 PlayingCard.FOUR_OF_DIAMONDS,
+                                                 PlayingCard.THREE_OF_HEARTS,
+                                                 PlayingCard.TWO_OF_SPADES,
+                                                 PlayingCard.ACE_OF_CLUBS);
+        List<PlayingCard> sevenLow = Arrays.asList(PlayingCard.SEVEN_OF_CLUBS,
+                                                   PlayingCard.FIVE_OF_DIAMONDS,
+                                                   PlayingCard.FOUR_OF_HEARTS,
+                                                   PlayingCard.THREE_OF_SPADES,
+                                                   PlayingCard.TWO_OF_CLUBS);
+        List<PlayingCard> kingLow = Arrays.asList(PlayingCard.KING_OF_CLUBS,
+                                                  PlayingCard.QUEEN_OF_DIAMONDS,
+                                                  PlayingCard.JACK_OF_HEARTS,
+                                                  PlayingCard.TEN_OF_SPADES,
+                                                  PlayingCard.NINE_OF_CLUBS);
+        List<PlayingCard> pairOfAces = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                     PlayingCard.ACE_OF_DIAMONDS,
+                                                     PlayingCard.THREE_OF_HEARTS,
+                                                     PlayingCard.TWO_OF_SPADES,
+                                                     PlayingCard.FOUR_OF_CLUBS);
+        assert evaluator.rank(sixLow) > evaluator.rank(sevenLow) : "6-low should beat 7-low.";
+        assert evaluator.rank(kingLow) > evaluator.rank(pairOfAces) : "Any unpaired hand should beat a pair.";
+        assert evaluator.evaluate(pairOfAces).getRanking() == HandRanking.PAIR : "Hand should be a pair.";
+    }
+
+
+    /**
+     * In Razz, the best 5 of 7 cards are used, so pairs can be avoided.
+     */
+    @Test
+    public void testSevenCards()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.KING_OF_CLUBS,
+                                                PlayingCard.EIGHT_OF_DIAMONDS,
+                                                PlayingCard.EIGHT_OF_HEARTS,
+                                                PlayingCard.THREE_OF_SPADES,
+                                                PlayingCard.ACE_OF_CLUBS,
+                                                PlayingCard.THREE_OF_DIAMONDS,
+                                                PlayingCard.SIX_OF_CLUBS);
+        RankedHand hand = evaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.HIGH_CARD : "Wrong ranking: " + hand.getRanking();
+        assert hand.getCard(0).getValue() == FaceValue.KING : "Should be king-low: " + hand;
+        assert evaluator.rank(cards) == evaluator.rank(Arrays.asList(PlayingCard.KING_OF_CLUBS,
+                                                                     PlayingCard.EIGHT_OF_DIAMONDS,
+                                                                     PlayingCard.SIX_OF_CLUBS,
+                                                                     PlayingCard.THREE_OF_SPADES,
+                                                                     PlayingCard.ACE_OF_CLUBS)) : "Wrong strength.";
+    }
+
+
+    @Test
+    public void testBestOfSevenCards()
+    {
+        MersenneTwisterRNG rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 10000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            int best = 0;
+            for (int omit1 = 0; omit1 < 7; omit1++)
+            {
+                for (int omit2 = omit1 + 1; omit2 < 7; omit2++)
+                {
+                    List<PlayingCard> hand = new ArrayList<PlayingCard>(cards);
+                    hand.remove(omit2);
+                    hand.remove(omit1);
+                    best = Math.max(best, evaluator.rank(hand));
+                }
+            }
+            assert evaluator.rank(cards) == best : "Wrong strength for " + cards;
+        }
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewCards()
+    {
+        evaluator.rank(Arrays.asList(PlayingCard.ACE_OF_CLUBS, PlayingCard.TWO_OF_CLUBS));
+    }
+}
@@ -0,0 +1,225 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link BitMaskHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class BitMaskHandEvaluatorTest
+{
+    private final HandEvaluator handEvaluator = new BitMaskHandEvaluator();
+
+    /**
+     * The cards do not need to be sorted and the list should not be modified.
+     */
+    @Test
+    public void testUnsortedInput()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.NINE_OF_CLUBS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.KING_OF_DIAMONDS,
+                                                PlayingCard.FOUR_OF_HEARTS);
+        List<PlayingCard> copy = new ArrayList<PlayingCard>(cards);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.STRAIGHT_FLUSH : "Wrong hand ranking: " + hand.getRanking();
+        // The five is the most significant card, the ace the least.
+        assert hand.getCard(0) == PlayingCard.FIVE_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(1) == PlayingCard.FOUR_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(2) == PlayingCard.THREE_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(3) == PlayingCard.TWO_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.ACE_OF_HEARTS : "Wrong order.";
+        assert cards.equals(copy) : "Input should not be modified.";
+    }
+
+
+    /**
+     * When there are three pairs, the kicker should come from the lowest pair if that
+     * is higher than the remaining card.
+     */
+    @Test
+    public void testTwoPairKickerFromThirdPair()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.TWO_OF_CLUBS,
+                                                PlayingCard.JACK_OF_SPADES,
+                                                PlayingCard.SEVEN_OF_DIAMONDS,
+                                                PlayingCard.QUEEN_OF_HEARTS,
+                                                PlayingCard.SEVEN_OF_CLUBS,
+                                                PlayingCard.QUEEN_OF_CLUBS,
+                                                PlayingCard.JACK_OF_DIAMONDS);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.TWO_PAIR : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.QUEEN_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(1) == PlayingCard.QUEEN_OF_CLUBS : "Wrong order.";
+        assert hand.getCard(2) == PlayingCard.JACK_OF_SPADES : "Wrong order.";
+        assert hand.getCard(3) == PlayingCard.JACK_OF_DIAMONDS : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.SEVEN_OF_DIAMONDS : "Wrong kicker: " + hand.getCard(4);
+    }
+
+
+    @Test
+    public void testFiveCardHand()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.SEVEN_OF_CLUBS,
+                                                PlayingCard.JACK_OF_SPADES,
+                                                PlayingCard.SEVEN_OF_SPADES,
+                                                PlayingCard.JACK_OF_HEARTS,
+                                                PlayingCard.JACK_OF_DIAMONDS);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.FULL_HOUSE : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0).getValue() == FaceValue.JACK : "Wrong order.";
+        assert hand.getCard(3).getValue() == FaceValue.SEVEN : "Wrong order.";
+    }
+
+
+    /**
+     * Randomly generated 7-card hands should be ranked exactly as they are by the
+     * list-based {@link SevenCardHandEvaluator}.
+     */
+    @Test
+    public void testConsistencyWithSevenCardEvaluator()
+    {
+        HandEvaluator reference = new SevenCardHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            RankedHand hand = handEvaluator.evaluate(cards);
+            CardUtils.sevenCardSort(cards);
+            RankedHand expected = reference.evaluate(cards);
+            assert hand.getRanking() == expected.getRanking() : "Wrong ranking for " + cards + ": " + hand;
+            // The reference evaluator will sometimes take the kicker for four-of-a-kind from a
+            // lower pair rather than a higher single card (e.g. 4444 88 K), so for quads we only
+            // check that this evaluator did at least as well.
+            if (hand.getRanking() == HandRanking.FOUR_OF_A_KIND)
+            {
+                assert hand.compareTo(expected) >= 0 : "Wrong cards for " + cards + ": " + hand;
+            }
+            else
+            {
+                assert Arrays.equals(hand.getCards(), expected.getCards()) : "Wrong cards for " + cards + ": " + hand;
+            }
+        }
+    }
+
+
+    /**
+     * Randomly generated 5-card hands should be ranked exactly as they are by the
+     * list-based {@link FiveCardHandEvaluator}.
+     */
+    @Test
+    public void testConsistencyWithFiveCardEvaluator()
+    {
+        HandEvaluator reference = new FiveCardHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(5);
+            RankedHand hand = handEvaluator.evaluate(cards);
+            CardUtils.fiveCardSort(cards);
+            RankedHand expected = reference.evaluate(cards);
+            assert hand.getRanking() == expected.getRanking() : "Wrong ranking for " + cards + ": " + hand;
+            assert Arrays.equals(hand.getCards(), expected.getCards()) : "Wrong cards for " + cards + ": " + hand;
+        }
+    }
+
+
+    /**
+     * The category-only entry points should agree with the full evaluation, both for this
+     * evaluator and for the list-based evaluators that share its mask-driven fast path.
+     */
+    @Test
+    public void testGetRanking()
+    {
+        HandEvaluator fiveCardEvaluator = new FiveCardHandEvaluator();
+        HandEvaluator sevenCardEvaluator = new SevenCardHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int handSize : new int[]{5, 6, 7})
+        {
+            for (int i = 0; i < 100000; i++)
+            {
+                List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(handSize);
+                List<PlayingCard> copy = new ArrayList<PlayingCard>(cards);
+                HandRanking ranking = handEvaluator.getRanking(cards);
+                assert ranking == handEvaluator.evaluate(cards).getRanking() : "Wrong ranking for " + cards;
+                if (handSize == 7)
+                {
+                    assert sevenCardEvaluator.getRanking(cards) == ranking : "Wrong 7-card ranking for " + cards;
+                }
+                assert cards.equals(copy) : "Input should not be modified.";
+                if (handSize == 5)
+                {
+                    CardUtils.fiveCardSort(cards);
+                    copy = new ArrayList<PlayingCard>(cards);
+                    assert fiveCardEvaluator.getRanking(cards) == ranking : "Wrong 5-card ranking for " + cards;
+                    assert cards.equals(copy) : "Input should not be modified.";
+                }
+            }
+        }
+        List<PlayingCard> royalFlush = Arrays.asList(PlayingCard.TWO_OF_CLUBS,
+                                                     PlayingCard.KING_OF_SPADES,
+                                                     PlayingCard.TEN_OF_SPADES,
+                                                     PlayingCard.ACE_OF_SPADES,
+                                                     PlayingCard.JACK_OF_SPADES,
+                                                     PlayingCard.TWO_OF_HEARTS,
+                                                     PlayingCard.QUEEN_OF_SPADES);
+        assert handEvaluator.getRanking(royalFlush) == HandRanking.ROYAL_FLUSH : "Wrong ranking for royal flush.";
+        assert sevenCardEvaluator.getRanking(royalFlush) == HandRanking.ROYAL_FLUSH : "Wrong ranking for royal flush.";
+    }
+
+
+    /**
+     * Ranking hands in bulk should give the same strengths as ranking them one at a time.
+     * The number of hands is not a multiple of any batch size that the evaluator might use
+     * internally.
+     */
+    @Test
+    public void testRankAll()
+    {
+        BatchHandEvaluator batchEvaluator = new BitMaskHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int handSize : new int[]{5, 6, 7})
+        {
+            int handCount = 10001;
+            int[] cards = new int[handCount * handSize];
+            List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>(handCount);
+            for (int i = 0; i < handCount; i++)
+            {
+                List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(handSize);
+                for (int j = 0; j < handSize; j++)
+                {
+                    cards[i * handSize + j] = hand.get(j).ordinal();
+                }
+                hands.add(hand);
+            }
+            int[] ranks = new int[handCount];
+            batchEvaluator.rankAll(cards, handSize, handCount, ranks);
+            for (int i = 0; i < handCount; i++)
+            {
+                assert ranks[i] == batchEvaluator.rank(hands.get(i)) : "Wrong strength for " + hands.get(i);
+            }
+        }
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewCards()
+    {
+        new BitMaskHandEvaluator().evaluate(Deck.createFullDeck(new MersenneTwisterRNG()).dealCards(4));
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooManyCards()
+    {
+        new BitMaskHandEvaluator().rank(Deck.createFullDeck(new MersenneTwisterRNG()).dealCards(8));
+    }
+}
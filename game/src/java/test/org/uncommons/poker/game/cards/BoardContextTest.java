@@ -0,0 +1,72 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link BoardContext}.
+ * @author Daniel Dyer
+ */
+public class BoardContextTest
+{
+    private final HandStrengthEvaluator referenceEvaluator = new BitMaskHandEvaluator();
+
+    /**
+     * Ranking hole cards against a board should give the same answer as ranking all
+     * of the cards together, for boards of 3, 4 and 5 cards.
+     */
+    @Test
+    public void testRandomHands()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int boardSize = 3; boardSize <= 5; boardSize++)
+        {
+            for (int i = 0; i < 20000; i++)
+            {
+                Deck deck = Deck.createFullDeck(rng);
+                List<PlayingCard> board = deck.dealCards(boardSize);
+                BoardContext context = new BoardContext(board);
+                // Several players share each board.
+                for (int j = 0; j < 10; j++)
+                {
+                    PlayingCard holeCard1 = deck.dealCard();
+                    PlayingCard holeCard2 = deck.dealCard();
+                    List<PlayingCard> cards = new ArrayList<PlayingCard>(board);
+                    cards.add(holeCard1);
+                    cards.add(holeCard2);
+                    assert context.rank(holeCard1, holeCard2) == referenceEvaluator.rank(cards) : "Wrong strength for " + cards;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A flush can be made only with a board suit that has at least three cards.
+     */
+    @Test
+    public void testFlush()
+    {
+        BoardContext context = new BoardContext(Arrays.asList(PlayingCard.TWO_OF_HEARTS,
+                                                              PlayingCard.NINE_OF_HEARTS,
+                                                              PlayingCard.KING_OF_HEARTS,
+                                                              PlayingCard.KING_OF_CLUBS,
+                                                              PlayingCard.FIVE_OF_SPADES));
+        RankedHand hand = context.evaluate(PlayingCard.ACE_OF_HEARTS, PlayingCard.THREE_OF_HEARTS);
+        assert hand.getRanking() == HandRanking.FLUSH : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.ACE_OF_HEARTS : "Wrong first card: " + hand.getCard(0);
+        hand = context.evaluate(PlayingCard.ACE_OF_HEARTS, PlayingCard.KING_OF_SPADES);
+        assert hand.getRanking() == HandRanking.THREE_OF_A_KIND : "Wrong hand ranking: " + hand.getRanking();
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBoardTooSmall()
+    {
+        new BoardContext(Arrays.asList(PlayingCard.TWO_OF_HEARTS, PlayingCard.NINE_OF_HEARTS));
+    }
+}
@@ -0,0 +1,125 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link CachingHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class CachingHandEvaluatorTest
+{
+    /**
+     * Cached strengths must be the same as those calculated by the delegate, even when
+     * many different hands compete for the same slots.
+     */
+    @Test
+    public void testConsistentWithDelegate()
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        CachingHandEvaluator evaluator = new CachingHandEvaluator(new BitMaskHandEvaluator(), 256, true);
+        Random rng = new MersenneTwisterRNG();
+        List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>();
+        for (int i = 0; i < 1000; i++)
+        {
+            hands.add(Deck.createFullDeck(rng).dealCards(7));
+        }
+        for (int pass = 0; pass < 3; pass++)
+        {
+            for (List<PlayingCard> hand : hands)
+            {
+                assert evaluator.rank(hand) == reference.rank(hand) : "Wrong strength for " + hand;
+            }
+        }
+        assert evaluator.getHitCount() + evaluator.getMissCount() == 3000 : "Wrong number of evaluations.";
+    }
+
+
+    /**
+     * A hand that is evaluated again (in any order) should be found in the cache.
+     */
+    @Test
+    public void testHitsAndMisses()
+    {
+        // The delegate expects sorted cards, so the cache must sort them.
+        CachingHandEvaluator evaluator = new CachingHandEvaluator(new SortedHandEvaluator(),
+                                                                  CachingHandEvaluator.DEFAULT_CACHE_SIZE,
+                                                                  true);
+        Random rng = new MersenneTwisterRNG();
+        List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(7);
+        int strength = evaluator.rank(hand);
+        assert evaluator.getMissCount() == 1 : "First evaluation should miss.";
+        assert evaluator.getHitCount() == 0 : "First evaluation should not hit.";
+        Collections.shuffle(hand, rng);
+        assert evaluator.rank(hand) == strength : "Cached strength should not change.";
+        assert evaluator.getMissCount() == 1 : "Second evaluation should not miss.";
+        assert evaluator.getHitCount() == 1 : "Second evaluation should hit.";
+
+        List<PlayingCard> sorted = new ArrayList<PlayingCard>(hand);
+        CardUtils.sevenCardSort(sorted);
+        RankedHand expected = new SevenCardHandEvaluator().evaluate(sorted);
+        assert evaluator.evaluate(hand).getRanking() == expected.getRanking() : "Wrong hand ranking.";
+    }
+
+
+    /**
+     * Unless asked for, hits and misses should not be counted.
+     */
+    @Test
+    public void testNotCounting()
+    {
+        CachingHandEvaluator evaluator = new CachingHandEvaluator(new BitMaskHandEvaluator());
+        List<PlayingCard> hand = Deck.createFullDeck(new MersenneTwisterRNG()).dealCards(7);
+        evaluator.rank(hand);
+        evaluator.rank(hand);
+        assert evaluator.getHitCount() == 0 : "Hits should not be counted.";
+        assert evaluator.getMissCount() == 0 : "Misses should not be counted.";
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCacheSize()
+    {
+        new CachingHandEvaluator(new BitMaskHandEvaluator(), 1000);
+    }
+
+
+    /**
+     * A delegate that only works with cards in descending order.
+     */
+    private static final class SortedHandEvaluator implements HandStrengthEvaluator
+    {
+        private final SevenCardHandEvaluator evaluator = new SevenCardHandEvaluator();
+
+        public int rank(List<PlayingCard> cards)
+        {
+            return HandStrength.rank(evaluate(cards));
+        }
+
+
+        public RankedHand evaluate(List<PlayingCard> cards)
+        {
+            for (int i = 1; i < cards.size(); i++)
+            {
+                assert cards.get(i - 1).compareTo(cards.get(i)) > 0 : "Cards should be sorted: " + cards;
+            }
+            return evaluator.evaluate(cards);
+        }
+
+
+        public void evaluate(List<PlayingCard> cards, MutableRankedHand result)
+        {
+            evaluator.evaluate(cards, result);
+        }
+
+
+        public HandRanking getRanking(List<PlayingCard> cards)
+        {
+            return evaluate(cards).getRanking();
+        }
+    }
+}
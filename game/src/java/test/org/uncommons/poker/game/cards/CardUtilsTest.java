@@ -0,0 +1,55 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for the {@link CardUtils} class.
+ * @author Daniel Dyer
+ */
+public class CardUtilsTest
+{
+    /**
+     * The hash of an unsorted card mask should be the same as the hash of the sorted cards.
+     */
+    @Test
+    public void testSevenCardHashFromMask()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            long cardMask = CardUtils.toCardMask(cards);
+            assert Long.bitCount(cardMask) == 7 : "Wrong number of cards in mask.";
+            CardUtils.sevenCardSort(cards);
+            int expected = CardUtils.sevenCardHash(cards);
+            assert CardUtils.combinationHash(cardMask) == expected : "Wrong hash for " + cards;
+            Collections.shuffle(cards, rng);
+            assert CardUtils.combinationHash(CardUtils.toCardMask(cards)) == expected : "Wrong hash for " + cards;
+        }
+    }
+
+
+    /**
+     * The lowest and highest possible hands should have the lowest and highest hashes.
+     */
+    @Test
+    public void testSevenCardHashRange()
+    {
+        assert CardUtils.combinationHash(0x7FL) == 0 : "Lowest hand should have hash 0.";
+        long highest = 0x7FL << 45;
+        assert CardUtils.combinationHash(highest) == 133784559 : "Wrong hash: " + CardUtils.combinationHash(highest);
+    }
+
+
+    @Test
+    public void testSixCardHashRange()
+    {
+        assert CardUtils.combinationHash(0x3FL) == 0 : "Lowest hand should have hash 0.";
+        long highest = 0x3FL << 46;
+        assert CardUtils.combinationHash(highest) == 20358519 : "Wrong hash: " + CardUtils.combinationHash(highest);
+    }
+}
@@ -2,6 +2,7 @@ package org.uncommons.poker.game.cards;
 
 import org.testng.annotations.Test;
 import org.uncommons.maths.random.MersenneTwisterRNG;
+import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -30,4 +31,71 @@ public class DeckTest
         }
         assert cards.size() == 52 : "Deck should have 52 unique cards, has only " + cards.size();
     }
+
+
+    @Test
+    public void testCreateShortDeck()
+    {
+        Deck deck = Deck.createShortDeck(new MersenneTwisterRNG());
+        int size = deck.getRemainingCardCount();
+        assert size == 36 : "Short deck should have 36 cards, has " + size;
+        Set<PlayingCard> cards = new HashSet<PlayingCard>();
+        for (int i = 0; i < size; i++)
+        {
+            PlayingCard card = deck.dealCard();
+            assert card.getValue().compareTo(FaceValue.SIX) >= 0 : "Short deck should not contain " + card;
+            cards.add(card);
+        }
+        assert cards.size() == 36 : "Deck should have 36 unique cards, has only " + cards.size();
+    }
+
+
+    @Test
+    public void testCreateDeckWithJokers()
+    {
+        Deck deck = Deck.createDeckWithJokers(new MersenneTwisterRNG(), 2);
+        int size = deck.getRemainingCardCount();
+        assert size == 54 : "Deck with two jokers should have 54 cards, has " + size;
+        Set<PlayingCard> cards = new HashSet<PlayingCard>();
+        int jokers = 0;
+        for (int i = 0; i < size; i++)
+        {
+            PlayingCard card = deck.dealCard();
+            if (card == null)
+            {
+                ++jokers;
+            }
+            else
+            {
+                cards.add(card);
+            }
+        }
+        assert jokers == 2 : "Deck should have 2 jokers, has " + jokers;
+        assert cards.size() == 52 : "Deck should have 52 unique cards, has only " + cards.size();
+    }
+
+
+    @Test
+    public void testDealCards()
+    {
+        Deck deck = Deck.createFullDeck(new MersenneTwisterRNG());
+        List<PlayingCard> cards = deck.dealCards(7);
+        assert cards.size() == 7 : "Wrong number of cards dealt: " + cards.size();
+        assert new HashSet<PlayingCard>(cards).size() == 7 : "Cards should be unique: " + cards;
+        assert deck.getRemainingCardCount() == 45 : "Wrong deck size after deal.";
+    }
+
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDealTooManyCards()
+    {
+        Deck.createShortDeck(new MersenneTwisterRNG()).dealCards(37);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeJokers()
+    {
+        Deck.createDeckWithJokers(new MersenneTwisterRNG(), -1);
+    }
 }
@@ -0,0 +1,170 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link DeuceToSevenLowEvaluator}.
+ * @author Daniel Dyer
+ */
+public class DeuceToSevenLowEvaluatorTest
+{
+    private final DeuceToSevenLowEvaluator evaluator = new DeuceToSevenLowEvaluator();
+
+    @Test
+    public void testBestHand()
+    {
+        List<PlayingCard> number1 = Arrays.asList(PlayingCard.SEVEN_OF_CLUBS,
+                                                  PlayingCard.FIVE_OF_DIAMONDS,
+                                                  PlayingCard.FOUR_OF_HEARTS,
+                                                  PlayingCard.THREE_OF_SPADES,
+                                                  PlayingCard.TWO_OF_CLUBS);
+        assert evaluator.rank(number1) == DeuceToSevenLowEvaluator.CLASS_COUNT : "7-5-4-3-2 should be the best low.";
+        List<PlayingCard> royalFlush = Arrays.asList(PlayingCard.ACE_OF_SPADES,
+                                                     PlayingCard.KING_OF_SPADES,
+                                                     PlayingCard.QUEEN_OF_SPADES,
+                                                     PlayingCard.JACK_OF_SPADES,
+                                                     PlayingCard.TEN_OF_SPADES);
+        assert evaluator.rank(royalFlush) == 1 : "Royal flush should be the worst low.";
+    }
+
+
+    /**
+     * Aces are high, so A-5-4-3-2 is not a straight, but it is worse than any king-high hand.
+     */
+    @Test
+    public void testAcesHigh()
+    {
+        List<PlayingCard> aceHigh = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                  PlayingCard.FIVE_OF_DIAMONDS,
+                                                  PlayingCard.FOUR_OF_HEARTS,
+                                                  PlayingCard.THREE_OF_SPADES,
+                                                  PlayingCard.TWO_OF_CLUBS);
+        List<PlayingCard> kingHigh = Arrays.asList(PlayingCard.KING_OF_CLUBS,
+                                                   PlayingCard.QUEEN_OF_DIAMONDS,
+                                                   PlayingCard.JACK_OF_HEARTS,
+                                                   PlayingCard.TEN_OF_SPADES,
+                                                   PlayingCard.EIGHT_OF_CLUBS);
+        List<PlayingCard> pair = Arrays.asList(PlayingCard.TWO_OF_CLUBS,
+                                               PlayingCard.TWO_OF_DIAMONDS,
+                                               PlayingCard.FOUR_OF_HEARTS,
+                                               PlayingCard.THREE_OF_SPADES,
+                                               PlayingCard.FIVE_OF_CLUBS);
+        assert evaluator.evaluate(aceHigh).getRanking() == HandRanking.HIGH_CARD : "A-5-4-3-2 should not be a straight.";
+        assert evaluator.rank(kingHigh) > evaluator.rank(aceHigh) : "King-high should beat ace-high.";
+        assert evaluator.rank(aceHigh) > evaluator.rank(pair) : "Ace-high should beat a pair.";
+    }
+
+
+    @Test
+    public void testStraightsAndFlushesCount()
+    {
+        List<PlayingCard> straight = Arrays.asList(PlayingCard.SIX_OF_CLUBS,
+                                                   PlayingCard.FIVE_OF_DIAMONDS,
+                                                   PlayingCard.FOUR_OF_HEARTS,
+                                                   PlayingCard.THREE_OF_SPADES,
+                                                   PlayingCard.TWO_OF_CLUBS);
+        List<PlayingCard> flush = Arrays.asList(PlayingCard.SEVEN_OF_HEARTS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.FOUR_OF_HEARTS,
+                                                PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS);
+        List<PlayingCard> trips = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                PlayingCard.ACE_OF_DIAMONDS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.KING_OF_SPADES,
+                                                PlayingCard.QUEEN_OF_CLUBS);
+        assert evaluator.rank(trips) > evaluator.rank(straight) : "Straight should be worse than trips.";
+        assert evaluator.rank(straight) > evaluator.rank(flush) : "Flush should be worse than a straight.";
+        assert evaluator.getRanking(straight) == HandRanking.STRAIGHT : "Wrong ranking: " + evaluator.getRanking(straight);
+        assert evaluator.getRanking(flush) == HandRanking.FLUSH : "Wrong ranking: " + evaluator.getRanking(flush);
+        assert evaluator.getRanking(trips) == HandRanking.THREE_OF_A_KIND : "Wrong ranking: " + evaluator.getRanking(trips);
+    }
+
+
+    /**
+     * With seven cards, the best low must avoid making a flush where possible.
+     */
+    @Test
+    public void testAvoidFlush()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.SEVEN_OF_HEARTS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.FOUR_OF_HEARTS,
+                                                PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.SEVEN_OF_CLUBS,
+                                                PlayingCard.KING_OF_SPADES);
+        RankedHand hand = evaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.HIGH_CARD : "Wrong ranking: " + hand.getRanking();
+        assert evaluator.getRanking(cards) == HandRanking.HIGH_CARD : "Wrong ranking: " + evaluator.getRanking(cards);
+        assert hand.contains(PlayingCard.SEVEN_OF_CLUBS) : "Hand should use the off-suit seven: " + hand;
+        assert evaluator.rank(cards) == DeuceToSevenLowEvaluator.CLASS_COUNT : "Should make 7-5-4-3-2.";
+    }
+
+
+    /**
+     * Apart from the wheel, deuce-to-seven lows are ordered in exactly the opposite way to
+     * high hands.
+     */
+    @Test
+    public void testOppositeOfHighHands()
+    {
+        HandStrengthEvaluator highEvaluator = new PerfectHashHandEvaluator();
+        MersenneTwisterRNG rng = new MersenneTwisterRNG();
+        int previousLow = 0;
+        int previousHigh = 0;
+        for (int i = 0; i < 10000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(5);
+            int high = highEvaluator.rank(cards);
+            if (HandStrength.toRankedHand(high, cards).getCard(0).getValue() == FaceValue.FIVE)
+            {
+                continue; // Wheel.
+            }
+            int low = evaluator.rank(cards);
+            assert previousLow == 0 || Integer.signum(low - previousLow) == -Integer.signum(high - previousHigh)
+                : "Inconsistent order: " + cards;
+            previousLow = low;
+            previousHigh = high;
+        }
+    }
+
+
+    @Test
+    public void testBestOfSevenCards()
+    {
+        MersenneTwisterRNG rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 10000; i++)
+        {
+            Deck deck = Deck.createFullDeck(rng);
+            List<PlayingCard> cards = new ArrayList<PlayingCard>(7);
+            // Make flushes more likely by picking the first cards from a single suit.
+            while (cards.size() < 7)
+            {
+                PlayingCard card = deck.dealCard();
+                if (cards.size() >= i % 6 || card.getSuit() == Suit.HEARTS)
+                {
+                    cards.add(card);
+                }
+            }
+            int best = 0;
+            for (int omit1 = 0; omit1 < 7; omit1++)
+            {
+                for (int omit2 = omit1 + 1; omit2 < 7; omit2++)
+                {
+                    List<PlayingCard> hand = new ArrayList<PlayingCard>(cards);
+                    hand.remove(omit2);
+                    hand.remove(omit1);
+                    best = Math.max(best, evaluator.rank(hand));
+                }
+            }
+            assert evaluator.rank(cards) == best : "Wrong strength for " + cards;
+            List<PlayingCard> hand = Arrays.asList(evaluator.evaluate(cards).getCards());
+            assert evaluator.rank(hand) == best : "Evaluated hand does not match strength: " + cards;
+        }
+    }
+}
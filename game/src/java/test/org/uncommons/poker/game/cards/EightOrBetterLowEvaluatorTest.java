@@ -0,0 +1,146 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link EightOrBetterLowEvaluator}.
+ * @author Daniel Dyer
+ */
+public class EightOrBetterLowEvaluatorTest
+{
+    private final EightOrBetterLowEvaluator lowEvaluator = new EightOrBetterLowEvaluator();
+
+    /**
+     * The wheel is the best low, even though it is also a straight flush.
+     */
+    @Test
+    public void testWheel()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.KING_OF_SPADES,
+                                                PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.KING_OF_DIAMONDS,
+                                                PlayingCard.FOUR_OF_HEARTS);
+        assert lowEvaluator.rank(cards) == EightOrBetterLowEvaluator.CLASS_COUNT : "Wheel should be the best low.";
+        RankedHand hand = lowEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.LOW_EIGHT_OR_BETTER : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.FIVE_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.ACE_OF_HEARTS : "Wrong order.";
+    }
+
+
+    /**
+     * Pairs and high cards are ignored, but there must be five different low ranks.
+     */
+    @Test
+    public void testQualifier()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.EIGHT_OF_SPADES,
+                                                PlayingCard.SEVEN_OF_HEARTS,
+                                                PlayingCard.SIX_OF_CLUBS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.FIVE_OF_DIAMONDS,
+                                                PlayingCard.NINE_OF_DIAMONDS,
+                                                PlayingCard.SIX_OF_HEARTS);
+        assert lowEvaluator.rank(cards) == 0 : "Should not qualify.";
+        assert lowEvaluator.evaluate(cards) == null : "Should not qualify.";
+
+        cards = Arrays.asList(PlayingCard.EIGHT_OF_SPADES,
+                              PlayingCard.SEVEN_OF_HEARTS,
+                              PlayingCard.SIX_OF_CLUBS,
+                              PlayingCard.FIVE_OF_HEARTS,
+                              PlayingCard.FIVE_OF_DIAMONDS,
+                              PlayingCard.NINE_OF_DIAMONDS,
+                              PlayingCard.FOUR_OF_HEARTS);
+        assert lowEvaluator.rank(cards) == 1 : "Should be the worst qualifying low.";
+    }
+
+
+    /**
+     * Compare against a brute-force search of all 5-card combinations.
+     */
+    @Test
+    public void testRandomHands()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            int expected = bestLow(cards);
+            RankedHand hand = lowEvaluator.evaluate(cards);
+            if (expected == Integer.MAX_VALUE)
+            {
+                assert hand == null : "Should not qualify: " + cards;
+            }
+            else
+            {
+                assert hand != null : "Should qualify: " + cards;
+                assert lowValue(Arrays.asList(hand.getCards())) == expected : "Wrong low: " + hand;
+            }
+        }
+    }
+
+
+    /**
+     * @return The value (lower is better) of the best low hand or {@link Integer#MAX_VALUE}
+     * if there is none.
+     */
+    private static int bestLow(List<PlayingCard> cards)
+    {
+        int best = Integer.MAX_VALUE;
+        for (int a = 0; a < cards.size(); a++)
+        {
+            for (int b = a + 1; b < cards.size(); b++)
+            {
+                for (int c = b + 1; c < cards.size(); c++)
+                {
+                    for (int d = c + 1; d < cards.size(); d++)
+                    {
+                        for (int e = d + 1; e < cards.size(); e++)
+                        {
+                            List<PlayingCard> hand = Arrays.asList(cards.get(a),
+                                                                   cards.get(b),
+                                                                   cards.get(c),
+                                                                   cards.get(d),
+                                                                   cards.get(e));
+                            best = Math.min(best, lowValue(hand));
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * @return The ranks of the cards (ace = 1) as hexadecimal digits, highest first, or
+     * {@link Integer#MAX_VALUE} if the cards are not a qualifying low.
+     */
+    private static int lowValue(List<PlayingCard> hand)
+    {
+        int[] ranks = new int[hand.size()];
+        for (int i = 0; i < ranks.length; i++)
+        {
+            FaceValue value = hand.get(i).getValue();
+            ranks[i] = value == FaceValue.ACE ? 1 : value.ordinal() + 2;
+        }
+        Arrays.sort(ranks);
+        int lowValue = 0;
+        for (int i = ranks.length - 1; i >= 0; i--)
+        {
+            if (ranks[i] > 8 || (i > 0 && ranks[i] == ranks[i - 1]))
+            {
+                return Integer.MAX_VALUE;
+            }
+            lowValue = lowValue * 16 + ranks[i];
+        }
+        return lowValue;
+    }
+}
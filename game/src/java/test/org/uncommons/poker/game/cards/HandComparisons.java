@@ -0,0 +1,31 @@
+package org.uncommons.poker.game.cards;
+
+/**
+ * Reference comparisons for checking evaluators that express hands as strengths.
+ * @author Daniel Dyer
+ */
+final class HandComparisons
+{
+    private HandComparisons()
+    {
+        // Prevents instantiation.
+    }
+
+
+    /**
+     * Compares two ranked hands by their rankings and face values, the way that
+     * {@link HandStrength} does.  Unlike {@link RankedHand#compareTo(RankedHand)}, hands that
+     * differ only by suit are equal.
+     * @return -1, 0 or 1, as the first hand is worse than, equal to, or better than the
+     * second.
+     */
+    static int compareIgnoringSuits(RankedHand hand1, RankedHand hand2)
+    {
+        int compare = hand1.getRanking().compareTo(hand2.getRanking());
+        for (int i = 0; compare == 0 && i < RankedHand.HAND_SIZE; i++)
+        {
+            compare = hand1.getCard(i).getValue().compareTo(hand2.getCard(i).getValue());
+        }
+        return Integer.signum(compare);
+    }
+}
@@ -0,0 +1,102 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link HandEvaluatorFactory}.  The memory budgets are kept small so that,
+ * apart from the state machine in {@link #testMemoryBudget()}, none of the big tables are
+ * generated.
+ * @author Daniel Dyer
+ */
+public class HandEvaluatorFactoryTest
+{
+    private static final long MEGABYTE = 1024 * 1024;
+
+    /**
+     * With no memory to spare, only the evaluator that needs no tables can be chosen, and
+     * the reason should say which candidates were too big.
+     */
+    @Test
+    public void testNoMemory()
+    {
+        HandEvaluatorFactory.Selection selection = new HandEvaluatorFactory(0, 0, TableStorage.HEAP, false).create();
+        assert selection.getEvaluator() instanceof BitMaskHandEvaluator : "Wrong evaluator: " + selection;
+        assert selection.getReason().contains(LookupHandEvaluator.class.getSimpleName()) : "Missing reason: " + selection;
+        assert selection.getReason().contains(RankMultisetHandEvaluator.class.getSimpleName()) : "Missing reason: " + selection;
+        checkEvaluator(selection.getEvaluator());
+    }
+
+
+    /**
+     * A generous latency target should be met by the smallest candidate.
+     */
+    @Test
+    public void testLatencyTarget()
+    {
+        HandEvaluatorFactory.Selection selection = new HandEvaluatorFactory(MEGABYTE,
+                                                                            1000000000,
+                                                                            TableStorage.HEAP,
+                                                                            false).create();
+        assert selection.getEvaluator() instanceof BitMaskHandEvaluator : "Wrong evaluator: " + selection;
+        assert selection.getReason().contains("target") : "Reason should mention target: " + selection;
+
+        // The state machine would fit and is faster, but the bit-mask evaluator is fast enough.
+        selection = new HandEvaluatorFactory(256 * MEGABYTE, 100, TableStorage.HEAP, false).create();
+        assert selection.getEvaluator() instanceof BitMaskHandEvaluator : "Wrong evaluator: " + selection;
+    }
+
+
+    /**
+     * The memory budget should decide between the bit-mask evaluator and the much faster
+     * state machine, as it would between a small container and a big server.
+     */
+    @Test
+    public void testMemoryBudget()
+    {
+        HandEvaluatorFactory.Selection small = new HandEvaluatorFactory(64 * MEGABYTE, 0, TableStorage.HEAP, false).create();
+        assert small.getEvaluator() instanceof BitMaskHandEvaluator : "Wrong evaluator: " + small;
+        assert small.getReason().contains(StateMachineHandEvaluator.class.getSimpleName()) : "Missing reason: " + small;
+
+        HandEvaluatorFactory.Selection big = new HandEvaluatorFactory(256 * MEGABYTE, 0, TableStorage.HEAP, false).create();
+        assert big.getEvaluator() instanceof StateMachineHandEvaluator : "Wrong evaluator: " + big;
+        checkEvaluator(big.getEvaluator());
+    }
+
+
+    /**
+     * With a benchmark, the chosen evaluator must be one that fits and the reason should
+     * include the measurements.
+     */
+    @Test
+    public void testBenchmark()
+    {
+        HandEvaluatorFactory.Selection selection = new HandEvaluatorFactory(MEGABYTE, 0, TableStorage.HEAP, true).create();
+        assert selection.getEvaluator() instanceof BitMaskHandEvaluator
+               || selection.getEvaluator() instanceof RankMultisetHandEvaluator : "Wrong evaluator: " + selection;
+        assert selection.getReason().contains("measured") : "Reason should include measurements: " + selection;
+        assert selection.getReason().contains(LookupHandEvaluator.class.getSimpleName()) : "Missing reason: " + selection;
+        checkEvaluator(selection.getEvaluator());
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeBudget()
+    {
+        new HandEvaluatorFactory(-1, 0, TableStorage.HEAP, false);
+    }
+
+
+    private void checkEvaluator(HandStrengthEvaluator evaluator)
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 1000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            assert evaluator.rank(cards) == reference.rank(cards) : "Wrong strength for " + cards;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.combinatorics.CombinationGenerator;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link HandStrength} and the integer strengths produced by
+ * {@link BitMaskHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class HandStrengthTest
+{
+    private final HandStrengthEvaluator handEvaluator = new BitMaskHandEvaluator();
+
+    /**
+     * Every one of the 2,598,960 5-card hands should map to one of exactly
+     * 7,462 distinct strengths.
+     */
+    @Test
+    public void testEquivalenceClasses()
+    {
+        boolean[] seen = new boolean[HandStrength.CLASS_COUNT + 1];
+        int count = 0;
+        for (List<PlayingCard> hand : new CombinationGenerator<PlayingCard>(PlayingCard.values(), 5))
+        {
+            int rank = handEvaluator.rank(hand);
+            assert rank >= 1 && rank <= HandStrength.CLASS_COUNT : "Strength out of range: " + rank;
+            if (!seen[rank])
+            {
+                seen[rank] = true;
+                ++count;
+            }
+        }
+        assert count == HandStrength.CLASS_COUNT : "Wrong number of equivalence classes: " + count;
+    }
+
+
+    @Test
+    public void testExtremes()
+    {
+        List<PlayingCard> worst = Arrays.asList(PlayingCard.SEVEN_OF_CLUBS,
+                                                PlayingCard.FIVE_OF_DIAMONDS,
+                                                PlayingCard.FOUR_OF_CLUBS,
+                                                PlayingCard.THREE_OF_CLUBS,
+                                                PlayingCard.TWO_OF_CLUBS);
+        assert handEvaluator.rank(worst) == 1 : "Wrong strength: " + handEvaluator.rank(worst);
+        List<PlayingCard> best = Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                               PlayingCard.KING_OF_HEARTS,
+                                               PlayingCard.QUEEN_OF_HEARTS,
+                                               PlayingCard.JACK_OF_HEARTS,
+                                               PlayingCard.TEN_OF_HEARTS);
+        assert handEvaluator.rank(best) == HandStrength.CLASS_COUNT : "Wrong strength: " + handEvaluator.rank(best);
+    }
+
+
+    /**
+     * Comparing integer strengths should give the same answer as comparing ranked hands
+     * (ignoring suits).
+     */
+    @Test
+    public void testOrdering()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards1 = Deck.createFullDeck(rng).dealCards(7);
+            List<PlayingCard> cards2 = Deck.createFullDeck(rng).dealCards(7);
+            int expected = HandComparisons.compareIgnoringSuits(handEvaluator.evaluate(cards1), handEvaluator.evaluate(cards2));
+            int actual = handEvaluator.rank(cards1) - handEvaluator.rank(cards2);
+            assert Integer.signum(actual) == Integer.signum(expected) : "Wrong order: " + cards1 + ", " + cards2;
+        }
+    }
+
+
+    /**
+     * Building a ranked hand from a strength should give the same hand as evaluating the
+     * cards directly.
+     */
+    @Test
+    public void testToRankedHand()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            int rank = handEvaluator.rank(cards);
+            RankedHand expected = handEvaluator.evaluate(cards);
+            RankedHand hand = HandStrength.toRankedHand(rank, cards);
+            assert hand.getRanking() == expected.getRanking() : "Wrong ranking: " + hand.getRanking();
+            assert HandStrength.getRanking(rank) == expected.getRanking() : "Wrong ranking: " + HandStrength.getRanking(rank);
+            assert Arrays.equals(hand.getCards(), expected.getCards()) : "Wrong cards: " + hand + ", expected " + expected;
+            assert HandStrength.rank(hand) == rank : "Wrong strength for " + hand;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link MutableRankedHand} and the evaluators that fill it in.
+ * @author Daniel Dyer
+ */
+public class MutableRankedHandTest
+{
+    /**
+     * A reused holder should always contain the same hand that the allocating version
+     * of the evaluator returns, and the input list should not be modified.
+     */
+    @Test
+    public void testConsistencyWithAllocatingEvaluators()
+    {
+        checkConsistency(new BitMaskHandEvaluator(), 5, 6, 7);
+        checkConsistency(new RankMultisetHandEvaluator(), 5, 6, 7);
+        checkConsistency(new PerfectHashHandEvaluator(), 5);
+        checkConsistency(SixCardHandEvaluator.createWithoutTable(), 6);
+        checkConsistency(new CachingHandEvaluator(new BitMaskHandEvaluator()), 7);
+        checkConsistency(new AceToFiveLowEvaluator(), 5, 6, 7);
+        checkConsistency(new DeuceToSevenLowEvaluator(), 5, 6, 7);
+    }
+
+
+    private void checkConsistency(HandEvaluator evaluator, int... handSizes)
+    {
+        Random rng = new MersenneTwisterRNG();
+        MutableRankedHand result = new MutableRankedHand();
+        for (int handSize : handSizes)
+        {
+            for (int i = 0; i < 20000; i++)
+            {
+                List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(handSize);
+                List<PlayingCard> copy = new ArrayList<PlayingCard>(cards);
+                evaluator.evaluate(cards, result);
+                assert cards.equals(copy) : "Input should not be modified.";
+                RankedHand expected = evaluator.evaluate(cards);
+                assert result.getRanking() == expected.getRanking() : "Wrong ranking for " + cards + ": " + result;
+                assert Arrays.equals(result.toRankedHand().getCards(), expected.getCards()) : "Wrong cards for " + cards + ": " + result;
+                if (evaluator instanceof HandStrengthEvaluator)
+                {
+                    assert result.getStrength() == ((HandStrengthEvaluator) evaluator).rank(cards) : "Wrong strength for " + cards;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The list-based evaluators should give the same results as they do when they are
+     * allowed to re-order a sorted list, including for 5-card hands with fewer than five
+     * cards.
+     */
+    @Test
+    public void testListBasedEvaluators()
+    {
+        HandEvaluator fiveCardEvaluator = new FiveCardHandEvaluator();
+        HandEvaluator sevenCardEvaluator = new SevenCardHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        MutableRankedHand result = new MutableRankedHand();
+        for (int i = 0; i < 50000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(1 + i % 5);
+            List<PlayingCard> copy = new ArrayList<PlayingCard>(cards);
+            fiveCardEvaluator.evaluate(cards, result);
+            assert cards.equals(copy) : "Input should not be modified.";
+            Collections.sort(copy, Collections.reverseOrder());
+            RankedHand expected = fiveCardEvaluator.evaluate(copy);
+            assert result.getRanking() == expected.getRanking() : "Wrong ranking for " + cards + ": " + result;
+            assert Arrays.equals(result.toRankedHand().getCards(), expected.getCards()) : "Wrong hand for " + cards + ": " + result;
+
+            cards = Deck.createFullDeck(rng).dealCards(7);
+            copy = new ArrayList<PlayingCard>(cards);
+            sevenCardEvaluator.evaluate(cards, result);
+            assert cards.equals(copy) : "Input should not be modified.";
+            CardUtils.sevenCardSort(copy);
+            expected = sevenCardEvaluator.evaluate(copy);
+            assert result.getRanking() == expected.getRanking() : "Wrong ranking for " + cards + ": " + result;
+            assert Arrays.equals(result.toRankedHand().getCards(), expected.getCards()) : "Wrong hand for " + cards + ": " + result;
+        }
+    }
+
+
+    /**
+     * The copy returned by {@link MutableRankedHand#toRankedHand()} should not change when
+     * the holder is reused.
+     */
+    @Test
+    public void testCopyIsIndependent()
+    {
+        HandEvaluator evaluator = new BitMaskHandEvaluator();
+        MutableRankedHand result = new MutableRankedHand();
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.ACE_OF_SPADES,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.KING_OF_CLUBS,
+                                                PlayingCard.SEVEN_OF_DIAMONDS,
+                                                PlayingCard.TWO_OF_CLUBS);
+        evaluator.evaluate(cards, result);
+        RankedHand copy = result.toRankedHand();
+        assert copy.getRanking() == HandRanking.PAIR : "Wrong ranking: " + copy.getRanking();
+        assert result.contains(PlayingCard.ACE_OF_SPADES) : "Hand should contain the ace of spades.";
+
+        evaluator.evaluate(Collections.unmodifiableList(Arrays.asList(PlayingCard.NINE_OF_CLUBS,
+                                                                      PlayingCard.NINE_OF_DIAMONDS,
+                                                                      PlayingCard.NINE_OF_HEARTS,
+                                                                      PlayingCard.FOUR_OF_SPADES,
+                                                                      PlayingCard.FOUR_OF_CLUBS)),
+                           result);
+        assert result.getRanking() == HandRanking.FULL_HOUSE : "Wrong ranking: " + result.getRanking();
+        assert result.getCard(0).getValue() == FaceValue.NINE : "Wrong order.";
+        assert !result.contains(PlayingCard.ACE_OF_SPADES) : "Holder should have been overwritten.";
+        assert copy.getRanking() == HandRanking.PAIR : "Copy should not change.";
+        assert copy.getCard(0) == PlayingCard.ACE_OF_SPADES : "Copy should not change.";
+    }
+}
@@ -0,0 +1,287 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link OpenFaceEvaluator}.
+ * @author Daniel Dyer
+ */
+public class OpenFaceEvaluatorTest
+{
+    private final OpenFaceEvaluator evaluator = new OpenFaceEvaluator();
+
+    /**
+     * 5-card rows should be ranked in the same way as any other 5-card hand.
+     */
+    @Test
+    public void testRankRow()
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        FiveCardHandEvaluator fiveCardEvaluator = new FiveCardHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 20000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(OpenFaceEvaluator.ROW_SIZE);
+            int rank = evaluator.rankRow(cards);
+            assert rank == reference.rank(cards) : "Wrong strength for " + cards;
+            assert HandStrength.getRanking(rank) == fiveCardEvaluator.getRanking(sort(cards)) : "Wrong ranking for " + cards;
+        }
+    }
+
+
+    /**
+     * Top rows should be ranked by ranking, then by face values in order of significance,
+     * regardless of the order of the cards.
+     */
+    @Test
+    public void testRankTop()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 20000; i++)
+        {
+            Deck deck = Deck.createFullDeck(rng);
+            List<PlayingCard> top1 = deck.dealCards(OpenFaceEvaluator.TOP_ROW_SIZE);
+            List<PlayingCard> top2 = deck.dealCards(OpenFaceEvaluator.TOP_ROW_SIZE);
+            int rank1 = evaluator.rankTop(top1);
+            int rank2 = evaluator.rankTop(top2);
+            assert rank1 >= 1 && rank1 <= OpenFaceEvaluator.TOP_CLASS_COUNT : "Strength out of range: " + rank1;
+            assert OpenFaceEvaluator.getTopRanking(rank1) == topRanking(top1) : "Wrong ranking for " + top1;
+            assert Integer.signum(rank1 - rank2) == Integer.signum(compareTops(top1, top2))
+                : "Wrong order for " + top1 + " and " + top2;
+            Collections.reverse(top1);
+            assert evaluator.rankTop(top1) == rank1 : "Order of cards should not matter.";
+        }
+    }
+
+
+    /**
+     * The middle row must be at least as strong as the top row, treating the top row's
+     * missing cards as lower than deuces.
+     */
+    @Test
+    public void testFoulTopAndMiddle()
+    {
+        int queensKing = evaluator.rankTop(Arrays.asList(PlayingCard.QUEEN_OF_CLUBS,
+                                                         PlayingCard.QUEEN_OF_HEARTS,
+                                                         PlayingCard.KING_OF_SPADES));
+        int queensKingThreeTwo = evaluator.rankRow(Arrays.asList(PlayingCard.QUEEN_OF_DIAMONDS,
+                                                                 PlayingCard.QUEEN_OF_SPADES,
+                                                                 PlayingCard.KING_OF_HEARTS,
+                                                                 PlayingCard.THREE_OF_CLUBS,
+                                                                 PlayingCard.TWO_OF_CLUBS));
+        int queensJack = evaluator.rankRow(Arrays.asList(PlayingCard.QUEEN_OF_DIAMONDS,
+                                                         PlayingCard.QUEEN_OF_SPADES,
+                                                         PlayingCard.JACK_OF_HEARTS,
+                                                         PlayingCard.FOUR_OF_CLUBS,
+                                                         PlayingCard.THREE_OF_CLUBS));
+        int bottom = HandStrength.CLASS_COUNT;
+        assert !OpenFaceEvaluator.isFoul(queensKing, queensKingThreeTwo, bottom) : "Q-Q-K-3-2 should beat Q-Q-K.";
+        assert OpenFaceEvaluator.isFoul(queensKing, queensJack, bottom) : "Q-Q-J-4-3 should not beat Q-Q-K.";
+        assert OpenFaceEvaluator.isFoul(queensKing, queensKingThreeTwo, queensJack) : "Bottom is weaker than middle.";
+
+        // Check random top rows against random middle rows.
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 20000; i++)
+        {
+            Deck deck = Deck.createFullDeck(rng);
+            List<PlayingCard> top = deck.dealCards(OpenFaceEvaluator.TOP_ROW_SIZE);
+            // Make pairs and trips in the middle more likely by copying the top row's ranks.
+            List<PlayingCard> middle = deck.dealCards(OpenFaceEvaluator.ROW_SIZE);
+            if (i % 2 == 0)
+            {
+                middle = matchRanks(top, middle);
+            }
+            boolean middleBeatsTop = compareTopToMiddle(top, evaluator.rankRow(middle)) <= 0;
+            assert OpenFaceEvaluator.isFoul(evaluator.rankTop(top), evaluator.rankRow(middle), bottom) != middleBeatsTop
+                : "Wrong foul for " + top + " / " + middle;
+        }
+    }
+
+
+    @Test
+    public void testRoyalties()
+    {
+        List<PlayingCard> top = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                              PlayingCard.ACE_OF_HEARTS,
+                                              PlayingCard.TWO_OF_SPADES);
+        List<PlayingCard> middle = Arrays.asList(PlayingCard.NINE_OF_HEARTS,
+                                                 PlayingCard.TEN_OF_CLUBS,
+                                                 PlayingCard.JACK_OF_CLUBS,
+                                                 PlayingCard.QUEEN_OF_DIAMONDS,
+                                                 PlayingCard.KING_OF_SPADES);
+        List<PlayingCard> bottom = Arrays.asList(PlayingCard.THREE_OF_CLUBS,
+                                                 PlayingCard.THREE_OF_HEARTS,
+                                                 PlayingCard.THREE_OF_SPADES,
+                                                 PlayingCard.FOUR_OF_CLUBS,
+                                                 PlayingCard.FOUR_OF_HEARTS);
+        // Pair of aces (9), straight in the middle (4) and full house on the bottom (6).
+        assert evaluator.score(top, middle, bottom) == 19 : "Wrong score: " + evaluator.score(top, middle, bottom);
+
+        List<PlayingCard> sixes = Arrays.asList(PlayingCard.SIX_OF_CLUBS,
+                                                PlayingCard.SIX_OF_HEARTS,
+                                                PlayingCard.TWO_OF_SPADES);
+        List<PlayingCard> fives = Arrays.asList(PlayingCard.FIVE_OF_CLUBS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.ACE_OF_SPADES);
+        List<PlayingCard> trips = Arrays.asList(PlayingCard.TWO_OF_CLUBS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.TWO_OF_SPADES);
+        assert evaluator.score(sixes, middle, bottom) == 11 : "Wrong score: " + evaluator.score(sixes, middle, bottom);
+        assert evaluator.score(fives, middle, bottom) == 10 : "Wrong score: " + evaluator.score(fives, middle, bottom);
+        assert evaluator.score(trips, middle, bottom) == 20 : "Wrong score: " + evaluator.score(trips, middle, bottom);
+
+        // Swapping the middle and bottom rows fouls the hand.
+        assert evaluator.score(top, bottom, middle) == OpenFaceEvaluator.FOUL : "Hand should be fouled.";
+    }
+
+
+    /**
+     * The batch methods should give the same results as ranking each row separately.
+     */
+    @Test
+    public void testBatch()
+    {
+        final int handCount = 5000;
+        int[] cards = new int[handCount * OpenFaceEvaluator.PLACEMENT_SIZE];
+        List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>(handCount);
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < handCount; i++)
+        {
+            List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(OpenFaceEvaluator.PLACEMENT_SIZE);
+            for (int j = 0; j < hand.size(); j++)
+            {
+                cards[i * OpenFaceEvaluator.PLACEMENT_SIZE + j] = hand.get(j).ordinal();
+            }
+            hands.add(hand);
+        }
+        int[] ranks = new int[handCount * 3];
+        int[] scores = new int[handCount];
+        evaluator.rankAll(cards, handCount, ranks);
+        evaluator.scoreAll(cards, handCount, scores);
+        int fouls = 0;
+        for (int i = 0; i < handCount; i++)
+        {
+            List<PlayingCard> hand = hands.get(i);
+            List<PlayingCard> top = hand.subList(0, 3);
+            List<PlayingCard> middle = hand.subList(3, 8);
+            List<PlayingCard> bottom = hand.subList(8, 13);
+            assert ranks[i * 3] == evaluator.rankTop(top) : "Wrong top strength.";
+            assert ranks[i * 3 + 1] == evaluator.rankRow(middle) : "Wrong middle strength.";
+            assert ranks[i * 3 + 2] == evaluator.rankRow(bottom) : "Wrong bottom strength.";
+            assert scores[i] == evaluator.score(top, middle, bottom) : "Wrong score for " + hand;
+            if (scores[i] == OpenFaceEvaluator.FOUL)
+            {
+                ++fouls;
+            }
+        }
+        // Random placements foul more often than not, but not always.
+        assert fouls > 0 && fouls < handCount : "Unexpected number of fouls: " + fouls;
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongTopSize()
+    {
+        evaluator.rankTop(Arrays.asList(PlayingCard.ACE_OF_CLUBS, PlayingCard.ACE_OF_HEARTS));
+    }
+
+
+    /**
+     * Replaces the middle row's cards with cards of the same ranks as the top row where
+     * possible.
+     */
+    private List<PlayingCard> matchRanks(List<PlayingCard> top, List<PlayingCard> middle)
+    {
+        List<PlayingCard> matched = new ArrayList<PlayingCard>(middle);
+        List<PlayingCard> used = new ArrayList<PlayingCard>(top);
+        used.addAll(middle);
+        for (int i = 0; i < top.size(); i++)
+        {
+            for (PlayingCard card : PlayingCard.values())
+            {
+                if (card.getValue() == top.get(i).getValue() && !used.contains(card))
+                {
+                    matched.set(i, card);
+                    used.add(card);
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+
+    private HandRanking topRanking(List<PlayingCard> top)
+    {
+        int[] faces = faces(top);
+        if (faces[0] == faces[2])
+        {
+            return HandRanking.THREE_OF_A_KIND;
+        }
+        return faces[0] == faces[1] ? HandRanking.PAIR : HandRanking.HIGH_CARD;
+    }
+
+
+    /**
+     * @return The face values of a top row in order of significance (pair first).
+     */
+    private int[] faces(List<PlayingCard> top)
+    {
+        int[] faces = new int[top.size()];
+        for (int i = 0; i < faces.length; i++)
+        {
+            faces[i] = top.get(i).getValue().ordinal();
+        }
+        Arrays.sort(faces);
+        if (faces[0] == faces[1] && faces[1] != faces[2])
+        {
+            // Low pair, so move the kicker to the end.
+            return new int[]{faces[1], faces[0], faces[2]};
+        }
+        return new int[]{faces[2], faces[1], faces[0]};
+    }
+
+
+    private int compareTops(List<PlayingCard> top1, List<PlayingCard> top2)
+    {
+        int result = topRanking(top1).compareTo(topRanking(top2));
+        int[] faces1 = faces(top1);
+        int[] faces2 = faces(top2);
+        for (int i = 0; result == 0 && i < faces1.length; i++)
+        {
+            result = faces1[i] - faces2[i];
+        }
+        return result;
+    }
+
+
+    /**
+     * Compares a top row with a middle row by ranking and then by the first three face
+     * values of the middle row.  Ties go to the middle row, because it has two extra cards.
+     */
+    private int compareTopToMiddle(List<PlayingCard> top, int middle)
+    {
+        int result = topRanking(top).compareTo(HandStrength.getRanking(middle));
+        int[] faces = faces(top);
+        int descriptor = HandStrength.getDescriptor(middle);
+        for (int i = 0; result == 0 && i < faces.length; i++)
+        {
+            result = faces[i] - ((descriptor >>> (16 - 4 * i)) & 0xF);
+        }
+        return result;
+    }
+
+
+    private static List<PlayingCard> sort(List<PlayingCard> cards)
+    {
+        List<PlayingCard> sorted = new ArrayList<PlayingCard>(cards);
+        Collections.sort(sorted, Collections.reverseOrder());
+        return sorted;
+    }
+}
@@ -0,0 +1,110 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.combinatorics.CombinationGenerator;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link PerfectHashHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class PerfectHashHandEvaluatorTest
+{
+    private final BatchHandEvaluator handEvaluator = new PerfectHashHandEvaluator();
+
+    /**
+     * Every 5-card hand should be ranked exactly as it is by {@link FiveCardHandEvaluator},
+     * even when the cards are not sorted.
+     */
+    @Test
+    public void testAllHands()
+    {
+        HandEvaluator reference = new FiveCardHandEvaluator();
+        RankedHand previous = null;
+        int previousRank = 0;
+        for (List<PlayingCard> hand : new CombinationGenerator<PlayingCard>(PlayingCard.reverseValues(), 5))
+        {
+            List<PlayingCard> sorted = new ArrayList<PlayingCard>(hand);
+            RankedHand expected = reference.evaluate(sorted);
+            Collections.reverse(hand);
+            RankedHand actual = handEvaluator.evaluate(hand);
+            assert actual.getRanking() == expected.getRanking() : "Wrong ranking for " + hand;
+            assert Arrays.equals(actual.getCards(), expected.getCards()) : "Wrong cards for " + hand;
+            // Strengths should be ordered in the same way as the ranked hands.
+            int rank = handEvaluator.rank(hand);
+            if (previous != null)
+            {
+                int compare = HandComparisons.compareIgnoringSuits(expected, previous);
+                assert Integer.signum(rank - previousRank) == compare : "Wrong order: " + expected + ", " + previous;
+            }
+            previous = expected;
+            previousRank = rank;
+        }
+    }
+
+
+    /**
+     * The cards do not need to be sorted and the list should not be modified.
+     */
+    @Test
+    public void testUnsortedInput()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.FOUR_OF_HEARTS);
+        List<PlayingCard> copy = new ArrayList<PlayingCard>(cards);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.STRAIGHT_FLUSH : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.FIVE_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.ACE_OF_HEARTS : "Wrong order.";
+        assert cards.equals(copy) : "Input should not be modified.";
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfCards()
+    {
+        handEvaluator.rank(Arrays.asList(PlayingCard.ACE_OF_SPADES,
+                                         PlayingCard.KING_OF_SPADES,
+                                         PlayingCard.QUEEN_OF_SPADES,
+                                         PlayingCard.JACK_OF_SPADES));
+    }
+
+
+    /**
+     * Ranking hands in bulk should give the same strengths as ranking them one at a time.
+     * The number of hands is not a multiple of any batch size that the evaluator might use
+     * internally.
+     */
+    @Test
+    public void testRankAll()
+    {
+        Random rng = new MersenneTwisterRNG();
+        int handSize = 5;
+        int handCount = 10001;
+        int[] cards = new int[handCount * handSize];
+        List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>(handCount);
+        for (int i = 0; i < handCount; i++)
+        {
+            List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(handSize);
+            for (int j = 0; j < handSize; j++)
+            {
+                cards[i * handSize + j] = hand.get(j).ordinal();
+            }
+            hands.add(hand);
+        }
+        int[] ranks = new int[handCount];
+        handEvaluator.rankAll(cards, handSize, handCount, ranks);
+        for (int i = 0; i < handCount; i++)
+        {
+            assert ranks[i] == handEvaluator.rank(hands.get(i)) : "Wrong strength for " + hands.get(i);
+        }
+    }
+}
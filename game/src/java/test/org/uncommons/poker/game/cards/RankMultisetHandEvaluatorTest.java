@@ -0,0 +1,89 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link RankMultisetHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class RankMultisetHandEvaluatorTest
+{
+    private final BatchHandEvaluator handEvaluator = new RankMultisetHandEvaluator();
+
+    /**
+     * Every strength should match the one calculated by {@link BitMaskHandEvaluator}.
+     */
+    @Test
+    public void testConsistentWithBitMaskEvaluator()
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int handSize : new int[]{5, 6, 7})
+        {
+            for (int i = 0; i < 100000; i++)
+            {
+                List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(handSize);
+                assert handEvaluator.rank(hand) == reference.rank(hand) : "Wrong strength for " + hand;
+            }
+        }
+    }
+
+
+    /**
+     * A flush must be found even when the other cards would make a straight.
+     */
+    @Test
+    public void testFlush()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.NINE_OF_DIAMONDS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.TEN_OF_HEARTS,
+                                                PlayingCard.JACK_OF_HEARTS,
+                                                PlayingCard.QUEEN_OF_CLUBS,
+                                                PlayingCard.KING_OF_HEARTS,
+                                                PlayingCard.FOUR_OF_HEARTS);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.FLUSH : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.KING_OF_HEARTS : "Wrong high card: " + hand;
+    }
+
+
+    @Test
+    public void testRankAll()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int handSize : new int[]{5, 6, 7})
+        {
+            int handCount = 10001;
+            int[] cards = new int[handCount * handSize];
+            List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>(handCount);
+            for (int i = 0; i < handCount; i++)
+            {
+                List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(handSize);
+                for (int j = 0; j < handSize; j++)
+                {
+                    cards[i * handSize + j] = hand.get(j).ordinal();
+                }
+                hands.add(hand);
+            }
+            int[] ranks = new int[handCount];
+            handEvaluator.rankAll(cards, handSize, handCount, ranks);
+            for (int i = 0; i < handCount; i++)
+            {
+                assert ranks[i] == handEvaluator.rank(hands.get(i)) : "Wrong strength for " + hands.get(i);
+            }
+        }
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooManyCards()
+    {
+        handEvaluator.rank(Deck.createFullDeck(new MersenneTwisterRNG()).dealCards(8));
+    }
+}
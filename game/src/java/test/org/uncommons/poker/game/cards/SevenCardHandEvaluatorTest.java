@@ -251,6 +251,29 @@ public class SevenCardHandEvaluatorTest
     }
 
 
+    /**
+     * If a pair is higher than the quads, it is moved ahead of them along with the quads, so
+     * a kicker that is higher than both must still be found.
+     */
+    @Test
+    public void testFourOfAKindWithHighPairAndHigherKicker()
+    {
+        List<PlayingCard> cards = asList(PlayingCard.ACE_OF_CLUBS,
+                                         PlayingCard.KING_OF_SPADES,
+                                         PlayingCard.KING_OF_HEARTS,
+                                         PlayingCard.NINE_OF_SPADES,
+                                         PlayingCard.NINE_OF_HEARTS,
+                                         PlayingCard.NINE_OF_DIAMONDS,
+                                         PlayingCard.NINE_OF_CLUBS);
+
+        RankedHand hand = handEvaluator.evaluate(cards);
+
+        assert hand.getRanking() == HandRanking.FOUR_OF_A_KIND : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0).getValue() == FaceValue.NINE : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.ACE_OF_CLUBS : "Wrong kicker: " + hand.getCard(4);
+    }
+
+
     /**
      * If the seven cards contain three pairs and a kicker that is higher than at
      * least one of the pairs, then that kicker should be used to make the 5-card
@@ -0,0 +1,141 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link ShortDeckHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class ShortDeckHandEvaluatorTest
+{
+    private final ShortDeckHandEvaluator evaluator = new ShortDeckHandEvaluator();
+
+    /**
+     * A-9-8-7-6 is the lowest straight in short-deck.
+     */
+    @Test
+    public void testWheel()
+    {
+        List<PlayingCard> wheel = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                PlayingCard.NINE_OF_DIAMONDS,
+                                                PlayingCard.EIGHT_OF_HEARTS,
+                                                PlayingCard.SEVEN_OF_SPADES,
+                                                PlayingCard.SIX_OF_CLUBS,
+                                                PlayingCard.ACE_OF_DIAMONDS,
+                                                PlayingCard.ACE_OF_HEARTS);
+        RankedHand hand = evaluator.evaluate(wheel);
+        assert hand.getRanking() == HandRanking.STRAIGHT : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0).getValue() == FaceValue.NINE : "Straight should be 9-high: " + hand;
+        assert hand.getCard(4).getValue() == FaceValue.ACE : "Ace should play low: " + hand;
+
+        List<PlayingCard> tenHigh = Arrays.asList(PlayingCard.TEN_OF_CLUBS,
+                                                  PlayingCard.NINE_OF_DIAMONDS,
+                                                  PlayingCard.EIGHT_OF_HEARTS,
+                                                  PlayingCard.SEVEN_OF_SPADES,
+                                                  PlayingCard.SIX_OF_CLUBS);
+        List<PlayingCard> trips = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                PlayingCard.ACE_OF_DIAMONDS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.KING_OF_SPADES,
+                                                PlayingCard.QUEEN_OF_CLUBS);
+        assert evaluator.rank(wheel) < evaluator.rank(tenHigh) : "Wheel should be the lowest straight.";
+        assert evaluator.rank(wheel) > evaluator.rank(trips) : "Wheel should beat three of a kind.";
+    }
+
+
+    @Test
+    public void testWheelStraightFlush()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.ACE_OF_SPADES,
+                                                PlayingCard.NINE_OF_SPADES,
+                                                PlayingCard.EIGHT_OF_SPADES,
+                                                PlayingCard.SEVEN_OF_SPADES,
+                                                PlayingCard.SIX_OF_SPADES,
+                                                PlayingCard.KING_OF_SPADES);
+        int rank = evaluator.rank(cards);
+        assert ShortDeckHandEvaluator.getRanking(rank) == HandRanking.STRAIGHT_FLUSH : "Wrong hand ranking.";
+    }
+
+
+    @Test
+    public void testFlushBeatsFullHouse()
+    {
+        List<PlayingCard> flush = Arrays.asList(PlayingCard.SIX_OF_HEARTS,
+                                                PlayingCard.SEVEN_OF_HEARTS,
+                                                PlayingCard.EIGHT_OF_HEARTS,
+                                                PlayingCard.NINE_OF_HEARTS,
+                                                PlayingCard.JACK_OF_HEARTS);
+        List<PlayingCard> fullHouse = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                    PlayingCard.ACE_OF_DIAMONDS,
+                                                    PlayingCard.ACE_OF_HEARTS,
+                                                    PlayingCard.KING_OF_SPADES,
+                                                    PlayingCard.KING_OF_CLUBS);
+        List<PlayingCard> quads = Arrays.asList(PlayingCard.SIX_OF_CLUBS,
+                                                PlayingCard.SIX_OF_DIAMONDS,
+                                                PlayingCard.SIX_OF_HEARTS,
+                                                PlayingCard.SIX_OF_SPADES,
+                                                PlayingCard.SEVEN_OF_CLUBS);
+        int flushRank = evaluator.rank(flush);
+        assert ShortDeckHandEvaluator.getRanking(flushRank) == HandRanking.FLUSH : "Wrong hand ranking.";
+        assert flushRank > evaluator.rank(fullHouse) : "Flush should beat a full house.";
+        assert flushRank < evaluator.rank(quads) : "Four of a kind should beat a flush.";
+    }
+
+
+    /**
+     * The look-up table for 7-card hands should agree with ranking each of the 21 possible
+     * 5-card hands directly and taking the best.
+     */
+    @Test
+    public void testSevenCardTable()
+    {
+        MersenneTwisterRNG rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 10000; i++)
+        {
+            List<PlayingCard> cards = Deck.createShortDeck(rng).dealCards(7);
+            int best = 0;
+            for (int omit1 = 0; omit1 < 7; omit1++)
+            {
+                for (int omit2 = omit1 + 1; omit2 < 7; omit2++)
+                {
+                    List<PlayingCard> hand = new ArrayList<PlayingCard>(cards);
+                    hand.remove(omit2);
+                    hand.remove(omit1);
+                    best = Math.max(best, evaluator.rank(hand));
+                }
+            }
+            assert evaluator.rank(cards) == best : "Wrong strength for " + cards;
+        }
+    }
+
+
+    /**
+     * A table held off-heap should give exactly the same results.
+     */
+    @Test
+    public void testOffHeap()
+    {
+        ShortDeckHandEvaluator offHeapEvaluator = new ShortDeckHandEvaluator(TableStorage.OFF_HEAP);
+        MersenneTwisterRNG rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 10000; i++)
+        {
+            List<PlayingCard> cards = Deck.createShortDeck(rng).dealCards(7);
+            assert offHeapEvaluator.rank(cards) == evaluator.rank(cards) : "Wrong strength for " + cards;
+        }
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLowCard()
+    {
+        evaluator.rank(Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                     PlayingCard.FIVE_OF_DIAMONDS,
+                                     PlayingCard.FOUR_OF_HEARTS,
+                                     PlayingCard.THREE_OF_SPADES,
+                                     PlayingCard.TWO_OF_CLUBS));
+    }
+}
@@ -0,0 +1,98 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link SixCardHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class SixCardHandEvaluatorTest
+{
+    private final BatchHandEvaluator handEvaluator = new SixCardHandEvaluator();
+    private final BatchHandEvaluator withoutTable = SixCardHandEvaluator.createWithoutTable();
+
+    /**
+     * The strength of a 6-card hand should be the strength of its best 5-card combination,
+     * whether it is looked up or calculated on the fly.
+     */
+    @Test
+    public void testBestFiveCards()
+    {
+        HandStrengthEvaluator fiveCardEvaluator = new PerfectHashHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 100000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(6);
+            int best = 0;
+            for (int omit = 0; omit < cards.size(); omit++)
+            {
+                List<PlayingCard> hand = new ArrayList<PlayingCard>(cards);
+                hand.remove(omit);
+                best = Math.max(best, fiveCardEvaluator.rank(hand));
+            }
+            assert handEvaluator.rank(cards) == best : "Wrong strength for " + cards;
+            assert withoutTable.rank(cards) == best : "Wrong strength (without table) for " + cards;
+        }
+    }
+
+
+    @Test
+    public void testEvaluate()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.SEVEN_OF_CLUBS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.SEVEN_OF_DIAMONDS,
+                                                PlayingCard.KING_OF_SPADES,
+                                                PlayingCard.ACE_OF_CLUBS,
+                                                PlayingCard.SEVEN_OF_SPADES);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.FULL_HOUSE : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0).getValue() == FaceValue.SEVEN : "Sevens should be most significant.";
+        assert !hand.contains(PlayingCard.KING_OF_SPADES) : "King should not be used.";
+    }
+
+
+    @Test
+    public void testRankAll()
+    {
+        Random rng = new MersenneTwisterRNG();
+        int handCount = 1000;
+        int[] cards = new int[handCount * 6];
+        List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>(handCount);
+        for (int i = 0; i < handCount; i++)
+        {
+            List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(6);
+            for (int j = 0; j < hand.size(); j++)
+            {
+                cards[i * 6 + j] = hand.get(j).ordinal();
+            }
+            hands.add(hand);
+        }
+        int[] ranks = new int[handCount];
+        int[] ranksWithoutTable = new int[handCount];
+        handEvaluator.rankAll(cards, 6, handCount, ranks);
+        withoutTable.rankAll(cards, 6, handCount, ranksWithoutTable);
+        for (int i = 0; i < handCount; i++)
+        {
+            int expected = handEvaluator.rank(hands.get(i));
+            assert ranks[i] == expected : "Wrong strength for " + hands.get(i);
+            assert ranksWithoutTable[i] == expected : "Wrong strength (without table) for " + hands.get(i);
+        }
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongHandSize()
+    {
+        handEvaluator.rank(Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                         PlayingCard.KING_OF_CLUBS,
+                                         PlayingCard.QUEEN_OF_CLUBS,
+                                         PlayingCard.JACK_OF_CLUBS,
+                                         PlayingCard.TEN_OF_CLUBS));
+    }
+}
@@ -0,0 +1,109 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link StateMachineHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class StateMachineHandEvaluatorTest
+{
+    private final BatchHandEvaluator handEvaluator = new StateMachineHandEvaluator();
+
+    /**
+     * The cards do not need to be sorted and the list should not be modified.
+     */
+    @Test
+    public void testUnsortedInput()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.THREE_OF_HEARTS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.NINE_OF_CLUBS,
+                                                PlayingCard.FIVE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_HEARTS,
+                                                PlayingCard.KING_OF_DIAMONDS,
+                                                PlayingCard.FOUR_OF_HEARTS);
+        List<PlayingCard> copy = new ArrayList<PlayingCard>(cards);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.STRAIGHT_FLUSH : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(0) == PlayingCard.FIVE_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.ACE_OF_HEARTS : "Wrong order.";
+        assert cards.equals(copy) : "Input should not be modified.";
+    }
+
+
+    /**
+     * A flush draw that dies part-way through the hand must not be confused with one
+     * that completes.
+     */
+    @Test
+    public void testFlushSuitRuledOut()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.TWO_OF_CLUBS,
+                                                PlayingCard.FIVE_OF_CLUBS,
+                                                PlayingCard.NINE_OF_CLUBS,
+                                                PlayingCard.KING_OF_DIAMONDS,
+                                                PlayingCard.KING_OF_HEARTS,
+                                                PlayingCard.KING_OF_SPADES,
+                                                PlayingCard.JACK_OF_CLUBS);
+        RankedHand hand = handEvaluator.evaluate(cards);
+        assert hand.getRanking() == HandRanking.THREE_OF_A_KIND : "Wrong hand ranking: " + hand.getRanking();
+    }
+
+
+    /**
+     * Random hands, in random order, should have the same strengths as those calculated
+     * by the {@link BitMaskHandEvaluator}.
+     */
+    @Test
+    public void testRandomHands()
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 1000000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            int expected = reference.rank(cards);
+            assert handEvaluator.rank(cards) == expected : "Wrong strength for " + cards;
+            Collections.reverse(cards);
+            assert handEvaluator.rank(cards) == expected : "Wrong strength for " + cards;
+        }
+    }
+
+
+    /**
+     * Ranking hands in bulk should give the same strengths as ranking them one at a time.
+     * The number of hands is not a multiple of any batch size that the evaluator might use
+     * internally.
+     */
+    @Test
+    public void testRankAll()
+    {
+        Random rng = new MersenneTwisterRNG();
+        int handSize = 7;
+        int handCount = 10001;
+        int[] cards = new int[handCount * handSize];
+        List<List<PlayingCard>> hands = new ArrayList<List<PlayingCard>>(handCount);
+        for (int i = 0; i < handCount; i++)
+        {
+            List<PlayingCard> hand = Deck.createFullDeck(rng).dealCards(handSize);
+            for (int j = 0; j < handSize; j++)
+            {
+                cards[i * handSize + j] = hand.get(j).ordinal();
+            }
+            hands.add(hand);
+        }
+        int[] ranks = new int[handCount];
+        handEvaluator.rankAll(cards, handSize, handCount, ranks);
+        for (int i = 0; i < handCount; i++)
+        {
+            assert ranks[i] == handEvaluator.rank(hands.get(i)) : "Wrong strength for " + hands.get(i);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link StudBoardEvaluator}.
+ * @author Daniel Dyer
+ */
+public class StudBoardEvaluatorTest
+{
+    private final StudBoardEvaluator boardEvaluator = new StudBoardEvaluator();
+
+    @Test
+    public void testTwoCards()
+    {
+        int deuces = rank(PlayingCard.TWO_OF_CLUBS, PlayingCard.TWO_OF_DIAMONDS);
+        int aceKing = rank(PlayingCard.ACE_OF_SPADES, PlayingCard.KING_OF_SPADES);
+        int aceQueen = rank(PlayingCard.QUEEN_OF_HEARTS, PlayingCard.ACE_OF_CLUBS);
+        assert deuces > aceKing : "Pair should beat high cards.";
+        assert aceKing > aceQueen : "A-K should beat A-Q.";
+        assert aceKing == rank(PlayingCard.KING_OF_CLUBS, PlayingCard.ACE_OF_DIAMONDS) : "Suits should not matter.";
+    }
+
+
+    @Test
+    public void testFourCards()
+    {
+        int quads = rank(PlayingCard.THREE_OF_CLUBS,
+                         PlayingCard.THREE_OF_DIAMONDS,
+                         PlayingCard.THREE_OF_HEARTS,
+                         PlayingCard.THREE_OF_SPADES);
+        int trips = rank(PlayingCard.KING_OF_CLUBS,
+                         PlayingCard.KING_OF_DIAMONDS,
+                         PlayingCard.KING_OF_HEARTS,
+                         PlayingCard.TWO_OF_SPADES);
+        int twoPair = rank(PlayingCard.ACE_OF_CLUBS,
+                           PlayingCard.ACE_OF_DIAMONDS,
+                           PlayingCard.QUEEN_OF_HEARTS,
+                           PlayingCard.QUEEN_OF_SPADES);
+        int pair = rank(PlayingCard.ACE_OF_CLUBS,
+                        PlayingCard.ACE_OF_DIAMONDS,
+                        PlayingCard.KING_OF_HEARTS,
+                        PlayingCard.QUEEN_OF_SPADES);
+        int pairWithLowerKicker = rank(PlayingCard.ACE_OF_CLUBS,
+                                       PlayingCard.ACE_OF_DIAMONDS,
+                                       PlayingCard.KING_OF_HEARTS,
+                                       PlayingCard.JACK_OF_SPADES);
+        int highCards = rank(PlayingCard.ACE_OF_CLUBS,
+                             PlayingCard.KING_OF_DIAMONDS,
+                             PlayingCard.QUEEN_OF_HEARTS,
+                             PlayingCard.JACK_OF_SPADES);
+        assert quads > trips : "Four of a kind should beat three of a kind.";
+        assert trips > twoPair : "Three of a kind should beat two pair.";
+        assert twoPair > pair : "Two pair should beat a pair.";
+        assert pair > pairWithLowerKicker : "Kickers should count.";
+        assert pairWithLowerKicker > highCards : "A pair should beat high cards.";
+        // Four to a straight flush is still only high cards.
+        int straightFlushDraw = rank(PlayingCard.NINE_OF_HEARTS,
+                                     PlayingCard.TEN_OF_HEARTS,
+                                     PlayingCard.JACK_OF_HEARTS,
+                                     PlayingCard.QUEEN_OF_HEARTS);
+        assert straightFlushDraw < highCards : "Straights and flushes should not count.";
+    }
+
+
+    /**
+     * Every distinct combination of face values should have a distinct strength.
+     */
+    @Test
+    public void testStrengthsAreDistinct()
+    {
+        for (int cards = 1; cards <= StudBoardEvaluator.MAX_CARDS; cards++)
+        {
+            long[] allRankCounts = RankMultisetHash.allRankCounts(cards);
+            boolean[] seen = new boolean[allRankCounts.length + 1];
+            for (long rankCounts : allRankCounts)
+            {
+                PlayingCard[] hand = new PlayingCard[cards];
+                int index = 0;
+                for (int rank = 0; rank < FaceValue.values().length; rank++)
+                {
+                    for (int suit = 0; suit < RankMultisetHash.count(rankCounts, rank); suit++)
+                    {
+                        hand[index++] = PlayingCard.values()[rank * 4 + suit];
+                    }
+                }
+                int strength = boardEvaluator.rank(Arrays.asList(hand));
+                assert strength >= 1 && strength <= allRankCounts.length : "Strength out of range: " + strength;
+                assert !seen[strength] : "Duplicate strength: " + strength;
+                seen[strength] = true;
+            }
+        }
+    }
+
+
+    private int rank(PlayingCard... cards)
+    {
+        List<PlayingCard> faceUpCards = Arrays.asList(cards);
+        return boardEvaluator.rank(faceUpCards);
+    }
+}
@@ -0,0 +1,96 @@
+package org.uncommons.poker.game.cards;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for the {@link TableFile} class.
+ * @author Daniel Dyer
+ */
+public class TableFileTest
+{
+    private static final int ENTRIES = 1000;
+
+    private File file;
+
+    @BeforeMethod
+    public void createFile() throws IOException
+    {
+        file = File.createTempFile("table", ".dat");
+        TableFile.write(file, 99, 3, 4, ENTRIES, new TableFile.Generator()
+        {
+            void generate(DataOutput output) throws IOException
+            {
+                for (int i = 0; i < ENTRIES; i++)
+                {
+                    output.writeInt(i * i);
+                }
+            }
+        });
+    }
+
+
+    @AfterMethod
+    public void deleteFile()
+    {
+        file.delete();
+    }
+
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        ByteBuffer table = TableFile.map(file, 99, 3, 4, ENTRIES, true);
+        assert table != null : "Table should be valid.";
+        assert table.remaining() == ENTRIES * 4 : "Wrong table size: " + table.remaining();
+        for (int i = 0; i < ENTRIES; i++)
+        {
+            assert table.getInt(i * 4) == i * i : "Wrong value at index " + i;
+        }
+    }
+
+
+    /**
+     * A table of a different type or version should not be accepted.
+     */
+    @Test
+    public void testWrongTable() throws IOException
+    {
+        assert TableFile.map(file, 98, 3, 4, ENTRIES, true) == null : "Wrong table type accepted.";
+        assert TableFile.map(file, 99, 2, 4, ENTRIES, true) == null : "Wrong table version accepted.";
+        assert TableFile.map(file, 99, 3, 2, ENTRIES * 2, true) == null : "Wrong entry size accepted.";
+    }
+
+
+    @Test
+    public void testCorruptTable() throws IOException
+    {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try
+        {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            randomAccessFile.write(0xFF);
+        }
+        finally
+        {
+            randomAccessFile.close();
+        }
+        assert TableFile.map(file, 99, 3, 4, ENTRIES, true) == null : "Corrupt table accepted.";
+        // Without the checksum, the corruption goes undetected.
+        assert TableFile.map(file, 99, 3, 4, ENTRIES, false) != null : "Table should be accepted without checksum.";
+    }
+
+
+    @Test
+    public void testMissingFile() throws IOException
+    {
+        file.delete();
+        assert TableFile.map(file, 99, 3, 4, ENTRIES, true) == null : "Missing table should not be mapped.";
+    }
+}
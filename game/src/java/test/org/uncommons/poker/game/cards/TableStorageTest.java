@@ -0,0 +1,67 @@
+package org.uncommons.poker.game.cards;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link TableStorage}.
+ * @author Daniel Dyer
+ */
+public class TableStorageTest
+{
+    private static final int ENTRIES = 1000;
+
+    @Test
+    public void testHeap()
+    {
+        ShortBuffer shorts = TableStorage.HEAP.allocateShorts(ENTRIES);
+        assert shorts.hasArray() : "Heap table should be backed by an array.";
+        checkShorts(shorts);
+        IntBuffer ints = TableStorage.HEAP.allocateInts(ENTRIES);
+        assert ints.hasArray() : "Heap table should be backed by an array.";
+        checkInts(ints);
+    }
+
+
+    @Test
+    public void testOffHeap()
+    {
+        ShortBuffer shorts = TableStorage.OFF_HEAP.allocateShorts(ENTRIES);
+        assert shorts.isDirect() : "Off-heap table should be direct.";
+        checkShorts(shorts);
+        IntBuffer ints = TableStorage.OFF_HEAP.allocateInts(ENTRIES);
+        assert ints.isDirect() : "Off-heap table should be direct.";
+        checkInts(ints);
+    }
+
+
+    private void checkShorts(ShortBuffer table)
+    {
+        assert table.capacity() == ENTRIES : "Wrong table size: " + table.capacity();
+        for (int i = 0; i < ENTRIES; i++)
+        {
+            assert table.get(i) == 0 : "Table should be zero-filled.";
+            table.put(i, (short) (i * 7));
+        }
+        for (int i = 0; i < ENTRIES; i++)
+        {
+            assert table.get(i) == (short) (i * 7) : "Wrong value at index " + i;
+        }
+    }
+
+
+    private void checkInts(IntBuffer table)
+    {
+        assert table.capacity() == ENTRIES : "Wrong table size: " + table.capacity();
+        for (int i = 0; i < ENTRIES; i++)
+        {
+            assert table.get(i) == 0 : "Table should be zero-filled.";
+            table.put(i, i * i);
+        }
+        for (int i = 0; i < ENTRIES; i++)
+        {
+            assert table.get(i) == i * i : "Wrong value at index " + i;
+        }
+    }
+}
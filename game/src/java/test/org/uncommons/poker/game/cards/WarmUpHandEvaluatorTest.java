@@ -0,0 +1,147 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link WarmUpHandEvaluator}.  A small table-based evaluator stands in for
+ * the look-up table so that the test is quick.
+ * @author Daniel Dyer
+ */
+public class WarmUpHandEvaluatorTest
+{
+    /**
+     * Hands should be ranked by the fallback evaluator until the loaded evaluator is ready,
+     * and by the loaded evaluator afterwards, with the same results either way.
+     */
+    @Test
+    public void testSwitchOver() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final BatchHandEvaluator loaded = new RankMultisetHandEvaluator();
+        WarmUpHandEvaluator evaluator = new WarmUpHandEvaluator(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call() throws InterruptedException
+            {
+                release.await();
+                return loaded;
+            }
+        });
+        assert !evaluator.isReady() : "Should not be ready before loading completes.";
+        assert evaluator.getWarmUpTime() == -1 : "Warm-up time should not be known yet.";
+        checkRanks(evaluator, 1000);
+        assert evaluator.getFallbackCount() == 1000 : "Wrong fallback count: " + evaluator.getFallbackCount();
+
+        release.countDown();
+        assert evaluator.getReadiness().get(10, TimeUnit.SECONDS) == loaded : "Wrong evaluator.";
+        assert evaluator.isReady() : "Should be ready once the future has completed.";
+        assert !evaluator.getReadiness().cancel(true) : "Should not be able to cancel after the switch.";
+        assert evaluator.getWarmUpTime() >= 0 : "Warm-up time should be known.";
+        checkRanks(evaluator, 1000);
+        assert evaluator.getFallbackCount() == 1000 : "Fallback should no longer be used.";
+    }
+
+
+    /**
+     * If the evaluator cannot be loaded, the fallback should be used indefinitely and the
+     * failure should be reported through the future.
+     */
+    @Test
+    public void testFailedLoad() throws Exception
+    {
+        WarmUpHandEvaluator evaluator = new WarmUpHandEvaluator(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call()
+            {
+                throw new IllegalStateException("Out of memory.");
+            }
+        });
+        try
+        {
+            evaluator.getReadiness().get(10, TimeUnit.SECONDS);
+            assert false : "Failure should have been reported.";
+        }
+        catch (ExecutionException ex)
+        {
+            assert ex.getCause() instanceof IllegalStateException : "Wrong cause: " + ex.getCause();
+        }
+        assert !evaluator.isReady() : "Should not be ready after a failure.";
+        checkRanks(evaluator, 100);
+        assert evaluator.getFallbackCount() == 100 : "Wrong fallback count: " + evaluator.getFallbackCount();
+    }
+
+
+    /**
+     * If the warm-up is cancelled, the evaluator should not switch over, even if the loader
+     * ignores the interrupt and finishes anyway.
+     */
+    @Test
+    public void testCancelledLoad() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        WarmUpHandEvaluator evaluator = new WarmUpHandEvaluator(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call()
+            {
+                started.countDown();
+                // Carry on regardless of interrupts, as the table generators do.
+                while (release.getCount() > 0)
+                {
+                    Thread.yield();
+                }
+                return new RankMultisetHandEvaluator();
+            }
+        });
+        assert started.await(10, TimeUnit.SECONDS) : "Loader did not start.";
+        assert evaluator.getReadiness().cancel(true) : "Should be able to cancel.";
+        release.countDown();
+        assert evaluator.awaitLoader(10000) : "Loader did not finish.";
+        assert !evaluator.isReady() : "Should not switch over after cancellation.";
+        assert evaluator.getWarmUpTime() == -1 : "Warm-up time should not be known.";
+        checkRanks(evaluator, 100);
+        assert evaluator.getFallbackCount() == 100 : "Wrong fallback count: " + evaluator.getFallbackCount();
+    }
+
+
+    /**
+     * The loaded table only ranks 7-card hands, so smaller hands should be rejected even
+     * while the fallback, which could rank them, is still in use.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongHandSize()
+    {
+        WarmUpHandEvaluator evaluator = new WarmUpHandEvaluator(new Callable<BatchHandEvaluator>()
+        {
+            public BatchHandEvaluator call()
+            {
+                throw new IllegalStateException("Never loaded.");
+            }
+        });
+        evaluator.rank(Arrays.asList(PlayingCard.ACE_OF_SPADES,
+                                     PlayingCard.KING_OF_SPADES,
+                                     PlayingCard.QUEEN_OF_SPADES,
+                                     PlayingCard.JACK_OF_SPADES,
+                                     PlayingCard.TEN_OF_SPADES,
+                                     PlayingCard.NINE_OF_SPADES));
+    }
+
+
+    private void checkRanks(HandStrengthEvaluator evaluator, int handCount)
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < handCount; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(7);
+            assert evaluator.rank(cards) == reference.rank(cards) : "Wrong strength for " + cards;
+        }
+    }
+}
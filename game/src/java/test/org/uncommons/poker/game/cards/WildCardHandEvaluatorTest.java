@@ -0,0 +1,249 @@
+package org.uncommons.poker.game.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link WildCardHandEvaluator}.
+ * @author Daniel Dyer
+ */
+public class WildCardHandEvaluatorTest
+{
+    private final WildCardHandEvaluator jokersWild = new WildCardHandEvaluator();
+    private final WildCardHandEvaluator deucesWild = WildCardHandEvaluator.createDeucesWild();
+
+    /**
+     * Without wild cards, hands should be ranked exactly as they are by
+     * {@link BitMaskHandEvaluator}.
+     */
+    @Test
+    public void testNoWildCards()
+    {
+        HandStrengthEvaluator reference = new BitMaskHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 20000; i++)
+        {
+            List<PlayingCard> cards = Deck.createFullDeck(rng).dealCards(5 + i % 3);
+            assert jokersWild.rank(cards) == reference.rank(cards) : "Wrong strength for " + cards;
+            assert Arrays.equals(jokersWild.evaluate(cards).getCards(), reference.evaluate(cards).getCards())
+                : "Wrong cards for " + cards;
+        }
+    }
+
+
+    /**
+     * Random hands containing jokers should be ranked the same as the best hand found by
+     * trying every possible substitution for the jokers.
+     */
+    @Test
+    public void testJokers()
+    {
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 3000; i++)
+        {
+            List<PlayingCard> cards = Deck.createDeckWithJokers(rng, 2).dealCards(5 + i % 3);
+            checkHand(jokersWild, cards);
+        }
+    }
+
+
+    /**
+     * With deuces wild, there can be up to four wild cards.
+     */
+    @Test
+    public void testDeucesWild()
+    {
+        Random rng = new MersenneTwisterRNG();
+        int checked = 0;
+        while (checked < 1000)
+        {
+            Deck deck = Deck.createFullDeck(rng);
+            List<PlayingCard> cards = new ArrayList<PlayingCard>(5);
+            // Deal deuces more often than usual by taking them from the top of the deck.
+            cards.add(PlayingCard.TWO_OF_HEARTS);
+            while (cards.size() < 5)
+            {
+                PlayingCard card = deck.dealCard();
+                if (card != PlayingCard.TWO_OF_HEARTS)
+                {
+                    cards.add(card);
+                }
+            }
+            checkHand(deucesWild, cards);
+            ++checked;
+        }
+    }
+
+
+    @Test
+    public void testFiveOfAKind()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.NINE_OF_CLUBS,
+                                                null,
+                                                PlayingCard.NINE_OF_HEARTS,
+                                                PlayingCard.NINE_OF_SPADES,
+                                                PlayingCard.NINE_OF_DIAMONDS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.KING_OF_HEARTS);
+        RankedHand hand = jokersWild.evaluate(cards);
+        assert hand.getRanking() == HandRanking.FIVE_OF_A_KIND : "Wrong ranking: " + hand.getRanking();
+        for (int i = 0; i < RankedHand.HAND_SIZE; i++)
+        {
+            assert hand.getCard(i).getValue() == FaceValue.NINE : "Wrong card: " + hand.getCard(i);
+        }
+        List<PlayingCard> substitutes = jokersWild.getSubstitutes(cards);
+        assert substitutes.size() == 1 : "Wrong number of substitutes: " + substitutes.size();
+        assert substitutes.get(0).getValue() == FaceValue.NINE : "Wrong substitute: " + substitutes.get(0);
+
+        List<PlayingCard> royalFlush = Arrays.asList(PlayingCard.ACE_OF_SPADES,
+                                                     PlayingCard.KING_OF_SPADES,
+                                                     PlayingCard.QUEEN_OF_SPADES,
+                                                     PlayingCard.JACK_OF_SPADES,
+                                                     PlayingCard.TEN_OF_SPADES);
+        assert jokersWild.rank(cards) > jokersWild.rank(royalFlush) : "Five-of-a-kind should beat a royal flush.";
+        assert jokersWild.rank(cards) > HandStrength.CLASS_COUNT : "Five-of-a-kind is not a HandStrength.";
+        assert jokersWild.getRanking(cards) == HandRanking.FIVE_OF_A_KIND : "Wrong ranking: " + jokersWild.getRanking(cards);
+
+        MutableRankedHand result = new MutableRankedHand();
+        jokersWild.evaluate(cards, result);
+        assert result.getRanking() == HandRanking.FIVE_OF_A_KIND : "Wrong ranking: " + result.getRanking();
+        assert result.getStrength() == jokersWild.rank(cards) : "Wrong strength: " + result.getStrength();
+        assert result.toRankedHand().getCard(0).getValue() == FaceValue.NINE : "Wrong cards: " + result;
+    }
+
+
+    /**
+     * Wild-card strengths go beyond the range of {@link HandStrength}, so the evaluator must
+     * not be usable where a {@link HandStrengthEvaluator} is expected, such as by
+     * {@link CachingHandEvaluator}.
+     */
+    @Test
+    public void testNotHandStrengthEvaluator()
+    {
+        assert !HandStrengthEvaluator.class.isAssignableFrom(WildCardHandEvaluator.class)
+            : "Wild-card strengths are not HandStrengths.";
+    }
+
+
+    /**
+     * The deuces should stand for the cards that complete a royal flush, and the substitutes
+     * should be listed in the same order as the wild cards.
+     */
+    @Test
+    public void testSubstitutes()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.TWO_OF_CLUBS,
+                                                PlayingCard.ACE_OF_HEARTS,
+                                                PlayingCard.TWO_OF_SPADES,
+                                                PlayingCard.QUEEN_OF_HEARTS,
+                                                PlayingCard.TEN_OF_HEARTS);
+        assert deucesWild.getRanking(cards) == HandRanking.ROYAL_FLUSH : "Wrong ranking: " + deucesWild.getRanking(cards);
+        assert deucesWild.getSubstitutes(cards).equals(Arrays.asList(PlayingCard.KING_OF_HEARTS, PlayingCard.JACK_OF_HEARTS))
+            : "Wrong substitutes: " + deucesWild.getSubstitutes(cards);
+        RankedHand hand = deucesWild.evaluate(cards);
+        assert hand.getCard(0) == PlayingCard.ACE_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(1) == PlayingCard.KING_OF_HEARTS : "Wrong order.";
+        assert hand.getCard(4) == PlayingCard.TEN_OF_HEARTS : "Wrong order.";
+
+        MutableRankedHand result = new MutableRankedHand();
+        deucesWild.evaluate(cards, result);
+        assert result.toRankedHand().compareTo(hand) == 0 : "Holder should contain the same hand: " + result;
+        assert result.getStrength() == deucesWild.rank(cards) : "Wrong strength.";
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewCards()
+    {
+        jokersWild.rank(Arrays.asList(PlayingCard.ACE_OF_CLUBS, null, null, null));
+    }
+
+
+    /**
+     * Checks an evaluator against a brute-force search of all substitutions, and checks that
+     * the chosen cards use the substitutes and make a hand of the reported ranking.
+     */
+    private void checkHand(WildCardHandEvaluator evaluator, List<PlayingCard> cards)
+    {
+        List<PlayingCard> naturals = new ArrayList<PlayingCard>();
+        int wild = 0;
+        for (PlayingCard card : cards)
+        {
+            if (card == null || (evaluator == deucesWild && card.getValue() == FaceValue.TWO))
+            {
+                ++wild;
+            }
+            else
+            {
+                naturals.add(card);
+            }
+        }
+        int expected = bruteForce(naturals, wild);
+        int actual = evaluator.rank(cards);
+        assert actual == expected : "Wrong strength for " + cards + ": " + actual + ", expected " + expected;
+
+        RankedHand hand = evaluator.evaluate(cards);
+        assert hand.getRanking() == WildCardHandEvaluator.getRanking(expected) : "Wrong ranking for " + cards;
+        if (hand.getRanking() != HandRanking.FIVE_OF_A_KIND)
+        {
+            // The chosen cards should make a hand of exactly this strength.
+            assert HandStrength.rank(hand) == expected : "Wrong cards for " + cards + ": " + hand;
+        }
+        List<PlayingCard> substitutes = evaluator.getSubstitutes(cards);
+        assert substitutes.size() == wild : "Wrong number of substitutes.";
+        for (PlayingCard substitute : substitutes)
+        {
+            assert substitute == null || hand.contains(substitute) : "Substitute " + substitute + " not in " + hand;
+        }
+    }
+
+
+    /**
+     * Finds the best hand by trying every combination of distinct cards for the wild cards.
+     * Five-of-a-kind is the only hand that needs a wild card to duplicate a natural card.
+     */
+    private int bruteForce(List<PlayingCard> naturals, int wild)
+    {
+        int[] counts = new int[FaceValue.values().length];
+        for (PlayingCard card : naturals)
+        {
+            ++counts[card.getValue().ordinal()];
+        }
+        for (int rank = counts.length - 1; rank >= 0; rank--)
+        {
+            if (counts[rank] + wild >= 5)
+            {
+                return HandStrength.CLASS_COUNT + 1 + rank;
+            }
+        }
+        long suitMasks = 0;
+        for (PlayingCard card : naturals)
+        {
+            suitMasks |= BitMaskHandEvaluator.bit(card.ordinal());
+        }
+        return bruteForce(suitMasks, wild, 0);
+    }
+
+
+    private int bruteForce(long suitMasks, int wild, int firstCard)
+    {
+        if (wild == 0)
+        {
+            return BitMaskHandEvaluator.rank(suitMasks);
+        }
+        int best = 0;
+        for (int card = firstCard; card < PlayingCard.values().length; card++)
+        {
+            long bit = BitMaskHandEvaluator.bit(card);
+            if ((suitMasks & bit) == 0)
+            {
+                best = Math.max(best, bruteForce(suitMasks | bit, wild - 1, card + 1));
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,212 @@
+package org.uncommons.poker.game.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.poker.game.cards.CardUtils;
+import org.uncommons.poker.game.cards.Deck;
+import org.uncommons.poker.game.cards.EightOrBetterLowEvaluator;
+import org.uncommons.poker.game.cards.FiveCardHandEvaluator;
+import org.uncommons.poker.game.cards.HandEvaluator;
+import org.uncommons.poker.game.cards.HandRanking;
+import org.uncommons.poker.game.cards.HandStrength;
+import org.uncommons.poker.game.cards.OmahaBoardContext;
+import org.uncommons.poker.game.cards.PlayingCard;
+import org.uncommons.poker.game.cards.RankedHand;
+
+/**
+ * Unit test for the {@link Omaha} rules implementation.
+ * @author Daniel Dyer
+ */
+public class OmahaTest
+{
+    private final PokerRules omaha = new Omaha();
+
+    /**
+     * Four cards of a suit on the board do not make a flush unless the player has two
+     * cards of that suit.
+     */
+    @Test
+    public void testFlushNeedsTwoHoleCards()
+    {
+        List<PlayingCard> communityCards = Arrays.asList(PlayingCard.TWO_OF_HEARTS,
+                                                         PlayingCard.SIX_OF_HEARTS,
+                                                         PlayingCard.NINE_OF_HEARTS,
+                                                         PlayingCard.JACK_OF_HEARTS,
+                                                         PlayingCard.KING_OF_CLUBS);
+        List<PlayingCard> holeCards = Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                                    PlayingCard.KING_OF_SPADES,
+                                                    PlayingCard.SEVEN_OF_DIAMONDS,
+                                                    PlayingCard.THREE_OF_CLUBS);
+        RankedHand hand = omaha.rankHand(holeCards, communityCards);
+        assert hand.getRanking() == HandRanking.PAIR : "Wrong hand ranking: " + hand.getRanking();
+
+        holeCards = Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                  PlayingCard.KING_OF_SPADES,
+                                  PlayingCard.SEVEN_OF_DIAMONDS,
+                                  PlayingCard.THREE_OF_HEARTS);
+        hand = omaha.rankHand(holeCards, communityCards);
+        assert hand.getRanking() == HandRanking.FLUSH : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.contains(PlayingCard.ACE_OF_HEARTS) : "Hand should contain Ace of Hearts.";
+        assert hand.contains(PlayingCard.THREE_OF_HEARTS) : "Hand should contain Three of Hearts.";
+    }
+
+
+    /**
+     * Three of a kind in the hole is only a pair, since only two hole cards can be used.
+     */
+    @Test
+    public void testOnlyTwoHoleCardsUsed()
+    {
+        List<PlayingCard> communityCards = Arrays.asList(PlayingCard.TWO_OF_HEARTS,
+                                                         PlayingCard.SIX_OF_CLUBS,
+                                                         PlayingCard.NINE_OF_SPADES,
+                                                         PlayingCard.JACK_OF_HEARTS,
+                                                         PlayingCard.KING_OF_DIAMONDS);
+        List<PlayingCard> holeCards = Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                                    PlayingCard.ACE_OF_SPADES,
+                                                    PlayingCard.ACE_OF_DIAMONDS,
+                                                    PlayingCard.THREE_OF_CLUBS);
+        RankedHand hand = omaha.rankHand(holeCards, communityCards);
+        assert hand.getRanking() == HandRanking.PAIR : "Wrong hand ranking: " + hand.getRanking();
+    }
+
+
+    /**
+     * The best hand should be the same as the best of all of the valid 5-card combinations,
+     * ranked individually, for all three variants.
+     */
+    @Test
+    public void testAllCombinations()
+    {
+        HandEvaluator fiveCardEvaluator = new FiveCardHandEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int holeCardCount = 4; holeCardCount <= 6; holeCardCount++)
+        {
+            PokerRules rules = new Omaha(holeCardCount);
+            for (int i = 0; i < 2000; i++)
+            {
+                Deck deck = Deck.createFullDeck(rng);
+                List<PlayingCard> communityCards = deck.dealCards(5);
+                List<PlayingCard> holeCards = deck.dealCards(holeCardCount);
+                int expected = 0;
+                for (int h1 = 0; h1 < holeCardCount; h1++)
+                {
+                    for (int h2 = h1 + 1; h2 < holeCardCount; h2++)
+                    {
+                        for (int b1 = 0; b1 < 5; b1++)
+                        {
+                            for (int b2 = b1 + 1; b2 < 5; b2++)
+                            {
+                                for (int b3 = b2 + 1; b3 < 5; b3++)
+                                {
+                                    List<PlayingCard> cards = new ArrayList<PlayingCard>(5);
+                                    cards.add(holeCards.get(h1));
+                                    cards.add(holeCards.get(h2));
+                                    cards.add(communityCards.get(b1));
+                                    cards.add(communityCards.get(b2));
+                                    cards.add(communityCards.get(b3));
+                                    CardUtils.fiveCardSort(cards);
+                                    expected = Math.max(expected, HandStrength.rank(fiveCardEvaluator.evaluate(cards)));
+                                }
+                            }
+                        }
+                    }
+                }
+                RankedHand hand = rules.rankHand(holeCards, communityCards);
+                assert HandStrength.rank(hand) == expected : "Wrong hand: " + hand;
+                assert new OmahaBoardContext(communityCards).rank(holeCards) == expected : "Wrong strength.";
+            }
+        }
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfHoleCards()
+    {
+        omaha.rankHand(Arrays.asList(PlayingCard.ACE_OF_HEARTS, PlayingCard.ACE_OF_SPADES),
+                       Arrays.asList(PlayingCard.TWO_OF_HEARTS,
+                                     PlayingCard.SIX_OF_CLUBS,
+                                     PlayingCard.NINE_OF_SPADES));
+    }
+
+
+    /**
+     * The low hand must also use exactly two hole cards, which need not be the same two
+     * cards that make the high hand.
+     */
+    @Test
+    public void testHighLow()
+    {
+        List<PlayingCard> communityCards = Arrays.asList(PlayingCard.TWO_OF_HEARTS,
+                                                         PlayingCard.FIVE_OF_CLUBS,
+                                                         PlayingCard.SEVEN_OF_SPADES,
+                                                         PlayingCard.KING_OF_HEARTS,
+                                                         PlayingCard.KING_OF_DIAMONDS);
+        List<PlayingCard> holeCards = Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                                    PlayingCard.THREE_OF_SPADES,
+                                                    PlayingCard.KING_OF_CLUBS,
+                                                    PlayingCard.QUEEN_OF_CLUBS);
+        HighLowHand hand = ((HighLowRules) omaha).rankHighLow(holeCards, communityCards);
+        // Three kings for high (K-Q or K-A from the hole), 7-5-3-2-A for low (A-3 from the hole).
+        assert hand.getHighHand().getRanking() == HandRanking.THREE_OF_A_KIND : "Wrong high hand: " + hand;
+        assert hand.hasLowHand() : "Should have a low hand.";
+        assert hand.getLowHand().getRanking() == HandRanking.LOW_EIGHT_OR_BETTER : "Wrong low hand: " + hand;
+        assert hand.getLowHand().getCard(0) == PlayingCard.SEVEN_OF_SPADES : "Wrong low hand: " + hand;
+        assert hand.getLowHand().contains(PlayingCard.ACE_OF_HEARTS) : "Wrong low hand: " + hand;
+
+        // Only one low hole card, so no low.
+        holeCards = Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                  PlayingCard.NINE_OF_SPADES,
+                                  PlayingCard.KING_OF_CLUBS,
+                                  PlayingCard.QUEEN_OF_CLUBS);
+        hand = ((HighLowRules) omaha).rankHighLow(holeCards, communityCards);
+        assert !hand.hasLowHand() : "Should not have a low hand: " + hand;
+    }
+
+
+    /**
+     * The best low should be the same as the best of all of the valid 5-card combinations,
+     * ranked individually.
+     */
+    @Test
+    public void testAllLowCombinations()
+    {
+        EightOrBetterLowEvaluator lowEvaluator = new EightOrBetterLowEvaluator();
+        Random rng = new MersenneTwisterRNG();
+        for (int i = 0; i < 10000; i++)
+        {
+            Deck deck = Deck.createFullDeck(rng);
+            List<PlayingCard> communityCards = deck.dealCards(5);
+            List<PlayingCard> holeCards = deck.dealCards(4);
+            int expected = 0;
+            for (int h1 = 0; h1 < 4; h1++)
+            {
+                for (int h2 = h1 + 1; h2 < 4; h2++)
+                {
+                    for (int b1 = 0; b1 < 5; b1++)
+                    {
+                        for (int b2 = b1 + 1; b2 < 5; b2++)
+                        {
+                            for (int b3 = b2 + 1; b3 < 5; b3++)
+                            {
+                                expected = Math.max(expected, lowEvaluator.rank(Arrays.asList(holeCards.get(h1),
+                                                                                              holeCards.get(h2),
+                                                                                              communityCards.get(b1),
+                                                                                              communityCards.get(b2),
+                                                                                              communityCards.get(b3))));
+                            }
+                        }
+                    }
+                }
+            }
+            OmahaBoardContext board = new OmahaBoardContext(communityCards);
+            assert board.rankLow(holeCards) == expected : "Wrong low strength.";
+            RankedHand low = board.evaluateLow(holeCards);
+            assert expected == 0 ? low == null : lowEvaluator.rank(Arrays.asList(low.getCards())) == expected : "Wrong low hand.";
+        }
+    }
+}
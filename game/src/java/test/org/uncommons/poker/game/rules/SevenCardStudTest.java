@@ -0,0 +1,70 @@
+package org.uncommons.poker.game.rules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.testng.annotations.Test;
+import org.uncommons.poker.game.cards.HandRanking;
+import org.uncommons.poker.game.cards.PlayingCard;
+import org.uncommons.poker.game.cards.RankedHand;
+
+/**
+ * Unit test for the {@link SevenCardStud} rules implementation.
+ * @author Daniel Dyer
+ */
+public class SevenCardStudTest
+{
+    private final SevenCardStud stud = new SevenCardStud();
+
+    @Test
+    public void testRankHand()
+    {
+        List<PlayingCard> cards = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                PlayingCard.SEVEN_OF_DIAMONDS,
+                                                PlayingCard.FOUR_OF_HEARTS,
+                                                PlayingCard.SIX_OF_DIAMONDS,
+                                                PlayingCard.SEVEN_OF_SPADES,
+                                                PlayingCard.ACE_OF_SPADES,
+                                                PlayingCard.TWO_OF_CLUBS);
+        List<PlayingCard> noCommunityCards = Collections.emptyList();
+        RankedHand hand = stud.rankHand(cards, noCommunityCards);
+        assert hand.getRanking() == HandRanking.TWO_PAIR : "Wrong hand ranking: " + hand.getRanking();
+        assert hand.getCard(4) == PlayingCard.SIX_OF_DIAMONDS : "Wrong kicker: " + hand.getCard(4);
+
+        HighLowHand highLow = stud.rankHighLow(cards, noCommunityCards);
+        assert highLow.getHighHand().getRanking() == HandRanking.TWO_PAIR : "Wrong high hand: " + highLow;
+        assert highLow.hasLowHand() : "Should have a low hand.";
+        assert highLow.getLowHand().getCard(0).getValue() == PlayingCard.SEVEN_OF_SPADES.getValue() : "Wrong low: " + highLow;
+    }
+
+
+    /**
+     * On third street, the lowest face-up card (by rank, then suit) must bring in.
+     */
+    @Test
+    public void testBringIn()
+    {
+        List<List<PlayingCard>> faceUpCards = Arrays.asList(Arrays.asList(PlayingCard.KING_OF_HEARTS),
+                                                            Arrays.asList(PlayingCard.TWO_OF_SPADES),
+                                                            Arrays.asList(PlayingCard.TWO_OF_DIAMONDS),
+                                                            Arrays.asList(PlayingCard.FIVE_OF_CLUBS));
+        assert stud.getFirstToAct(faceUpCards) == 2 : "Wrong player to bring in.";
+    }
+
+
+    /**
+     * On later streets, the best face-up cards act first, with ties going to the player
+     * closest to the dealer's left.
+     */
+    @Test
+    public void testFirstToActOnLaterStreets()
+    {
+        List<List<PlayingCard>> faceUpCards = Arrays.asList(Arrays.asList(PlayingCard.ACE_OF_HEARTS,
+                                                                          PlayingCard.KING_OF_HEARTS),
+                                                            Arrays.asList(PlayingCard.FOUR_OF_SPADES,
+                                                                          PlayingCard.FOUR_OF_HEARTS),
+                                                            Arrays.asList(PlayingCard.FOUR_OF_CLUBS,
+                                                                          PlayingCard.FOUR_OF_DIAMONDS));
+        assert stud.getFirstToAct(faceUpCards) == 1 : "Wrong player to act first.";
+    }
+}
@@ -79,4 +79,23 @@ public class TexasHoldemTest
         assert !hand.contains(PlayingCard.ACE_OF_CLUBS) : "Hand should not contain Ace of Clubs.";
         assert !hand.contains(PlayingCard.ACE_OF_DIAMONDS) : "Hand should not contain Ace of Diamonds.";
     }
+
+
+    @Test
+    public void testHighLow()
+    {
+        List<PlayingCard> holeCards = Arrays.asList(PlayingCard.ACE_OF_CLUBS,
+                                                    PlayingCard.THREE_OF_DIAMONDS);
+        List<PlayingCard> communityCards = Arrays.asList(PlayingCard.TEN_OF_HEARTS,
+                                                         PlayingCard.SIX_OF_DIAMONDS,
+                                                         PlayingCard.SEVEN_OF_SPADES,
+                                                         PlayingCard.ACE_OF_SPADES,
+                                                         PlayingCard.TWO_OF_CLUBS);
+        HighLowHand hand = ((HighLowRules) holdem).rankHighLow(holeCards, communityCards);
+        assert hand.getHighHand().getRanking() == HandRanking.PAIR : "Wrong high hand: " + hand;
+        assert hand.hasLowHand() : "Should have a low hand.";
+        // 7-6-3-2-A
+        assert hand.getLowHand().getCard(0) == PlayingCard.SEVEN_OF_SPADES : "Wrong low hand: " + hand;
+        assert hand.getLowHand().getCard(4).getValue() == PlayingCard.ACE_OF_SPADES.getValue() : "Wrong low hand: " + hand;
+    }
 }
@@ -0,0 +1,47 @@
+package org.uncommons.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of a task that is shared between several threads.  Each thread
+ * reports the work that it has completed and the overall percentage is passed on to a
+ * {@link ConsoleProgressDisplay}.  The display is only updated by one thread at a time,
+ * and only when the percentage has increased, so it never goes backwards even when
+ * threads report out of order.
+ * @author Daniel Dyer
+ */
+public class ProgressTracker
+{
+    private final ConsoleProgressDisplay display;
+    private final long total;
+    private final AtomicLong completed = new AtomicLong(0);
+    private int reportedPercentage = -1;
+
+    /**
+     * @param display The display to update.
+     * @param total The total amount of work (in arbitrary units) that makes up the task.
+     */
+    public ProgressTracker(ConsoleProgressDisplay display, long total)
+    {
+        this.display = display;
+        this.total = total;
+    }
+
+
+    /**
+     * Records that some work has been completed.  May be called from any thread.
+     * @param amount The amount of work completed since the last call from this thread.
+     */
+    public void addCompleted(long amount)
+    {
+        int percentage = (int) (completed.addAndGet(amount) * 100 / total);
+        synchronized (this)
+        {
+            if (percentage > reportedPercentage)
+            {
+                reportedPercentage = percentage;
+                display.update(percentage);
+            }
+        }
+    }
+}